@@ -0,0 +1,99 @@
+package com.todo;
+
+import com.todo.cli.AuthCli;
+import com.todo.cli.ScriptRunner;
+import com.todo.cli.TaskCli;
+import com.todo.cli.TaskTableRenderer;
+import com.todo.dao.CategoryDao;
+import com.todo.dao.StatusDao;
+import com.todo.dao.TaskQuery;
+import com.todo.model.TagFilter;
+import com.todo.model.Task;
+import com.todo.reminder.ReminderScheduler;
+import com.todo.reminder.ReminderSink;
+import com.todo.util.CompressedBitmap;
+import com.todo.util.DB;
+import com.todo.util.Json;
+import com.todo.util.PrefixIndex;
+import com.todo.util.UnitOfWork;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// start-up work kept off the path to the first prompt.
+//   inBackground: runs the start-up steps on one background thread, in order, while the login prompt is shown.
+//     in sequence the first step to touch the database pays for driver loading and the TLS/auth classes once,
+//     instead of every loader doing it at the same time. TODO_WARMUP=off gives each step its own thread.
+//   train: the class-loading run behind the AppCDS archive built by the fast-start profile (see pom.xml).
+//     it walks the code paths of a session that need no database; the connection attempt at the end still
+//     loads most of the driver when no database is reachable
+public class FastStart {
+
+    public static void inBackground(List<Runnable> steps) {
+        if ("off".equalsIgnoreCase(System.getProperty("TODO_WARMUP"))) {
+            for (Runnable r : steps) daemon(r, "todo-startup");
+            return;
+        }
+        daemon(() -> {
+            for (Runnable r : steps) r.run();
+        }, "todo-startup");
+    }
+
+    // opens the first connection and fills the status and category caches, all in one read-only unit
+    public static void primeReferenceData() {
+        try {
+            UnitOfWork.read(() -> {
+                new StatusDao().primeCache();
+                return new CategoryDao().primeCache();
+            });
+        } catch (Exception e) {
+            // the first real call reports the problem to the user
+            System.err.println("Warm-up failed: " + e.getMessage());
+        }
+    }
+
+    public static void train() {
+        TaskQuery.forUser(1).statuses("blocked").namePrefix("a").sort(TaskQuery.Sort.DUE_ASC).limit(20);
+        TagFilter.parse("urgent work|home -later");
+        CompressedBitmap.and(CompressedBitmap.of(1, 2, 3), CompressedBitmap.of(2, 3));
+
+        PrefixIndex names = new PrefixIndex();
+        names.put(1, "Write report", 1);
+        names.top("wr", 10);
+
+        List<Task> tasks = new ArrayList<>();
+        long now = Task.toMicros(LocalDateTime.now());
+        tasks.add(new Task(1, "Write report", 1, 1, 1, "user", now, now, 0, now));
+        try {
+            new TaskTableRenderer(new StringWriter(), 20).renderAll("Tasks", tasks);
+            new ScriptRunner(null, new StringWriter());
+            Json.quote(new StringBuilder(), "\"warm\"");
+
+            new AuthCli();
+            new TaskCli();
+            ReminderSink sink = ReminderSink.fromConfig();
+            if (sink != null) {
+                ReminderScheduler reminders = new ReminderScheduler(sink);
+                reminders.start();
+                reminders.stop();
+            }
+
+            primeReferenceData();
+            Class.forName("org.postgresql.Driver");
+            try (Connection c = DB.getConnection()) {
+                c.isValid(1);
+            }
+        } catch (Exception e) {
+            // expected without a database
+        }
+    }
+
+    private static void daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        t.start();
+    }
+}
@@ -1,22 +1,154 @@
 package com.todo;
 
 import com.todo.cli.AuthCli;
+import com.todo.cli.ScriptRunner;
 import com.todo.cli.TaskCli;
 import com.todo.model.User;
-import com.todo.util.DB;
-import java.sql.Connection;
+import com.todo.report.ProductivityReport;
+import com.todo.report.ReportWriter;
+import com.todo.reminder.ConsoleReminderSink;
+import com.todo.reminder.ReminderScheduler;
+import com.todo.reminder.ReminderSink;
+import com.todo.service.AdmissionControlledTaskService;
+import com.todo.service.AdmissionController;
+import com.todo.service.AuthService;
+import com.todo.service.RecurrenceService;
+import com.todo.service.ReportService;
+import com.todo.service.TaskEvents;
+import com.todo.service.UsernameIndex;
+import com.todo.util.StartupTimer;
+
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
+        StartupTimer.mark("main");
+        // class-loading run for the AppCDS archive (mvn -P fast-start package)
+        if (args.length == 1 && args[0].equals("--cds-training")) {
+            FastStart.train();
+            return;
+        }
+        if (args.length > 0) {
+            System.exit(runScript(args));
+        }
+
+        // reminders run in the background of the interactive session only; TODO_REMINDERS=off disables them
+        ReminderSink sink = ReminderSink.fromConfig();
+        ConsoleReminderSink console = sink instanceof ConsoleReminderSink c ? c : null;
+
+        // nothing here runs on the main thread, so the login prompt does not wait for class loading or the
+        // database; a failure in a step only delays that feature (recurring tasks until the next start)
+        FastStart.inBackground(List.of(
+                () -> {
+                    if (sink == null) return;
+                    ReminderScheduler reminders = new ReminderScheduler(sink);
+                    TaskEvents.register(reminders);
+                    reminders.start();
+                },
+                FastStart::primeReferenceData,
+                () -> {
+                    try {
+                        UsernameIndex.shared().load();
+                    } catch (Exception e) {
+                        System.err.println("Could not load usernames: " + e.getMessage());
+                    }
+                },
+                () -> {
+                    try {
+                        new RecurrenceService().materialize();
+                    } catch (Exception e) {
+                        System.err.println("Could not create recurring tasks: " + e.getMessage());
+                    }
+                }));
+
         try {
             AuthCli authCli = new AuthCli();
            while (true){
                User user = authCli.startAuthFlow();
+               if (console != null) console.setUser(user.getId());
                new TaskCli().start(user);
+               if (console != null) console.clearUser();
                authCli.logout();
            }
         }catch (Exception e){
             e.printStackTrace();
         }
     }
+
+    // batch mode: --script <file|-> --user <name> [--password <pwd>] [--atomic]
+    // report mode: --report <file> --user <name> [--password <pwd>] [--format csv|json] [--days n] [--stale-days n]
+    // the password falls back to the TODO_PASSWORD environment variable so it stays out of the process list
+    private static int runScript(String[] args) {
+        String script = null, report = null, format = null, days = null, staleDays = null;
+        String user = null, password = System.getenv("TODO_PASSWORD");
+        boolean atomic = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--script" -> script = i + 1 < args.length ? args[++i] : null;
+                case "--user" -> user = i + 1 < args.length ? args[++i] : null;
+                case "--password" -> password = i + 1 < args.length ? args[++i] : null;
+                case "--atomic" -> atomic = true;
+                case "--report" -> report = i + 1 < args.length ? args[++i] : null;
+                case "--format" -> format = i + 1 < args.length ? args[++i] : null;
+                case "--days" -> days = i + 1 < args.length ? args[++i] : null;
+                case "--stale-days" -> staleDays = i + 1 < args.length ? args[++i] : null;
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    return 2;
+                }
+            }
+        }
+        if (report != null && user != null) return runReport(report, format, days, staleDays, user, password);
+        if (script == null || user == null) {
+            System.err.println("Usage: --script <file|-> --user <name> [--password <pwd>] [--atomic]");
+            System.err.println("       --report <file> --user <name> [--password <pwd>] [--format csv|json] [--days n] [--stale-days n]");
+            return 2;
+        }
+
+        try (Reader in = script.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8);
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+
+            User u = new AuthService().login(user, password);
+            int failed = new ScriptRunner(new AdmissionControlledTaskService(AdmissionController.shared()), out).run(in, u, atomic);
+            return failed == 0 ? 0 : 1;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Validation: " + e.getMessage());
+            return 1;
+        } catch (Exception e) {
+            System.err.println("System error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    // outside a script no connection is bound, so the report scans its partitions in parallel
+    private static int runReport(String file, String format, String days, String staleDays, String user, String password) {
+        try {
+            User u = new AuthService().login(user, password);
+            ReportService reports = new ReportService();
+            ProductivityReport report = reports.export(u, Paths.get(file),
+                    format != null ? ReportWriter.Format.of(format) : ReportWriter.Format.forFile(file),
+                    days != null ? Integer.parseInt(days) : reports.defaultDays(),
+                    staleDays != null ? Integer.parseInt(staleDays) : reports.defaultStaleDays());
+            System.err.println("Report written to " + file + ": " + report.data().rows() + " tasks in "
+                    + report.data().partitions() + " partitions, " + report.elapsedMs() + " ms");
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Validation: " + e.getMessage());
+            return 1;
+        } catch (Exception e) {
+            System.err.println("System error: " + e.getMessage());
+            return 1;
+        }
+    }
 }
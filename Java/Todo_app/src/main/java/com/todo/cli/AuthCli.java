@@ -1,7 +1,9 @@
 package com.todo.cli;
 
+import com.todo.exception.DatabaseUnavailableException;
 import com.todo.model.User;
 import com.todo.service.AuthService;
+import com.todo.util.StartupTimer;
 
 import java.util.Scanner;
 
@@ -16,6 +18,7 @@ public class AuthCli {
             System.out.println("2) Login");
             System.out.println("3) Exit");
             System.out.print("Choose: ");
+            StartupTimer.mark("first prompt");
 
             String choice = sc.nextLine().trim();
 
@@ -24,6 +27,10 @@ public class AuthCli {
                     case "1" -> {
                         System.out.print("Enter username: ");
                         String username = sc.nextLine();
+                        if (!username.isBlank() && !authService.isUsernameAvailable(username)) {
+                            System.out.println("Validation: User already exists, please select a different username.");
+                            continue;
+                        }
                         System.out.print("Enter password: ");
                         String password = sc.nextLine();
 
@@ -47,6 +54,8 @@ public class AuthCli {
             } catch (IllegalArgumentException e) {
                 // prints exactly the validation messages you requested
                 System.out.println("Validation: " + e.getMessage());
+            } catch (DatabaseUnavailableException e) {
+                System.out.println("Database unavailable: " + e.getMessage());
             } catch (Exception e) {
                 System.out.println("System error: " + e.getMessage());
             }
@@ -0,0 +1,497 @@
+package com.todo.cli;
+
+import com.todo.dao.TaskQuery;
+import com.todo.dao.TaskQueryCompiler;
+import com.todo.dao.TaskTreeDao;
+import com.todo.model.Attachment;
+import com.todo.model.SharePermission;
+import com.todo.model.TagFilter;
+import com.todo.model.Task;
+import com.todo.model.TaskListChanges;
+import com.todo.model.TaskNode;
+import com.todo.model.User;
+import com.todo.report.ProductivityReport;
+import com.todo.report.ReportWriter;
+import com.todo.service.AdmissionController;
+import com.todo.service.ArchiveService;
+import com.todo.service.AttachmentService;
+import com.todo.service.RecurrenceService;
+import com.todo.service.ReportService;
+import com.todo.service.SnapshotService;
+import com.todo.service.TaskService;
+import com.todo.util.DB;
+import com.todo.util.Json;
+import com.todo.util.PrefixIndex;
+import com.todo.util.StartupTimer;
+import com.todo.util.UnitOfWork;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// non-interactive mode: runs one command per line for a single logged-in user and prints one JSON object per line.
+// all commands share one connection; with atomic=true they also share one transaction that is rolled back on the first error.
+//
+//   add "task name" <category> [--due=2026-01-31T17:00]      edit <id> "new name"
+//   due <id> <2026-01-31T17:00|none>
+//   move <id> --before=<id>|--after=<id>
+//   subtask <parent id> "name"      parent <id> <parent id|none>      tree <id>
+//   start|complete|block|delete <id>
+//   list [--status=a,b] [--category=a,b] [--prefix=text] [--created-after=t] [--created-before=t]
+//        [--sort=manual|updated|created|created_asc|due|name] [--limit=n] [--archived] [--attachments]
+//   changes <stamp> [--delta]       (the list only if it changed since the stamp a previous call returned; 0 = none)
+//   note <id> "text"                attach <id> <file>
+//   attachments <id>                download <attachment id> <file>
+//   claim <category> [count]        archive        materialize        stats
+//   snapshot <file>                 (binary snapshot of the user's tasks)
+//   report <file> [--format=csv|json] [--days=n] [--stale-days=n]   (all users; on the script's connection, not in parallel)
+public class ScriptRunner {
+    private final TaskService taskService;
+    private final ArchiveService archiveService = new ArchiveService();
+    private final RecurrenceService recurrenceService = new RecurrenceService();
+    private final SnapshotService snapshotService = new SnapshotService();
+    private final AttachmentService attachmentService = new AttachmentService();
+    private final ReportService reportService = new ReportService();
+    private final Writer out;
+    private final StringBuilder sb = new StringBuilder(512);
+
+    public ScriptRunner(TaskService taskService, Writer out) {
+        this.taskService = taskService;
+        this.out = out;
+    }
+
+    // returns the number of failed commands; in atomic mode nothing is committed if that is not 0
+    public int run(Reader script, User user, boolean atomic) throws Exception {
+        BufferedReader in = script instanceof BufferedReader br ? br : new BufferedReader(script);
+        int lineNo = 0, executed = 0, failed = 0;
+
+        // atomic: one unit of work, so task events only reach the in-memory indexes if the script commits
+        UnitOfWork unit = atomic ? UnitOfWork.begin() : null;
+        if (!atomic) DB.bind(true);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+                executed++;
+                sb.setLength(0);
+                sb.append("{\"line\":").append(lineNo).append(',');
+                try {
+                    execute(tokenize(trimmed), user);
+                } catch (Exception e) {
+                    failed++;
+                    sb.setLength(0);
+                    sb.append("{\"line\":").append(lineNo).append(",\"ok\":false,\"error\":");
+                    Json.quote(sb, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    sb.append("}\n");
+                    out.append(sb);
+                    if (atomic) break;
+                    continue;
+                }
+                out.append(sb);
+            }
+
+            boolean committed = !atomic || failed == 0;
+            if (atomic && committed) unit.commit();
+
+            sb.setLength(0);
+            sb.append("{\"summary\":true,\"executed\":").append(executed)
+                    .append(",\"failed\":").append(failed)
+                    .append(",\"committed\":").append(committed).append("}\n");
+            out.append(sb);
+            out.flush();
+            return failed;
+        } finally {
+            // rolls back an atomic script that did not commit
+            if (atomic) unit.close();
+            else DB.unbind();
+        }
+    }
+
+    private void execute(List<String> args, User user) throws Exception {
+        String cmd = args.get(0).toLowerCase();
+        sb.append("\"ok\":true,\"cmd\":");
+        Json.quote(sb, cmd);
+
+        switch (cmd) {
+            case "add" -> {
+                need(args, 3, "add \"task name\" <category> [--due=yyyy-MM-ddTHH:mm]");
+                Map<String, String> opts = options(args.subList(2, args.size()));
+                Task t = taskService.addTask(args.get(1), user.getId(), args.get(2), dateTime(opts.get("due")));
+                sb.append(",\"id\":").append(t.getId());
+            }
+            case "due" -> {
+                need(args, 3, "due <id> <yyyy-MM-ddTHH:mm|none>");
+                LocalDateTime due = args.get(2).equalsIgnoreCase("none") ? null : dateTime(args.get(2));
+                taskService.setDueDate(id(args.get(1)), user.getId(), due);
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "edit" -> {
+                need(args, 3, "edit <id> \"new name\"");
+                taskService.editTask(id(args.get(1)), user.getId(), args.get(2));
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "start" -> {
+                need(args, 2, "start <id>");
+                taskService.startTask(id(args.get(1)), user.getId());
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "complete" -> {
+                need(args, 2, "complete <id>");
+                taskService.markCompleted(id(args.get(1)), user.getId());
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "block" -> {
+                need(args, 2, "block <id>");
+                taskService.markBlocked(id(args.get(1)), user.getId());
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "delete" -> {
+                need(args, 2, "delete <id>");
+                taskService.deleteTask(id(args.get(1)), user.getId());
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "move" -> {
+                need(args, 3, "move <id> --before=<id>|--after=<id>");
+                int taskId = id(args.get(1));
+                Map<String, String> opts = options(args.subList(1, args.size()));
+                if (opts.containsKey("before") == opts.containsKey("after"))
+                    throw new IllegalArgumentException("Usage: move <id> --before=<id>|--after=<id>");
+                if (opts.containsKey("before")) taskService.moveBefore(taskId, id(opts.get("before")), user.getId());
+                else taskService.moveAfter(taskId, id(opts.get("after")), user.getId());
+                sb.append(",\"id\":").append(taskId);
+            }
+            case "subtask" -> {
+                need(args, 3, "subtask <parent id> \"name\"");
+                Task t = taskService.addSubtask(id(args.get(1)), args.get(2), user.getId());
+                sb.append(",\"id\":").append(t.getId()).append(",\"parent\":").append(args.get(1));
+            }
+            case "parent" -> {
+                need(args, 3, "parent <id> <parent id|none>");
+                int parentId = args.get(2).equalsIgnoreCase("none") ? 0 : id(args.get(2));
+                taskService.moveSubtree(id(args.get(1)), parentId, user.getId());
+                sb.append(",\"id\":").append(args.get(1)).append(",\"parent\":").append(parentId == 0 ? "null" : parentId);
+            }
+            case "tree" -> {
+                need(args, 2, "tree <id>");
+                int taskId = id(args.get(1));
+                TaskTreeDao.Progress progress = taskService.getSubtaskProgress(taskId, user.getId());
+                sb.append(",\"id\":").append(taskId)
+                        .append(",\"subtasks\":").append(progress.total())
+                        .append(",\"completed\":").append(progress.completed())
+                        .append(",\"path\":[");
+                List<Task> path = taskService.getAncestors(taskId, user.getId());
+                for (int i = 0; i < path.size(); i++) sb.append(i > 0 ? "," : "").append(path.get(i).getId());
+                sb.append("],\"nodes\":[");
+                List<TaskNode> nodes = taskService.getSubtree(taskId, user.getId());
+                for (int i = 0; i < nodes.size(); i++) {
+                    TaskNode n = nodes.get(i);
+                    if (i > 0) sb.append(',');
+                    sb.append("{\"id\":").append(n.getTask().getId())
+                            .append(",\"parent\":").append(n.getDepth() == 0 ? "null" : String.valueOf(n.getParentId()))
+                            .append(",\"depth\":").append(n.getDepth()).append(",\"name\":");
+                    Json.quote(sb, n.getTask().getTask_name()).append(",\"status\":");
+                    Json.quote(sb, n.getTask().getStatusName());
+                    sb.append('}');
+                }
+                sb.append(']');
+            }
+            case "list" -> {
+                Map<String, String> opts = options(args);
+                TaskQuery query = TaskQuery.forUser(user.getId())
+                        .statuses(split(opts.get("status")))
+                        .categories(split(opts.get("category")))
+                        .namePrefix(opts.get("prefix"))
+                        .createdBetween(dateTime(opts.get("created-after")), dateTime(opts.get("created-before")))
+                        .sort(sort(opts.get("sort")))
+                        .limit(opts.containsKey("limit") ? id(opts.get("limit")) : null)
+                        .includeArchived(opts.containsKey("archived"));
+                List<Task> tasks = taskService.findMyTasks(query);
+                // counts only on request, in one grouped query over this page
+                Map<Integer, Integer> attachments = opts.containsKey("attachments")
+                        ? attachmentService.countAttachments(tasks.stream().mapToInt(Task::getId).toArray(), user.getId())
+                        : null;
+                appendTasks(tasks, attachments);
+                StartupTimer.mark("first list");
+            }
+            case "changes" -> {
+                need(args, 2, "changes <stamp> [--delta]");
+                long known;
+                try {
+                    known = Long.parseLong(args.get(1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a number: " + args.get(1));
+                }
+                Map<String, String> opts = options(args.subList(1, args.size()));
+                TaskListChanges changes = opts.containsKey("delta")
+                        ? taskService.listChangesSince(user.getId(), known)
+                        : taskService.listIfChanged(user.getId(), known);
+                sb.append(",\"stamp\":").append(changes.getStamp())
+                        .append(",\"changed\":").append(changes.isChanged());
+                if (changes.isChanged()) {
+                    sb.append(",\"delta\":").append(changes.getKind() == TaskListChanges.Kind.DELTA);
+                    appendTasks(changes.getTasks());
+                }
+            }
+            case "visible" -> {
+                Map<String, String> opts = options(args);
+                appendTasks(taskService.viewVisibleTasks(user.getId(), opts.containsKey("limit") ? id(opts.get("limit")) : null));
+            }
+            case "share" -> {
+                need(args, 4, "share <id> <username> viewer|editor");
+                SharePermission permission;
+                try {
+                    permission = SharePermission.fromDb(args.get(3));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Permission must be viewer or editor.");
+                }
+                taskService.shareTask(id(args.get(1)), user.getId(), args.get(2), permission);
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "unshare" -> {
+                need(args, 3, "unshare <id> <username>");
+                taskService.unshareTask(id(args.get(1)), user.getId(), args.get(2));
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "tag", "untag" -> {
+                need(args, 3, cmd + " <id> <tag> [tag...]");
+                List<String> tags = args.subList(2, args.size());
+                if (cmd.equals("tag")) taskService.tagTask(id(args.get(1)), user.getId(), tags);
+                else taskService.untagTask(id(args.get(1)), user.getId(), tags);
+                sb.append(",\"id\":").append(args.get(1));
+            }
+            case "tagged" -> {
+                need(args, 2, "tagged <tag|tag...> [-tag...] [--limit=n]");
+                // "-tag" excludes a tag, "--name=value" is an option
+                List<String> words = new ArrayList<>(), flags = new ArrayList<>(List.of(cmd));
+                for (String a : args.subList(1, args.size())) (a.startsWith("--") ? flags : words).add(a);
+                Map<String, String> opts = options(flags);
+                appendTasks(taskService.findByTags(user.getId(), TagFilter.parse(String.join(" ", words)),
+                        opts.containsKey("limit") ? id(opts.get("limit")) : null));
+            }
+            case "suggest" -> {
+                need(args, 2, "suggest <prefix> [--category] [--limit=n]");
+                Map<String, String> opts = options(args.subList(1, args.size()));
+                int limit = opts.containsKey("limit") ? id(opts.get("limit")) : 10;
+                sb.append(",\"suggestions\":[");
+                if (opts.containsKey("category")) {
+                    List<String> names = taskService.suggestCategories(args.get(1), limit);
+                    for (int i = 0; i < names.size(); i++) {
+                        if (i > 0) sb.append(',');
+                        Json.quote(sb, names.get(i));
+                    }
+                } else {
+                    List<PrefixIndex.Match> matches = taskService.suggestTasks(user.getId(), args.get(1), limit);
+                    for (int i = 0; i < matches.size(); i++) {
+                        if (i > 0) sb.append(',');
+                        sb.append("{\"id\":").append(matches.get(i).id()).append(",\"name\":");
+                        Json.quote(sb, matches.get(i).name());
+                        sb.append('}');
+                    }
+                }
+                sb.append(']');
+            }
+            case "note" -> {
+                need(args, 3, "note <id> \"text\"");
+                Attachment a = attachmentService.addNote(id(args.get(1)), user.getId(), args.get(2));
+                sb.append(",\"id\":").append(args.get(1)).append(",\"attachment\":").append(a.getId());
+            }
+            case "attach" -> {
+                need(args, 3, "attach <id> <file>");
+                Attachment a = attachmentService.attachFile(id(args.get(1)), user.getId(), Paths.get(args.get(2)));
+                sb.append(",\"id\":").append(args.get(1)).append(",\"attachment\":").append(a.getId())
+                        .append(",\"size\":").append(a.getSizeBytes()).append(",\"hash\":");
+                Json.quote(sb, a.getContentHash());
+            }
+            case "attachments" -> {
+                need(args, 2, "attachments <id>");
+                List<Attachment> list = attachmentService.listAttachments(id(args.get(1)), user.getId());
+                sb.append(",\"id\":").append(args.get(1)).append(",\"attachments\":[");
+                for (int i = 0; i < list.size(); i++) {
+                    Attachment a = list.get(i);
+                    if (i > 0) sb.append(',');
+                    sb.append("{\"attachment\":").append(a.getId()).append(",\"kind\":");
+                    Json.quote(sb, a.getKind()).append(",\"file\":");
+                    Json.quote(sb, a.getFileName()).append(",\"size\":").append(a.getSizeBytes()).append(",\"created\":");
+                    Json.quote(sb, a.getCreatedDate() == null ? null : a.getCreatedDate().toString());
+                    sb.append('}');
+                }
+                sb.append(']');
+            }
+            case "download" -> {
+                need(args, 3, "download <attachment id> <file>");
+                Path file = Paths.get(args.get(2));
+                long bytes = attachmentService.download(id(args.get(1)), user.getId(), file);
+                sb.append(",\"bytes\":").append(bytes).append(",\"file\":");
+                Json.quote(sb, file.toString());
+            }
+            case "claim" -> {
+                need(args, 2, "claim <category> [count]");
+                int count = args.size() > 2 ? id(args.get(2)) : 1;
+                appendTasks(taskService.claimTasks(args.get(1), user.getId(), count));
+            }
+            case "archive" -> sb.append(",\"archived\":").append(archiveService.archiveOldTasks());
+            case "materialize" -> sb.append(",\"created\":").append(recurrenceService.materialize());
+            case "snapshot" -> {
+                need(args, 2, "snapshot <file>");
+                Path file = Paths.get(args.get(1));
+                int rows = snapshotService.exportUser(user.getId(), file);
+                sb.append(",\"rows\":").append(rows).append(",\"file\":");
+                Json.quote(sb, file.toString());
+            }
+            case "report" -> {
+                need(args, 2, "report <file> [--format=csv|json] [--days=n] [--stale-days=n]");
+                String file = args.get(1);
+                // options() skips its first element, which here is the file
+                Map<String, String> opts = options(args.subList(1, args.size()));
+                ProductivityReport report = reportService.export(user, Paths.get(file),
+                        opts.containsKey("format") ? ReportWriter.Format.of(opts.get("format")) : ReportWriter.Format.forFile(file),
+                        opts.containsKey("days") ? id(opts.get("days")) : reportService.defaultDays(),
+                        opts.containsKey("stale-days") ? id(opts.get("stale-days")) : reportService.defaultStaleDays());
+                sb.append(",\"rows\":").append(report.data().rows())
+                        .append(",\"users\":").append(report.data().byUser().size())
+                        .append(",\"categories\":").append(report.data().byCategory().size())
+                        .append(",\"elapsedMs\":").append(report.elapsedMs()).append(",\"file\":");
+                Json.quote(sb, file);
+            }
+            case "stats" -> {
+                AdmissionController.Stats st = AdmissionController.shared().stats();
+                sb.append(",\"admitted\":").append(st.admitted())
+                        .append(",\"rateLimited\":").append(st.rateLimited())
+                        .append(",\"queueFull\":").append(st.queueFull())
+                        .append(",\"waitTimeouts\":").append(st.waitTimeouts())
+                        .append(",\"queueDepth\":").append(st.queueDepth())
+                        .append(",\"avgWaitMs\":").append(st.avgWaitMs())
+                        .append(",\"maxWaitMs\":").append(st.maxWaitMs());
+                TaskQueryCompiler.Stats qs = TaskQueryCompiler.stats();
+                sb.append(",\"queryShapes\":").append(qs.shapes())
+                        .append(",\"queryCompiled\":").append(qs.compiled())
+                        .append(",\"queryReused\":").append(qs.reused());
+                UnitOfWork.Stats us = UnitOfWork.stats();
+                sb.append(",\"connectionsOpened\":").append(DB.connectionsOpened())
+                        .append(",\"unitsBegun\":").append(us.begun())
+                        .append(",\"unitsCommitted\":").append(us.committed())
+                        .append(",\"unitsRolledBack\":").append(us.rolledBack())
+                        .append(",\"savepoints\":").append(us.savepoints());
+            }
+            default -> throw new IllegalArgumentException("Unknown command: " + args.get(0));
+        }
+        sb.append("}\n");
+    }
+
+    private void appendTasks(List<Task> tasks) {
+        appendTasks(tasks, null);
+    }
+
+    private void appendTasks(List<Task> tasks, Map<Integer, Integer> attachments) {
+        sb.append(",\"count\":").append(tasks.size()).append(",\"tasks\":[");
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(t.getId()).append(",\"name\":");
+            Json.quote(sb, t.getTask_name()).append(",\"status\":");
+            Json.quote(sb, t.getStatusName()).append(",\"category\":");
+            Json.quote(sb, t.getCategoryName()).append(",\"user\":");
+            Json.quote(sb, t.getUsername()).append(",\"created\":");
+            Json.quote(sb, t.getCreatedDate() == null ? null : t.getCreatedDate().toString()).append(",\"updated\":");
+            Json.quote(sb, t.getUpdatedDate() == null ? null : t.getUpdatedDate().toString()).append(",\"due\":");
+            Json.quote(sb, t.getDueDate() == null ? null : t.getDueDate().toString());
+            sb.append(",\"version\":").append(t.getVersion());
+            if (attachments != null) sb.append(",\"attachments\":").append(attachments.getOrDefault(t.getId(), 0));
+            sb.append('}');
+        }
+        sb.append(']');
+    }
+
+    private static void need(List<String> args, int count, String usage) {
+        if (args.size() < count) throw new IllegalArgumentException("Usage: " + usage);
+    }
+
+    private static int id(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    private static String[] split(String value) {
+        return value == null ? null : value.split(",");
+    }
+
+    private static TaskQuery.Sort sort(String value) {
+        if (value == null) return null;
+        return switch (value) {
+            case "manual" -> TaskQuery.Sort.MANUAL;
+            case "updated" -> TaskQuery.Sort.UPDATED_DESC;
+            case "created" -> TaskQuery.Sort.CREATED_DESC;
+            case "created_asc" -> TaskQuery.Sort.CREATED_ASC;
+            case "due" -> TaskQuery.Sort.DUE_ASC;
+            case "name" -> TaskQuery.Sort.NAME_ASC;
+            default -> throw new IllegalArgumentException("Unknown sort: " + value);
+        };
+    }
+
+    private static LocalDateTime dateTime(String value) {
+        if (value == null) return null;
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Not a date-time (yyyy-MM-ddTHH:mm): " + value);
+        }
+    }
+
+    // --key=value flags after the command; a bare --flag maps to "true"
+    private static Map<String, String> options(List<String> args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 1; i < args.size(); i++) {
+            String a = args.get(i);
+            if (!a.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + a);
+            int eq = a.indexOf('=');
+            if (eq < 0) opts.put(a.substring(2), "true");
+            else opts.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return opts;
+    }
+
+    // splits on whitespace; double quotes group words and \" escapes a quote inside them
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean inQuotes = false, hasToken = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (inQuotes) {
+                if (ch == '\\' && i + 1 < line.length()) cur.append(line.charAt(++i));
+                else if (ch == '"') inQuotes = false;
+                else cur.append(ch);
+            } else if (ch == '"') {
+                inQuotes = true;
+                hasToken = true;
+            } else if (Character.isWhitespace(ch)) {
+                if (hasToken) {
+                    tokens.add(cur.toString());
+                    cur.setLength(0);
+                    hasToken = false;
+                }
+            } else {
+                cur.append(ch);
+                hasToken = true;
+            }
+        }
+        if (inQuotes) throw new IllegalArgumentException("Unterminated quote");
+        if (hasToken) tokens.add(cur.toString());
+        return tokens;
+    }
+}
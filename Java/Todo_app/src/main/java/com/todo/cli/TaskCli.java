@@ -1,16 +1,60 @@
 package com.todo.cli;
 
+import com.todo.dao.TaskQuery;
+import com.todo.dao.TaskTreeDao;
+import com.todo.exception.DatabaseUnavailableException;
+import com.todo.model.Attachment;
+import com.todo.model.CycleTime;
+import com.todo.model.CycleTimeStats;
+import com.todo.model.StatusChange;
+import com.todo.model.TagFilter;
+import com.todo.model.Recurrence;
+import com.todo.model.SharePermission;
 import com.todo.model.Task;
+import com.todo.model.TaskListChanges;
+import com.todo.model.TaskNode;
+import com.todo.model.TaskShare;
+import com.todo.model.TaskTemplate;
 import com.todo.model.User;
+import com.todo.service.AdmissionControlledTaskService;
+import com.todo.service.AdmissionController;
+import com.todo.service.AttachmentService;
+import com.todo.service.RecurrenceService;
 import com.todo.service.TaskService;
-
+import com.todo.util.StartupTimer;
+
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class TaskCli {
-    private final TaskService taskService = new TaskService();
+    private static final String DUE_PATTERN = "yyyy-MM-dd HH:mm";
+    private static final DateTimeFormatter DUE_FORMAT = DateTimeFormatter.ofPattern(DUE_PATTERN);
+
+    private final TaskService taskService = new AdmissionControlledTaskService(AdmissionController.shared());
     private final Scanner sc = new Scanner(System.in);
+    private final TaskTableRenderer renderer = new TaskTableRenderer();
+    private final RecurrenceService recurrenceService = new RecurrenceService();
+    private final AttachmentService attachmentService = new AttachmentService();
+
+    // View My Tasks without archived rows, kept until one of the user's tasks changes
+    private int cachedUserId;
+    private long cachedStamp;
+    private List<Task> cachedTasks;
 
     public void start(User loggedInUser) {
         while (true) {
@@ -23,6 +67,16 @@ public class TaskCli {
             System.out.println("6) Delete Task");
             System.out.println("7) View My Tasks");
             System.out.println("8) Filter My Tasks (by status name/category name)");
+            System.out.println("9) Claim Next Task (shared queue)");
+            System.out.println("10) Task History & Cycle Time");
+            System.out.println("11) Set Due Date");
+            System.out.println("12) Recurring Tasks");
+            System.out.println("13) Share Task");
+            System.out.println("14) Tasks Visible To Me (mine + shared)");
+            System.out.println("15) Tags");
+            System.out.println("16) Notes & Attachments");
+            System.out.println("17) Reorder My Tasks");
+            System.out.println("18) Subtasks");
             System.out.println("0) Logout");
             System.out.print("Choose: ");
 
@@ -38,10 +92,22 @@ public class TaskCli {
                     case "6" -> deleteTask(loggedInUser);
                     case "7" -> viewMyTasks(loggedInUser);
                     case "8" -> filterMyTasks(loggedInUser);
+                    case "9" -> claimNextTask(loggedInUser);
+                    case "10" -> showHistory(loggedInUser);
+                    case "11" -> setDueDate(loggedInUser);
+                    case "12" -> recurringTasks(loggedInUser);
+                    case "13" -> shareTask(loggedInUser);
+                    case "14" -> viewVisibleTasks(loggedInUser);
+                    case "15" -> tags(loggedInUser);
+                    case "16" -> attachments(loggedInUser);
+                    case "17" -> reorderTasks(loggedInUser);
+                    case "18" -> subtasks(loggedInUser);
                     case "0" -> { return; }
-                    default -> System.out.println("Invalid option. Please choose 0-8.");
+                    default -> System.out.println("Invalid option. Please choose 0-18.");
 
                 }
+            } catch (DatabaseUnavailableException e) {
+                System.out.println("Database unavailable: " + e.getMessage());
             } catch (Exception e) {
                 System.out.println("Error: " + e.getMessage());
             }
@@ -52,19 +118,284 @@ public class TaskCli {
         System.out.print("Task name: ");
         String taskName = sc.nextLine().trim();
 
-        //show available categories
-        List<String> categories = taskService.getAllCategoryNames();
+        //show available categories, most recently used first
+        List<String> categories = taskService.suggestCategories("", 20);
         System.out.println("\nAvailable categories:");
         for (String c : categories) {
             System.out.println(" - " + c);
         }
 
+        System.out.print("\nCategory (name or its first letters): ");
+        String categoryName = completeCategory(sc.nextLine().trim());
+
+        System.out.print("Due date (" + DUE_PATTERN + ", blank for none): ");
+        LocalDateTime due = readDueDate();
+
+        taskService.addTask(taskName, u.getId(), categoryName, due);
+
+        System.out.println("Task added Successfully!!!.");
+    }
+
+    private void setDueDate(User u) throws Exception {
+        List<Task> tasks = taskService.getActiveTasks(u.getId());
+
+        Task selected = pickTaskFromList(u, tasks, "Set Due Date");
+        if (selected == null) return;
+
+        System.out.println("Current due date: " + (selected.getDueDate() == null ? "-" : selected.getDueDate().format(DUE_FORMAT)));
+        System.out.print("New due date (" + DUE_PATTERN + ", blank to clear): ");
+        LocalDateTime due = readDueDate();
+
+        taskService.setDueDate(selected.getId(), u.getId(), due);
+        System.out.println(due == null ? "✅ Due date cleared." : "✅ Due " + due.format(DUE_FORMAT));
+    }
+
+    private void shareTask(User u) throws Exception {
+        List<Task> tasks = taskService.viewMyTasks(u.getId());
+
+        Task selected = pickTaskFromList(u, tasks, "Share Task");
+        if (selected == null) return;
+
+        List<TaskShare> shares = taskService.getShares(selected.getId(), u.getId());
+        System.out.println("Shared with: " + (shares.isEmpty() ? "(nobody)" : shares.stream()
+                .map(sh -> sh.getUsername() + " (" + sh.getPermission().dbValue() + ")")
+                .collect(Collectors.joining(", "))));
+
+        System.out.print("Username: ");
+        String username = sc.nextLine().trim();
+        System.out.print("Permission (viewer/editor, or 'remove' to stop sharing): ");
+        String permission = sc.nextLine().trim().toLowerCase();
+
+        if (permission.equals("remove")) {
+            taskService.unshareTask(selected.getId(), u.getId(), username);
+            System.out.println("✅ No longer shared with " + username + ".");
+            return;
+        }
+        if (!permission.equals("viewer") && !permission.equals("editor")) {
+            System.out.println("Permission must be viewer, editor or remove.");
+            return;
+        }
+        taskService.shareTask(selected.getId(), u.getId(), username, SharePermission.fromDb(permission));
+        System.out.println("✅ Shared with " + username + " as " + permission + ".");
+    }
+
+    private void tags(User u) throws Exception {
+        System.out.print("\na) Tag a task  r) Remove tags  f) Find by tags  (Enter to go back): ");
+        String choice = sc.nextLine().trim().toLowerCase();
+
+        if (choice.equals("f")) {
+            System.out.print("Tags (e.g. 'urgent work|home -later'): ");
+            TagFilter filter = TagFilter.parse(sc.nextLine());
+            renderer.renderPaged("Tagged Tasks", taskService.findByTags(u.getId(), filter, null), sc);
+            return;
+        }
+        if (!choice.equals("a") && !choice.equals("r")) return;
+
+        Task selected = pickTaskFromList(u, taskService.getActiveTasks(u.getId()), choice.equals("a") ? "Tag Task" : "Remove Tags");
+        if (selected == null) return;
+
+        System.out.println("Current tags: " + String.join(", ", taskService.getTags(selected.getId(), u.getId())));
+        System.out.print("Tags, space separated: ");
+        List<String> tags = Arrays.stream(sc.nextLine().trim().split("\\s+")).filter(t -> !t.isEmpty()).toList();
+
+        if (choice.equals("a")) taskService.tagTask(selected.getId(), u.getId(), tags);
+        else taskService.untagTask(selected.getId(), u.getId(), tags);
+        System.out.println("✅ Tags now: " + String.join(", ", taskService.getTags(selected.getId(), u.getId())));
+    }
+
+    private void attachments(User u) throws Exception {
+        Task selected = pickTaskFromList(u, taskService.viewVisibleTasks(u.getId(), null), "Notes & Attachments");
+        if (selected == null) return;
+
+        List<Attachment> list = attachmentService.listAttachments(selected.getId(), u.getId());
+        System.out.println("\n--- Attachments: " + selected.getTask_name() + " ---");
+        if (list.isEmpty()) System.out.println("(No notes or files)");
+        for (Attachment a : list) {
+            System.out.println("[" + a.getId() + "] "
+                    + (a.isNote() ? "note" : a.getFileName())
+                    + " | " + a.getSizeBytes() + " bytes"
+                    + " | " + a.getCreatedDate().format(DUE_FORMAT));
+        }
+
+        System.out.print("\nn) Add note  f) Attach file  r) Read note  d) Download  x) Delete  (Enter to go back): ");
+        String choice = sc.nextLine().trim().toLowerCase();
+        switch (choice) {
+            case "n" -> {
+                System.out.print("Note: ");
+                attachmentService.addNote(selected.getId(), u.getId(), sc.nextLine());
+                System.out.println("✅ Note added.");
+            }
+            case "f" -> {
+                System.out.print("File path: ");
+                Attachment a = attachmentService.attachFile(selected.getId(), u.getId(), Paths.get(sc.nextLine().trim()));
+                System.out.println("✅ Attached " + a.getFileName() + " (" + a.getSizeBytes() + " bytes).");
+            }
+            case "r", "d", "x" -> {
+                System.out.print("Attachment id: ");
+                int id;
+                try {
+                    id = Integer.parseInt(sc.nextLine().trim());
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid input. Please enter a number.");
+                    return;
+                }
+                if (choice.equals("r")) {
+                    System.out.println(attachmentService.readNote(id, u.getId()));
+                } else if (choice.equals("d")) {
+                    System.out.print("Save to: ");
+                    long bytes = attachmentService.download(id, u.getId(), Paths.get(sc.nextLine().trim()));
+                    System.out.println("✅ Saved " + bytes + " bytes.");
+                } else {
+                    attachmentService.deleteAttachment(id, u.getId());
+                    System.out.println("✅ Deleted.");
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private void subtasks(User u) throws Exception {
+        List<Task> mine = taskService.getActiveTasks(u.getId());
+        Task selected = pickTaskFromList(u, mine, "Subtasks");
+        if (selected == null) return;
+
+        List<Task> path = taskService.getAncestors(selected.getId(), u.getId());
+        if (!path.isEmpty())
+            System.out.println("\nPath: " + path.stream().map(Task::getTask_name).collect(Collectors.joining(" > ")));
+        TaskTreeDao.Progress progress = taskService.getSubtaskProgress(selected.getId(), u.getId());
+        System.out.println("\n--- " + selected.getTask_name() + " (" + progress.completed() + "/" + progress.total()
+                + " subtasks completed) ---");
+        for (TaskNode n : taskService.getSubtree(selected.getId(), u.getId())) {
+            if (n.getDepth() == 0) continue;
+            System.out.println("  ".repeat(n.getDepth()) + "[" + n.getTask().getId() + "] "
+                    + n.getTask().getTask_name() + " | " + n.getTask().getStatusName());
+        }
+
+        System.out.print("\na) Add subtask  m) Move under another task  t) Make top-level  (Enter to go back): ");
+        switch (sc.nextLine().trim().toLowerCase()) {
+            case "a" -> {
+                System.out.print("Subtask name: ");
+                Task t = taskService.addSubtask(selected.getId(), sc.nextLine(), u.getId());
+                System.out.println("✅ Added subtask: " + t.getTask_name());
+            }
+            case "m" -> {
+                List<Task> others = mine.stream().filter(t -> t.getId() != selected.getId()).toList();
+                Task parent = pickTaskFromList(u, others, "New Parent");
+                if (parent == null) return;
+                taskService.moveSubtree(selected.getId(), parent.getId(), u.getId());
+                System.out.println("✅ Moved '" + selected.getTask_name() + "' under '" + parent.getTask_name() + "'.");
+            }
+            case "t" -> {
+                taskService.moveSubtree(selected.getId(), 0, u.getId());
+                System.out.println("✅ '" + selected.getTask_name() + "' is now a top-level task.");
+            }
+            default -> { }
+        }
+    }
+
+    private void recurringTasks(User u) throws Exception {
+        List<TaskTemplate> templates = recurrenceService.listTemplates(u.getId());
+        System.out.println("\n--- Recurring Tasks ---");
+        if (templates.isEmpty()) System.out.println("(No recurring tasks)");
+        for (TaskTemplate t : templates) {
+            System.out.println("[" + t.getId() + "] " + t.getTaskName()
+                    + " | " + describe(t)
+                    + " | Category=" + t.getCategoryName()
+                    + (t.isActive() ? "" : " | stopped"));
+        }
+
+        System.out.print("\na) Add  s) Stop  (Enter to go back): ");
+        String choice = sc.nextLine().trim().toLowerCase();
+        if (choice.equals("a")) addRecurringTask(u);
+        else if (choice.equals("s")) {
+            System.out.print("Template id to stop: ");
+            int id;
+            try {
+                id = Integer.parseInt(sc.nextLine().trim());
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a number.");
+                return;
+            }
+            recurrenceService.stopTemplate(id, u.getId());
+            System.out.println("✅ Stopped. Tasks already created are kept.");
+        }
+    }
+
+    private void addRecurringTask(User u) throws Exception {
+        System.out.print("Task name: ");
+        String taskName = sc.nextLine().trim();
+
+        System.out.println("\nAvailable categories:");
+        for (String c : taskService.getAllCategoryNames()) System.out.println(" - " + c);
         System.out.print("\nCategory name (type exactly as above): ");
         String categoryName = sc.nextLine().trim();
 
-        taskService.addTask(taskName, u.getId(), categoryName);
+        System.out.print("Repeat (daily/weekly/monthly): ");
+        Recurrence recurrence;
+        try {
+            recurrence = Recurrence.valueOf(sc.nextLine().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Repeat must be daily, weekly or monthly.");
+        }
+
+        Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+        Integer dayOfMonth = null;
+        if (recurrence == Recurrence.WEEKLY) {
+            System.out.print("Weekdays (e.g. MON,WED,FRI): ");
+            for (String d : sc.nextLine().split(",")) {
+                if (d.isBlank()) continue;
+                weekdays.add(weekday(d.trim()));
+            }
+        } else if (recurrence == Recurrence.MONTHLY) {
+            System.out.print("Day of month (1-31): ");
+            try {
+                dayOfMonth = Integer.parseInt(sc.nextLine().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Day of month must be a number.");
+            }
+        }
 
-        System.out.println("Task added Successfully!!!.");
+        System.out.print("Due time (HH:mm, blank for none): ");
+        String time = sc.nextLine().trim();
+        LocalTime dueTime;
+        try {
+            dueTime = time.isEmpty() ? null : LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Due time must look like HH:mm.");
+        }
+
+        recurrenceService.createTemplate(u.getId(), taskName, categoryName, recurrence,
+                weekdays, dayOfMonth, dueTime, null, null);
+        int created = recurrenceService.materialize();
+        System.out.println("✅ Recurring task saved. " + created + " upcoming task(s) created.");
+    }
+
+    private static DayOfWeek weekday(String s) {
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if (s.length() >= 2 && d.name().startsWith(s.toUpperCase())) return d;
+        }
+        throw new IllegalArgumentException("Unknown weekday: " + s);
+    }
+
+    private static String describe(TaskTemplate t) {
+        String rule = switch (t.getRecurrence()) {
+            case DAILY -> "daily";
+            case WEEKLY -> "weekly on " + t.getWeekdays().stream()
+                    .map(d -> d.name().substring(0, 3)).collect(Collectors.joining(","));
+            case MONTHLY -> "monthly on day " + t.getDayOfMonth();
+        };
+        return t.getDueTime() == null ? rule : rule + " at " + t.getDueTime();
+    }
+
+    // blank means no due date
+    private LocalDateTime readDueDate() {
+        String input = sc.nextLine().trim();
+        if (input.isEmpty()) return null;
+        try {
+            return LocalDateTime.parse(input, DUE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Due date must look like " + DUE_PATTERN + ".");
+        }
     }
 
     private void editTask(User u) throws Exception {
@@ -114,7 +445,7 @@ public class TaskCli {
         }
 
         // 4) Update
-        taskService.editTask(selected.getId(),  newName);
+        taskService.editTask(selected.getId(), u.getId(), newName, selected.getVersion());
         System.out.println("Task updated Successfully!!!.");
     }
 
@@ -154,7 +485,7 @@ public class TaskCli {
         Task selected = tasks.get(pick - 1);
 
         // Start task = set status to in_progress (no userId input needed)
-        taskService.startTask(selected.getId(), u.getId());
+        taskService.startTask(selected.getId(), u.getId(), selected.getVersion());
 
         System.out.println("✅ Started: " + selected.getTask_name() + " (Status set to in_progress)");
     }
@@ -162,10 +493,10 @@ public class TaskCli {
     private void markCompleted(User u) throws Exception {
         List<Task> tasks = taskService.getActiveTasks(u.getId());
 
-        Task selected = pickTaskFromList(tasks, "Mark Completed");
+        Task selected = pickTaskFromList(u, tasks, "Mark Completed");
         if (selected == null) return;
 
-        taskService.markCompleted(selected.getId(), u.getId());
+        taskService.markCompleted(selected.getId(), u.getId(), selected.getVersion());
         System.out.println("✅ Marked completed: " + selected.getTask_name());
     }
 
@@ -173,17 +504,17 @@ public class TaskCli {
     private void markBlocked(User u) throws Exception {
         List<Task> tasks = taskService.getActiveTasks(u.getId());
 
-        Task selected = pickTaskFromList(tasks, "Mark Blocked");
+        Task selected = pickTaskFromList(u, tasks, "Mark Blocked");
         if (selected == null) return;
 
-        taskService.markBlocked(selected.getId(), u.getId());
+        taskService.markBlocked(selected.getId(), u.getId(), selected.getVersion());
         System.out.println("✅ Marked blocked: " + selected.getTask_name());
     }
 
     private void deleteTask(User u) throws Exception {
         List<Task> tasks = taskService.getActiveTasks(u.getId());
 
-        Task selected = pickTaskFromList(tasks, "Delete Task");
+        Task selected = pickTaskFromList(u, tasks, "Delete Task");
         if (selected == null) return;
 
         System.out.print("Are you sure you want to delete '" + selected.getTask_name() + "'? (y/n): ");
@@ -193,65 +524,147 @@ public class TaskCli {
             return;
         }
 
-        taskService.deleteTask(selected.getId(), u.getId());
+        taskService.deleteTask(selected.getId(), u.getId(), selected.getVersion());
         System.out.println("✅ Task deleted (soft delete): " + selected.getTask_name());
     }
 
 
     private void viewMyTasks(User u) throws Exception {
-        List<Task> tasks = taskService.viewMyTasks(u.getId());
-
-        System.out.println("\n--- My Tasks ---");
-        if (tasks.isEmpty()) {
-            System.out.println("(No tasks found)");
-            return;
+        System.out.print("Include archived tasks? (y/N): ");
+        boolean includeArchived = sc.nextLine().trim().equalsIgnoreCase("y");
+
+        List<Task> tasks;
+        if (includeArchived) {
+            tasks = taskService.viewMyTasks(u.getId(), true);
+        } else {
+            // -1 matches no stamp, so the first view (or another user's) always loads the list
+            long known = cachedTasks != null && cachedUserId == u.getId() ? cachedStamp : -1;
+            TaskListChanges changes = taskService.listIfChanged(u.getId(), known);
+            if (changes.isChanged()) {
+                cachedUserId = u.getId();
+                cachedStamp = changes.getStamp();
+                cachedTasks = changes.getTasks();
+            }
+            tasks = cachedTasks;
         }
+        StartupTimer.mark("first list");
+        renderer.renderPaged("My Tasks", tasks, sc);
+    }
 
-        for (Task t : tasks) {
-            System.out.println(
-                    "[" + t.getId() + "] "
-                            + t.getUsername() + " | "
-                            + t.getTask_name() + " | "
-                            + "Status=" + t.getStatusName() + " | "
-                            + "Category=" + t.getCategoryName() + " | "
-                            + "Created=" + t.getCreatedDate() + " | "
-                            + "Updated=" + t.getUpdatedDate()
-            );
-        }
+    // the order shown by View My Tasks
+    private void reorderTasks(User u) throws Exception {
+        List<Task> tasks = taskService.getActiveTasks(u.getId());
+
+        Task moving = pickTaskFromList(u, tasks, "Move Task");
+        if (moving == null) return;
+
+        System.out.print("b) Move before  a) Move after  (Enter to go back): ");
+        String where = sc.nextLine().trim().toLowerCase();
+        if (!where.equals("b") && !where.equals("a")) return;
+
+        List<Task> others = tasks.stream().filter(t -> t.getId() != moving.getId()).toList();
+        Task anchor = pickTaskFromList(u, others, where.equals("b") ? "Move Before" : "Move After");
+        if (anchor == null) return;
+
+        if (where.equals("b")) taskService.moveBefore(moving.getId(), anchor.getId(), u.getId());
+        else taskService.moveAfter(moving.getId(), anchor.getId(), u.getId());
+        System.out.println("✅ Moved '" + moving.getTask_name() + "' " + (where.equals("b") ? "before" : "after")
+                + " '" + anchor.getTask_name() + "'.");
+    }
+
+    private void viewVisibleTasks(User u) throws Exception {
+        renderer.renderPaged("Tasks Visible To Me", taskService.viewVisibleTasks(u.getId(), null), sc);
     }
 
     private void filterMyTasks(User u) throws Exception {
-        System.out.print("status name (e.g., in_progress/blocked) (press Enter to skip): ");
-        String statusName = sc.nextLine().trim();
-        if (statusName.isEmpty()) statusName = null;
+        System.out.print("status names, comma separated (e.g., in_progress,blocked) (press Enter to skip): ");
+        String[] statusNames = sc.nextLine().split(",");
 
-        System.out.print("category name (e.g., work/leisure) (press Enter to skip): ");
-        String categoryName = sc.nextLine().trim();
-        if (categoryName.isEmpty()) categoryName = null;
+        System.out.print("category names, comma separated (e.g., work,leisure) (press Enter to skip): ");
+        String[] categoryNames = sc.nextLine().split(",");
 
-        List<Task> tasks = taskService.filterMyTasksByNames(u.getId(), statusName, categoryName);
+        System.out.print("task name starts with (press Enter to skip): ");
+        String prefix = sc.nextLine().trim();
 
-        System.out.println("\n--- Filtered Tasks ---");
-        if (tasks.isEmpty()) {
-            System.out.println("(No tasks found)");
+        TaskQuery query = TaskQuery.forUser(u.getId())
+                .statuses(statusNames)
+                .categories(categoryNames)
+                .namePrefix(prefix);
+        List<Task> tasks = taskService.findMyTasks(query);
+        renderer.renderPaged("Filtered Tasks", tasks, sc);
+    }
+
+    private void claimNextTask(User u) throws Exception {
+        List<String> categories = taskService.getAllCategoryNames();
+        System.out.println("\nQueues: " + String.join(", ", categories));
+        System.out.print("Claim from category: ");
+        String categoryName = sc.nextLine().trim();
+
+        Optional<Task> claimed = taskService.claimNextTask(categoryName, u.getId());
+        if (claimed.isEmpty()) {
+            System.out.println("(No ready tasks in '" + categoryName + "' right now)");
             return;
         }
 
-        for (Task t : tasks) {
-            System.out.println(
-                    "[" + t.getId() + "] "
-                            + t.getUsername() + " | "
-                            + t.getTask_name() + " | "
-                            + "Status=" + t.getStatusName() + " | "
-                            + "Category=" + t.getCategoryName() + " | "
-                            + "Created=" + t.getCreatedDate() + " | "
-                            + "Updated=" + t.getUpdatedDate()
-            );
+        Task t = claimed.get();
+        System.out.println("✅ Claimed: [" + t.getId() + "] " + t.getTask_name() + " (Status set to in_progress)");
+    }
+
+    private void showHistory(User u) throws Exception {
+        List<Task> tasks = taskService.viewVisibleTasks(u.getId(), null);
+
+        Task selected = pickTaskFromList(u, tasks, "Task History");
+        if (selected == null) return;
+
+        System.out.println("\n--- History: " + selected.getTask_name() + " ---");
+        for (StatusChange ch : taskService.getStatusHistory(selected.getId(), u.getId())) {
+            System.out.println(ch.getChangedAt() + "  "
+                    + (ch.getFromStatus() == null ? "(created)" : ch.getFromStatus()) + " -> " + ch.getToStatus());
         }
+
+        CycleTime ct = taskService.getCycleTime(selected.getId(), u.getId());
+        System.out.println("Lead time: " + formatDuration(ct.getLeadTime())
+                + " | Cycle time: " + formatDuration(ct.getCycleTime()));
+
+        LocalDateTime now = LocalDateTime.now();
+        CycleTimeStats stats = taskService.getCycleTimeStatsForUser(u.getId(), now.minusDays(30), now);
+        System.out.println("\nLast 30 days: " + stats.getCompletedTasks() + " completed"
+                + " | avg lead " + formatDuration(stats.getAvgLeadTime())
+                + " | median lead " + formatDuration(stats.getMedianLeadTime())
+                + " | avg cycle " + formatDuration(stats.getAvgCycleTime())
+                + " | median cycle " + formatDuration(stats.getMedianCycleTime()));
+    }
+
+    private static String formatDuration(Duration d) {
+        if (d == null) return "-";
+        long minutes = d.toMinutes();
+        if (minutes < 60) return minutes + "m";
+        if (minutes < 24 * 60) return (minutes / 60) + "h " + (minutes % 60) + "m";
+        return d.toDays() + "d " + d.toHoursPart() + "h";
     }
 
+    // a unique prefix completes to that category; several matches are offered as a numbered choice
+    private String completeCategory(String input) throws Exception {
+        if (input.isEmpty()) return input;
+        List<String> matches = taskService.suggestCategories(input, 5);
+        if (matches.isEmpty() || matches.contains(input)) return input;
+        if (matches.size() == 1) {
+            System.out.println("-> " + matches.get(0));
+            return matches.get(0);
+        }
+
+        for (int i = 0; i < matches.size(); i++) System.out.println((i + 1) + ") " + matches.get(i));
+        System.out.print("Choose category number (1-" + matches.size() + "): ");
+        try {
+            int pick = Integer.parseInt(sc.nextLine().trim());
+            if (pick >= 1 && pick <= matches.size()) return matches.get(pick - 1);
+        } catch (NumberFormatException e) {
+            // fall through to the text as typed
+        }
+        return input;
+    }
 
-    private Task pickTaskFromList(List<Task> tasks, String title) {
+    private Task pickTaskFromList(User u, List<Task> tasks, String title) throws Exception {
         if (tasks == null || tasks.isEmpty()) {
             System.out.println("(No tasks found)");
             return null;
@@ -265,15 +678,14 @@ public class TaskCli {
                     + " | Category=" + t.getCategoryName());
         }
 
-        System.out.print("\nChoose task number (1-" + tasks.size() + "): ");
+        System.out.print("\nChoose task number (1-" + tasks.size() + ") or type the start of its name: ");
         String input = sc.nextLine().trim();
 
         int pick;
         try {
             pick = Integer.parseInt(input);
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
-            return null;
+            return pickTaskByPrefix(u, tasks, input);
         }
 
         if (pick < 1 || pick > tasks.size()) {
@@ -283,4 +695,31 @@ public class TaskCli {
 
         return tasks.get(pick - 1);
     }
-}
\ No newline at end of file
+
+    // narrows the shown list to the tasks whose name starts with the typed text, most recently updated first.
+    // the list is already in memory and may hold shared tasks, so it is filtered directly instead of asking the
+    // per-user autocomplete index
+    private Task pickTaskByPrefix(User u, List<Task> tasks, String prefix) throws Exception {
+        if (prefix.isEmpty()) {
+            System.out.println("Invalid input. Please enter a number or a name.");
+            return null;
+        }
+
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        List<Task> matches = new ArrayList<>();
+        for (Task t : tasks) {
+            if (t.getTask_name() != null && t.getTask_name().toLowerCase(Locale.ROOT).startsWith(lower)) matches.add(t);
+        }
+        matches.sort(Comparator.comparingLong(Task::getUpdatedMicros).reversed());
+
+        if (matches.isEmpty()) {
+            System.out.println("No task here starts with '" + prefix + "'.");
+            return null;
+        }
+        if (matches.size() == 1) {
+            System.out.println("-> " + matches.get(0).getTask_name());
+            return matches.get(0);
+        }
+        return pickTaskFromList(u, matches, "Tasks starting with '" + prefix + "'");
+    }
+}
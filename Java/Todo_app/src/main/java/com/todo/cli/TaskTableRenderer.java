@@ -0,0 +1,202 @@
+package com.todo.cli;
+
+import com.todo.model.Task;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Scanner;
+
+// renders task listings as aligned columns through one buffered writer.
+// column widths are measured once per listing, rows are formatted into a reused StringBuilder,
+// and in paged mode only the rows of the visible page are ever formatted.
+public class TaskTableRenderer {
+
+    private static final String[] HEADERS = {"ID", "User", "Task", "Status", "Category", "Created", "Updated", "Due"};
+    private static final int MAX_NAME_WIDTH = 60;
+    private static final int DATE_WIDTH = 19; // yyyy-MM-dd HH:mm:ss
+
+    private final Writer out;
+    private final int pageSize;
+    private final StringBuilder line = new StringBuilder(256);
+    private final int[] widths = new int[HEADERS.length];
+    private char[] chars = new char[256];
+
+    public TaskTableRenderer() {
+        this(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16),
+                Integer.getInteger("TODO_PAGE_SIZE", 20));
+    }
+
+    public TaskTableRenderer(Writer out, int pageSize) {
+        this.out = out;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    // writes every row, flushing once at the end (scripts, redirects)
+    public void renderAll(String title, List<Task> tasks) throws IOException {
+        writeTitle(title, tasks);
+        if (!tasks.isEmpty()) {
+            measure(tasks);
+            writeHeader();
+            for (Task t : tasks) writeRow(t);
+        }
+        out.flush();
+    }
+
+    // shows one page at a time and reads n/p/q from the caller's scanner
+    public void renderPaged(String title, List<Task> tasks, Scanner sc) throws IOException {
+        if (tasks.size() <= pageSize) {
+            renderAll(title, tasks);
+            return;
+        }
+
+        measure(tasks);
+        int pages = (tasks.size() + pageSize - 1) / pageSize;
+        int page = 0;
+        while (true) {
+            writeTitle(title, tasks);
+            writeHeader();
+            int from = page * pageSize;
+            int to = Math.min(from + pageSize, tasks.size());
+            for (int i = from; i < to; i++) writeRow(tasks.get(i));
+
+            out.write("-- page " + (page + 1) + "/" + pages + " (rows " + (from + 1) + "-" + to + " of "
+                    + tasks.size() + ")  [n]ext [p]rev [q]uit: ");
+            out.flush();
+
+            if (!sc.hasNextLine()) return;
+            String cmd = sc.nextLine().trim().toLowerCase();
+            switch (cmd) {
+                case "", "n" -> {
+                    if (page + 1 < pages) page++;
+                    else return;
+                }
+                case "p" -> page = Math.max(0, page - 1);
+                case "q" -> { return; }
+                default -> { }
+            }
+        }
+    }
+
+    private void writeTitle(String title, List<Task> tasks) throws IOException {
+        out.write("\n--- ");
+        out.write(title);
+        out.write(" ---\n");
+        if (tasks.isEmpty()) out.write("(No tasks found)\n");
+    }
+
+    private void measure(List<Task> tasks) {
+        for (int i = 0; i < HEADERS.length; i++) widths[i] = HEADERS[i].length();
+        widths[5] = Math.max(widths[5], DATE_WIDTH);
+        widths[6] = Math.max(widths[6], DATE_WIDTH);
+        widths[7] = Math.max(widths[7], DATE_WIDTH);
+
+        for (Task t : tasks) {
+            widths[0] = Math.max(widths[0], digits(t.getId()));
+            widths[1] = Math.max(widths[1], length(t.getUsername()));
+            widths[2] = Math.max(widths[2], Math.min(MAX_NAME_WIDTH, length(t.getTask_name())));
+            widths[3] = Math.max(widths[3], length(t.getStatusName()));
+            widths[4] = Math.max(widths[4], length(t.getCategoryName()));
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < HEADERS.length; i++) cell(HEADERS[i], i);
+        endLine();
+
+        line.setLength(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            if (i > 0) line.append("-+-");
+            for (int k = 0; k < widths[i]; k++) line.append('-');
+        }
+        line.append('\n');
+        flushLine();
+    }
+
+    private void writeRow(Task t) throws IOException {
+        line.setLength(0);
+
+        int idStart = line.length();
+        line.append(t.getId());
+        pad(widths[0] - (line.length() - idStart));
+        line.append(" | ");
+
+        cell(t.getUsername(), 1);
+        cell(t.getTask_name(), 2);
+        cell(t.getStatusName(), 3);
+        cell(t.getCategoryName(), 4);
+        date(t.getCreatedDate(), 5);
+        date(t.getUpdatedDate(), 6);
+        date(t.getDueDate(), 7);
+        endLine();
+    }
+
+    private void cell(String value, int col) {
+        String v = value == null ? "" : value;
+        int w = widths[col];
+        if (v.length() > w) {
+            line.append(v, 0, w - 3).append("...");
+        } else {
+            line.append(v);
+            pad(w - v.length());
+        }
+        if (col < HEADERS.length - 1) line.append(" | ");
+    }
+
+    // appends yyyy-MM-dd HH:mm:ss without going through DateTimeFormatter
+    private void date(LocalDateTime d, int col) {
+        if (d == null) {
+            pad(widths[col]);
+        } else {
+            line.append(d.getYear()).append('-');
+            two(d.getMonthValue()).append('-');
+            two(d.getDayOfMonth()).append(' ');
+            two(d.getHour()).append(':');
+            two(d.getMinute()).append(':');
+            two(d.getSecond());
+            pad(widths[col] - DATE_WIDTH);
+        }
+        if (col < HEADERS.length - 1) line.append(" | ");
+    }
+
+    private StringBuilder two(int v) {
+        if (v < 10) line.append('0');
+        return line.append(v);
+    }
+
+    private void pad(int n) {
+        for (int i = 0; i < n; i++) line.append(' ');
+    }
+
+    private void endLine() throws IOException {
+        // drop trailing padding of the last column
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ' ') end--;
+        line.setLength(end);
+        line.append('\n');
+        flushLine();
+    }
+
+    // copies the line into a reused char buffer so no String is created per row
+    private void flushLine() throws IOException {
+        int len = line.length();
+        if (chars.length < len) chars = new char[Math.max(len, chars.length * 2)];
+        line.getChars(0, len, chars, 0);
+        out.write(chars, 0, len);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    private static int digits(int v) {
+        int n = v < 0 ? 2 : 1;
+        for (long x = Math.abs((long) v); x >= 10; x /= 10) n++;
+        return n;
+    }
+}
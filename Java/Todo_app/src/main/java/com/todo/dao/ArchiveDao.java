@@ -0,0 +1,194 @@
+package com.todo.dao;
+
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// moves finished tasks out of the hot tasks table into tasks_archive, which is range-partitioned by month of updated_date
+public class ArchiveDao {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("tasks_archive_\\d{4}_\\d{2}");
+
+    // tags, shares, attachments and subtask links reference tasks ON DELETE CASCADE, so moving a task that has
+    // any of them would silently drop those rows; such tasks stay in the hot table until they are unlinked
+    private static final String UNLINKED = """
+                  AND NOT EXISTS (SELECT 1 FROM task_tags x WHERE x.task_id = t.id)
+                  AND NOT EXISTS (SELECT 1 FROM task_shares x WHERE x.task_id = t.id)
+                  AND NOT EXISTS (SELECT 1 FROM task_attachments x WHERE x.task_id = t.id)
+                  AND NOT EXISTS (SELECT 1 FROM task_closure x WHERE x.ancestor_id = t.id)
+                  AND NOT EXISTS (SELECT 1 FROM task_closure x WHERE x.descendant_id = t.id)
+            """;
+
+    // finished tasks past the cutoff that nothing else points at
+    private static final String ARCHIVABLE = """
+                t.status_id IN (SELECT id FROM status WHERE status_name IN ('completed', 'deleted'))
+                  AND t.updated_date < ?
+            """ + UNLINKED;
+
+    // makes sure there is an attached monthly partition for every month that the next run can move rows into.
+    // a month whose partition was detached cannot get a new one under the same name; those months are returned
+    // and lockBatch leaves their tasks where they are
+    public List<LocalDate> ensurePartitions(LocalDateTime cutoff) throws Exception {
+        String sql = "SELECT MIN(t.updated_date) FROM tasks t WHERE " + ARCHIVABLE;
+
+        try (Connection c = DB.getConnection()) {
+            LocalDate first;
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    Timestamp min = rs.getTimestamp(1);
+                    if (min == null) return List.of();
+                    first = min.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+                }
+            }
+
+            Set<String> attached = new HashSet<>(listPartitions(c));
+            Set<String> existing = listArchiveTables(c);
+            List<LocalDate> detached = new ArrayList<>();
+            LocalDate last = cutoff.toLocalDate().withDayOfMonth(1);
+            try (Statement st = c.createStatement()) {
+                for (LocalDate month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+                    String name = partitionName(month);
+                    if (attached.contains(name)) continue;
+                    if (existing.contains(name)) {
+                        detached.add(month);
+                        continue;
+                    }
+                    // names and bounds are generated here, never user input
+                    st.execute("CREATE TABLE " + name + " PARTITION OF tasks_archive " +
+                            "FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+                }
+            }
+            return detached;
+        }
+    }
+
+    // locks the next batch of archivable tasks, skipping the given months. the caller moves them with moveBatch
+    // in the same transaction: while the rows are locked no new tag, share, attachment or subtask can point at them
+    public List<Integer> lockBatch(LocalDateTime cutoff, int batchSize, List<LocalDate> skippedMonths) throws Exception {
+        String sql = "SELECT t.id FROM tasks t WHERE " + ARCHIVABLE + """
+                  AND date_trunc('month', t.updated_date) <> ALL(?)
+                ORDER BY t.id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+            ps.setArray(2, c.createArrayOf("timestamp",
+                    skippedMonths.stream().map(m -> Timestamp.valueOf(m.atStartOfDay())).toArray()));
+            ps.setInt(3, batchSize);
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+            return ids;
+        }
+    }
+
+    // moves locked tasks into the archive. the dependent-row checks run again on this statement's snapshot, which
+    // sees anything that was linked between the snapshot of lockBatch and the lock being taken
+    public int moveBatch(List<Integer> taskIds) throws Exception {
+        if (taskIds.isEmpty()) return 0;
+        String sql = """
+            WITH moved AS (
+                DELETE FROM tasks t
+                WHERE t.id = ANY(?)
+            """ + UNLINKED + """
+                RETURNING t.id, t.task_name, t.status_id, t.user_id, t.category_id,
+                          t.created_date, t.updated_date, t.version, t.due_date,
+                          t.template_id, t.occurrence_date
+            )
+            INSERT INTO tasks_archive (id, task_name, status_id, user_id, category_id,
+                                       created_date, updated_date, version, due_date,
+                                       template_id, occurrence_date, archived_date)
+            SELECT id, task_name, status_id, user_id, category_id,
+                   created_date, updated_date, version, due_date,
+                   template_id, occurrence_date, NOW()
+            FROM moved
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("integer", taskIds.toArray()));
+            return ps.executeUpdate();
+        }
+    }
+
+    public List<String> listPartitions() throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection()) {
+                return listPartitions(c);
+            }
+        });
+    }
+
+    public void detachPartition(String partitionName) throws Exception {
+        checkName(partitionName);
+        try (Connection c = DB.getConnection();
+             Statement st = c.createStatement()) {
+            st.execute("ALTER TABLE tasks_archive DETACH PARTITION " + partitionName);
+        }
+    }
+
+    // drops the month's rows for good; works on attached and detached partitions
+    public void dropPartition(String partitionName) throws Exception {
+        checkName(partitionName);
+        try (Connection c = DB.getConnection();
+             Statement st = c.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + partitionName);
+        }
+    }
+
+    public static String partitionName(LocalDate month) {
+        return String.format("tasks_archive_%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private List<String> listPartitions(Connection c) throws SQLException {
+        String sql = """
+            SELECT child.relname
+            FROM pg_inherits i
+            JOIN pg_class child ON child.oid = i.inhrelid
+            WHERE i.inhparent = 'tasks_archive'::regclass
+            ORDER BY child.relname
+        """;
+
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) names.add(rs.getString(1));
+        }
+        return names;
+    }
+
+    // every tasks_archive_YYYY_MM table on the search path, attached or not
+    private Set<String> listArchiveTables(Connection c) throws SQLException {
+        String sql = """
+            SELECT relname
+            FROM pg_class
+            WHERE relname LIKE 'tasks\\_archive\\_%' AND relkind IN ('r', 'p') AND pg_table_is_visible(oid)
+        """;
+
+        Set<String> names = new HashSet<>();
+        try (PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) names.add(rs.getString(1));
+        }
+        return names;
+    }
+
+    private void checkName(String partitionName) {
+        if (partitionName == null || !PARTITION_NAME.matcher(partitionName).matches())
+            throw new IllegalArgumentException("Not an archive partition: " + partitionName);
+    }
+}
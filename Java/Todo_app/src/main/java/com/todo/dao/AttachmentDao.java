@@ -0,0 +1,152 @@
+package com.todo.dao;
+
+import com.todo.model.Attachment;
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// task_attachments rows: metadata only, the content is in the blob store. task listings never join this table;
+// callers that want to show attachments ask for countByTasks over the page they already have
+public class AttachmentDao {
+    private static final int SCAN_FETCH_SIZE = Integer.getInteger("TODO_SCAN_FETCH_SIZE", 1000);
+    private static final String COLUMNS = "a.id, a.task_id, a.user_id, a.kind, a.file_name, a.content_hash, a.size_bytes, a.created_date";
+
+    // null when the actor may not edit the task; the permission check is part of the insert
+    public Attachment insert(int taskId, int actorUserId, String kind, String fileName, String contentHash,
+                             long sizeBytes) throws Exception {
+        String sql = "INSERT INTO task_attachments AS a (task_id, user_id, kind, file_name, content_hash, size_bytes) " +
+                "SELECT t.id, ?, ?, ?, ?, ? FROM tasks t WHERE t.id = ? AND " + TaskDao.Guard.CAN_EDIT.sql + " " +
+                "RETURNING " + COLUMNS;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, actorUserId);
+            ps.setString(2, kind);
+            ps.setString(3, fileName);
+            ps.setString(4, contentHash);
+            ps.setLong(5, sizeBytes);
+            ps.setInt(6, taskId);
+            TaskDao.Guard.CAN_EDIT.bind(ps, 7, actorUserId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        }
+    }
+
+    // oldest first; empty when the viewer cannot see the task
+    public List<Attachment> listByTask(int taskId, int viewerUserId) throws Exception {
+        String sql = "SELECT " + COLUMNS + " FROM task_attachments a JOIN tasks t ON t.id = a.task_id " +
+                "WHERE a.task_id = ? AND " + TaskDao.Guard.CAN_VIEW.sql + " ORDER BY a.created_date, a.id";
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, taskId);
+                TaskDao.Guard.CAN_VIEW.bind(ps, 2, viewerUserId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Attachment> out = new ArrayList<>();
+                    while (rs.next()) out.add(map(rs));
+                    return out;
+                }
+            }
+        });
+    }
+
+    public Attachment find(int attachmentId, int viewerUserId) throws Exception {
+        String sql = "SELECT " + COLUMNS + " FROM task_attachments a JOIN tasks t ON t.id = a.task_id " +
+                "WHERE a.id = ? AND " + TaskDao.Guard.CAN_VIEW.sql;
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, attachmentId);
+                TaskDao.Guard.CAN_VIEW.bind(ps, 2, viewerUserId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? map(rs) : null;
+                }
+            }
+        });
+    }
+
+    // the uploader or the task owner may delete; the blob itself is left for garbage collection
+    public boolean delete(int attachmentId, int actorUserId) throws Exception {
+        String sql = """
+            DELETE FROM task_attachments a
+            USING tasks t
+            WHERE a.task_id = t.id AND a.id = ? AND (a.user_id = ? OR t.user_id = ?)
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, attachmentId);
+            ps.setInt(2, actorUserId);
+            ps.setInt(3, actorUserId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    // attachment count per task id, for the ids given; tasks without attachments, or that the viewer cannot see,
+    // are absent
+    public Map<Integer, Integer> countByTasks(int[] taskIds, int viewerUserId) throws Exception {
+        Map<Integer, Integer> out = new HashMap<>();
+        if (taskIds.length == 0) return out;
+        String sql = "SELECT a.task_id, COUNT(*) FROM task_attachments a JOIN tasks t ON t.id = a.task_id " +
+                "WHERE a.task_id = ANY(?) AND " + TaskDao.Guard.CAN_VIEW.sql + " GROUP BY a.task_id";
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setArray(1, c.createArrayOf("integer", Arrays.stream(taskIds).boxed().toArray()));
+                TaskDao.Guard.CAN_VIEW.bind(ps, 2, viewerUserId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) out.put(rs.getInt(1), rs.getInt(2));
+                    return out;
+                }
+            }
+        });
+    }
+
+    // every content hash still referenced, through a cursor
+    public void forEachHash(Consumer<String> consumer) throws Exception {
+        try (Connection c = DB.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            if (autoCommit) c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("SELECT DISTINCT content_hash FROM task_attachments")) {
+                ps.setFetchSize(SCAN_FETCH_SIZE);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) consumer.accept(rs.getString(1));
+                }
+            } finally {
+                if (autoCommit) {
+                    c.rollback();
+                    c.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    private static Attachment map(ResultSet rs) throws SQLException {
+        Timestamp created = rs.getTimestamp("created_date");
+        return new Attachment(
+                rs.getInt("id"),
+                rs.getInt("task_id"),
+                rs.getInt("user_id"),
+                rs.getString("kind"),
+                rs.getString("file_name"),
+                rs.getString("content_hash"),
+                rs.getLong("size_bytes"),
+                created != null ? created.toLocalDateTime() : null);
+    }
+}
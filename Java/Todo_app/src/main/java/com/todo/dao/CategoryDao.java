@@ -1,75 +1,113 @@
 package com.todo.dao;
 
 import com.todo.model.Category;
+import com.todo.model.NameTable;
 import com.todo.util.DB;
+import com.todo.util.Resilience;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CategoryDao {
+    // categories are only ever added, so a resolved name -> id never goes stale
+    private static final Map<String, Integer> idCache = new ConcurrentHashMap<>();
+
     public List<Category> listAll() throws Exception {
-        // category_id AS id -> matches your Category model
-        String sql = "SELECT id AS id, category_name, display_name FROM category ORDER BY category_name";
-
-        List<Category> out = new ArrayList<>();
-        try (Connection c = DB.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                out.add(new Category(
-                        rs.getInt("id"),
-                        rs.getString("category_name"),
-                        rs.getString("display_name")
-                ));
+        return Resilience.read(() -> {
+            // category_id AS id -> matches your Category model
+            String sql = "SELECT id AS id, category_name, display_name FROM category ORDER BY category_name";
+
+            List<Category> out = new ArrayList<>();
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    out.add(new Category(
+                            rs.getInt("id"),
+                            rs.getString("category_name"),
+                            rs.getString("display_name")
+                    ));
+                }
             }
-        }
-        return out;
+            return out;
+        });
+    }
+
+    // loads every category name -> id at once (start-up warm-up)
+    public int primeCache() throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement("SELECT id, category_name FROM category");
+                 ResultSet rs = ps.executeQuery()) {
+                int n = 0;
+                while (rs.next()) {
+                    idCache.put(rs.getString(2), rs.getInt(1));
+                    NameTable.CATEGORY.put(rs.getInt(1), rs.getString(2));
+                    n++;
+                }
+                return n;
+            }
+        });
     }
 
     public boolean existsById(int categoryId) throws Exception {
-        String sql = "SELECT 1 FROM category WHERE id = ?";
-        try (Connection c = DB.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, categoryId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
+        return Resilience.read(() -> {
+            String sql = "SELECT 1 FROM category WHERE id = ?";
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, categoryId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next();
+                }
             }
-        }
+        });
     }
 
     public int getIdByName(String category_name) throws Exception {
-        String sql = "SELECT id FROM category WHERE category_name = ?";
+        Integer cached = idCache.get(category_name);
+        if (cached != null) return cached;
 
-        try (Connection connection = DB.getConnection();
-             PreparedStatement ps = connection.prepareStatement(sql)) {
+        return Resilience.read(() -> {
+            String sql = "SELECT id FROM category WHERE category_name = ?";
 
-            ps.setString(1, category_name);
+            try (Connection connection = DB.getConnection();
+                 PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
+                ps.setString(1, category_name);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        int id = rs.getInt("id");
+                        idCache.put(category_name, id);
+                        NameTable.CATEGORY.put(id, category_name);
+                        return id;
+                    }
                 }
             }
-        }
-        throw new IllegalArgumentException("Category not found: " + category_name);
+            throw new IllegalArgumentException("Category not found: " + category_name);
+        });
     }
 
     public List<String> listCategoryNames() throws Exception {
-        String sql = "SELECT category_name FROM category ORDER BY category_name";
-        List<String> names = new ArrayList<>();
+        return Resilience.read(() -> {
+            String sql = "SELECT category_name FROM category ORDER BY category_name";
+            List<String> names = new ArrayList<>();
 
-        try (Connection c = DB.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
 
-            while (rs.next()) {
-                names.add(rs.getString("category_name"));
+                while (rs.next()) {
+                    names.add(rs.getString("category_name"));
+                }
             }
-        }
-        return names;
+            return names;
+        });
     }
 }
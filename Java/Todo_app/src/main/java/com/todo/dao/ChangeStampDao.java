@@ -0,0 +1,41 @@
+package com.todo.dao;
+
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+// tasks.change_stamp is the id of the transaction that last wrote the task, and task_removals logs every task
+// that left a user's list; both are kept by the tasks_change_stamp trigger. writers share no row, so a stamp
+// handed to a client is the oldest transaction id still running when it was read (the snapshot xmin): every
+// transaction below it has finished, so "change_stamp >= stamp" misses no write that commits later
+public class ChangeStampDao {
+
+    // stamp: the watermark to hand back to the client. changed / removed: a task was written, or left the
+    // user's list, at or after the stamp the client already had
+    public record Changes(long stamp, boolean changed, boolean removed) {
+    }
+
+    // two index probes in one statement. the watermark is taken in the same snapshot as the probes, so rows read
+    // after this call are never older than the stamp they come with (a racing write is reported again, never lost)
+    public Changes since(int userId, long knownStamp) throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(
+                         "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint, "
+                                 + "EXISTS (SELECT 1 FROM tasks WHERE user_id = ? AND change_stamp >= ?), "
+                                 + "EXISTS (SELECT 1 FROM task_removals WHERE user_id = ? AND change_stamp >= ?)")) {
+                ps.setInt(1, userId);
+                ps.setLong(2, knownStamp);
+                ps.setInt(3, userId);
+                ps.setLong(4, knownStamp);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new Changes(rs.getLong(1), rs.getBoolean(2), rs.getBoolean(3));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package com.todo.dao;
+
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+// tasks.rank_key: the owner's manual order (RankKeys). tasks without a key come after the ranked ones, most
+// recently updated first. callers run a move or a rebalance as one transaction that starts with lock()
+public class RankDao {
+    // first half of the advisory lock key; the second half is the user id
+    private static final int LOCK_CLASS = 0x52414e4b;
+
+    // anchor null: the anchor has no key yet (prev and next are then null as well)
+    public record Neighbors(String anchor, String prev, String next) {
+    }
+
+    // serializes moves and rebalancing of one user's list until the transaction ends
+    public void lock(int userId) throws Exception {
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT pg_advisory_xact_lock(?, ?)")) {
+            ps.setInt(1, LOCK_CLASS);
+            ps.setInt(2, userId);
+            ps.executeQuery().close();
+        }
+    }
+
+    // the anchor's key and the closest keys below and above it, ignoring skipTaskId (the task being moved);
+    // both neighbours come from the (user_id, rank_key) index. null when the anchor is not the user's
+    public Neighbors neighbors(int anchorId, int skipTaskId, int userId) throws Exception {
+        String sql = """
+            SELECT a.rank_key,
+                   (SELECT MAX(n.rank_key) FROM tasks n
+                     WHERE n.user_id = a.user_id AND n.rank_key < a.rank_key AND n.id <> ?) AS prev,
+                   (SELECT MIN(n.rank_key) FROM tasks n
+                     WHERE n.user_id = a.user_id AND n.rank_key > a.rank_key AND n.id <> ?) AS next
+            FROM tasks a
+            WHERE a.id = ? AND a.user_id = ?
+        """;
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, skipTaskId);
+                ps.setInt(2, skipTaskId);
+                ps.setInt(3, anchorId);
+                ps.setInt(4, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new Neighbors(rs.getString(1), rs.getString(2), rs.getString(3)) : null;
+                }
+            }
+        });
+    }
+
+    public String maxKey(int userId) throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement("SELECT MAX(rank_key) FROM tasks WHERE user_id = ?")) {
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+
+    // the user's tasks without a key that are listed before the anchor, the anchor included, in list order
+    public int[] unrankedUpTo(int anchorId, int skipTaskId, int userId) throws Exception {
+        String sql = """
+            SELECT t.id FROM tasks t, tasks a
+            WHERE a.id = ? AND a.user_id = ?
+              AND t.user_id = a.user_id AND t.rank_key IS NULL AND t.id <> ?
+              AND (t.updated_date, t.id) >= (a.updated_date, a.id)
+            ORDER BY t.updated_date DESC, t.id DESC
+        """;
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, anchorId);
+                ps.setInt(2, userId);
+                ps.setInt(3, skipTaskId);
+                List<Integer> ids = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) ids.add(rs.getInt(1));
+                }
+                return ids.stream().mapToInt(Integer::intValue).toArray();
+            }
+        });
+    }
+
+    // the user's ranked tasks in list order
+    public int[] rankedIds(int userId) throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(
+                         "SELECT id FROM tasks WHERE user_id = ? AND rank_key IS NOT NULL ORDER BY rank_key, id")) {
+                ps.setInt(1, userId);
+                List<Integer> ids = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) ids.add(rs.getInt(1));
+                }
+                return ids.stream().mapToInt(Integer::intValue).toArray();
+            }
+        });
+    }
+
+    // the one-row write of a move; false when the task is not the user's
+    public boolean setKey(int taskId, int userId, String key) throws Exception {
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement("UPDATE tasks SET rank_key = ? WHERE id = ? AND user_id = ?")) {
+            ps.setString(1, key);
+            ps.setInt(2, taskId);
+            ps.setInt(3, userId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    // many keys in one statement (rebalancing, first move below unranked tasks)
+    public int setKeys(int userId, int[] taskIds, String[] keys) throws Exception {
+        if (taskIds.length == 0) return 0;
+        String sql = """
+            UPDATE tasks t SET rank_key = v.k
+            FROM unnest(?::int[], ?::text[]) AS v(id, k)
+            WHERE t.id = v.id AND t.user_id = ?
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            Integer[] ids = new Integer[taskIds.length];
+            for (int i = 0; i < ids.length; i++) ids[i] = taskIds[i];
+            ps.setArray(1, c.createArrayOf("integer", ids));
+            ps.setArray(2, c.createArrayOf("text", keys));
+            ps.setInt(3, userId);
+            return ps.executeUpdate();
+        }
+    }
+}
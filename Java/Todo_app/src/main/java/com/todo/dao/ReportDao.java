@@ -0,0 +1,86 @@
+package com.todo.dao;
+
+import com.todo.model.Task;
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// raw reads for the productivity reports: only the columns they aggregate, no joins, no Task objects
+public class ReportDao {
+    private static final int FETCH_SIZE = Integer.getInteger("TODO_SCAN_FETCH_SIZE", 1000);
+
+    public interface RowHandler {
+        // timestamps as Task.toMicros
+        void accept(int userId, int categoryId, int statusId, long createdMicros, long updatedMicros);
+    }
+
+    // {min id, max id} of the tasks table, or null when it is empty
+    public int[] idRange() throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement("SELECT MIN(id), MAX(id) FROM tasks");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                int min = rs.getInt(1);
+                return rs.wasNull() ? null : new int[]{min, rs.getInt(2)};
+            }
+        });
+    }
+
+    // streams the tasks with fromId <= id <= lastId through a cursor (an index range scan on the primary key);
+    // autocommit is switched off for the duration unless the caller already runs a transaction. returns the rows read
+    public long scanRange(int fromId, int lastId, RowHandler handler) throws Exception {
+        String sql = "SELECT user_id, category_id, status_id, created_date, updated_date FROM tasks WHERE id BETWEEN ? AND ?";
+
+        try (Connection c = DB.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            if (autoCommit) c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setInt(1, fromId);
+                ps.setInt(2, lastId);
+
+                long n = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        handler.accept(rs.getInt(1), rs.getInt(2), rs.getInt(3), micros(rs.getTimestamp(4)), micros(rs.getTimestamp(5)));
+                        n++;
+                    }
+                }
+                return n;
+            } finally {
+                if (autoCommit) {
+                    c.rollback();
+                    c.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    public Map<Integer, String> userNames(int[] userIds) throws Exception {
+        Map<Integer, String> names = new HashMap<>();
+        if (userIds.length == 0) return names;
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement("SELECT id, name FROM users WHERE id = ANY(?)")) {
+                ps.setArray(1, c.createArrayOf("integer", Arrays.stream(userIds).boxed().toArray()));
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) names.put(rs.getInt(1), rs.getString(2));
+                }
+                return names;
+            }
+        });
+    }
+
+    private static long micros(Timestamp ts) {
+        return ts != null ? Task.toMicros(ts.toLocalDateTime()) : Task.NONE;
+    }
+}
@@ -1,24 +1,56 @@
 package com.todo.dao;
 
+import com.todo.model.NameTable;
 import com.todo.util.DB;
+import com.todo.util.Resilience;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StatusDao {
+    // status rows are fixed reference data, so an id is looked up once per process
+    private static final Map<String, Integer> idCache = new ConcurrentHashMap<>();
+
     public int getIdByName(String status_name) throws Exception{
-        String sql = "select id from status where status_name = ?";
-        try(Connection connection = DB.getConnection();
-            PreparedStatement preparedStatement = connection.prepareStatement(sql)){
+        Integer cached = idCache.get(status_name);
+        if (cached != null) return cached;
+
+        return Resilience.read(() -> {
+            String sql = "select id from status where status_name = ?";
+            try(Connection connection = DB.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql)){
+
+                preparedStatement.setString(1,status_name);
+                try(ResultSet rs = preparedStatement.executeQuery()){
+                    if(rs.next()){
+                        int id = rs.getInt("id");
+                        idCache.put(status_name, id);
+                        NameTable.STATUS.put(id, status_name);
+                        return id;
+                    }
+                }
+            throw new IllegalArgumentException("Status not found: " + status_name);
+            }
+        });
+    }
 
-            preparedStatement.setString(1,status_name);
-            try(ResultSet rs = preparedStatement.executeQuery()){
-                if(rs.next()){
-                    return rs.getInt("id");
+    // loads every status at once, e.g. during start-up warm-up, so later lookups never hit the database
+    public int primeCache() throws Exception {
+        return Resilience.read(() -> {
+            try (Connection connection = DB.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("select id, status_name from status");
+                 ResultSet rs = ps.executeQuery()) {
+                int n = 0;
+                while (rs.next()) {
+                    idCache.put(rs.getString(2), rs.getInt(1));
+                    NameTable.STATUS.put(rs.getInt(1), rs.getString(2));
+                    n++;
                 }
+                return n;
             }
-        throw new IllegalArgumentException("Status not found: " + status_name);
-        }
+        });
     }
 }
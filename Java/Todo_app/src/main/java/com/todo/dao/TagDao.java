@@ -0,0 +1,121 @@
+package com.todo.dao;
+
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// task_tags rows. tags belong to the task, so they follow it when the task is claimed by someone else;
+// writes are owner-only and the ownership check is part of the statement
+public class TagDao {
+    private static final int SCAN_FETCH_SIZE = Integer.getInteger("TODO_SCAN_FETCH_SIZE", 1000);
+
+    public interface TagHandler {
+        void accept(String tag, int taskId);
+    }
+
+    // false when the task is not the owner's; tags the task already has are left alone
+    public boolean addTags(int taskId, int ownerUserId, List<String> tags) throws Exception {
+        String sql = """
+            WITH owned AS (
+                SELECT id FROM tasks WHERE id = ? AND user_id = ?
+            ), ins AS (
+                INSERT INTO task_tags (task_id, tag)
+                SELECT owned.id, x.tag FROM owned, unnest(?::varchar[]) AS x(tag)
+                ON CONFLICT (task_id, tag) DO NOTHING
+                RETURNING 1
+            )
+            SELECT EXISTS (SELECT 1 FROM owned)
+        """;
+        return ownedWrite(sql, taskId, ownerUserId, tags);
+    }
+
+    public boolean removeTags(int taskId, int ownerUserId, List<String> tags) throws Exception {
+        String sql = """
+            WITH owned AS (
+                SELECT id FROM tasks WHERE id = ? AND user_id = ?
+            ), del AS (
+                DELETE FROM task_tags tt USING owned
+                WHERE tt.task_id = owned.id AND tt.tag = ANY(?::varchar[])
+                RETURNING 1
+            )
+            SELECT EXISTS (SELECT 1 FROM owned)
+        """;
+        return ownedWrite(sql, taskId, ownerUserId, tags);
+    }
+
+    private boolean ownedWrite(String sql, int taskId, int ownerUserId, List<String> tags) throws Exception {
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, taskId);
+            ps.setInt(2, ownerUserId);
+            ps.setArray(3, c.createArrayOf("varchar", tags.toArray()));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    public List<String> listTags(int taskId) throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement("SELECT tag FROM task_tags WHERE task_id = ? ORDER BY tag")) {
+                ps.setInt(1, taskId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<String> out = new ArrayList<>();
+                    while (rs.next()) out.add(rs.getString(1));
+                    return out;
+                }
+            }
+        });
+    }
+
+    // every task id the user owns, ascending
+    public void forEachTaskId(int userId, IntConsumer consumer) throws Exception {
+        String sql = "SELECT id FROM tasks WHERE user_id = ? ORDER BY id";
+        stream(sql, userId, rs -> consumer.accept(rs.getInt(1)));
+    }
+
+    // (tag, task id) for every tag on the user's tasks, grouped by tag with ids ascending
+    public void forEachTag(int userId, TagHandler handler) throws Exception {
+        String sql = """
+            SELECT tt.tag, tt.task_id
+            FROM tasks t
+            JOIN task_tags tt ON tt.task_id = t.id
+            WHERE t.user_id = ?
+            ORDER BY tt.tag, tt.task_id
+        """;
+        stream(sql, userId, rs -> handler.accept(rs.getString(1), rs.getInt(2)));
+    }
+
+    private interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    // cursor read, same as TaskDao.scan: autocommit off for the duration unless the caller already runs a transaction
+    private void stream(String sql, int userId, RowHandler handler) throws Exception {
+        try (Connection c = DB.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            if (autoCommit) c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(SCAN_FETCH_SIZE);
+                ps.setInt(1, userId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) handler.accept(rs);
+                }
+            } finally {
+                if (autoCommit) {
+                    c.rollback();
+                    c.setAutoCommit(true);
+                }
+            }
+        }
+    }
+}
@@ -1,20 +1,61 @@
 package com.todo.dao;
 
+import com.todo.exception.TaskConflictException;
+import com.todo.model.NameTable;
 import com.todo.model.Task;
+import com.todo.model.TaskNode;
 import com.todo.util.DB;
+import com.todo.util.Resilience;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TaskDao {
+    private static final int SCAN_FETCH_SIZE = Integer.getInteger("TODO_SCAN_FETCH_SIZE", 1000);
+    // open ends of the date filters, so the statement text does not depend on which bounds are set
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // row filters on tasks t, with how many times each binds the acting user's id
+    enum Guard {
+        IS_OWNER("t.user_id = ?", 1),
+        CAN_EDIT("(t.user_id = ? OR EXISTS (SELECT 1 FROM task_shares sh " +
+                "WHERE sh.task_id = t.id AND sh.user_id = ? AND sh.permission = 'editor'))", 2),
+        CAN_VIEW("(t.user_id = ? OR EXISTS (SELECT 1 FROM task_shares sh " +
+                "WHERE sh.task_id = t.id AND sh.user_id = ?))", 2);
+
+        final String sql;
+        private final int params;
+
+        Guard(String sql, int params) {
+            this.sql = sql;
+            this.params = params;
+        }
+
+        // binds the actor from index on; returns the next free index
+        int bind(PreparedStatement ps, int index, int actorUserId) throws SQLException {
+            for (int n = 0; n < params; n++) ps.setInt(index++, actorUserId);
+            return index;
+        }
+    }
+
+    private final StatusDao statusDao = new StatusDao();
+    private final CategoryDao categoryDao = new CategoryDao();
 
     public Task createTask(String taskName, int statusId, int userId, int categoryId) throws Exception {
+        return createTask(taskName, statusId, userId, categoryId, null);
+    }
+
+    public Task createTask(String taskName, int statusId, int userId, int categoryId, LocalDateTime dueDate) throws Exception {
         String sql = """
-            INSERT INTO tasks (task_name, status_id, user_id, category_id, created_date, updated_date)
-            VALUES (?, ?, ?, ?, NOW(), NOW())
-            RETURNING id, task_name, created_date, updated_date
+            INSERT INTO tasks (task_name, status_id, user_id, category_id, created_date, updated_date, due_date)
+            VALUES (?, ?, ?, ?, NOW(), NOW(), ?)
+            RETURNING id, task_name, status_id, category_id, user_id, created_date, updated_date, version, due_date
         """;
 
         try (Connection connection = DB.getConnection();
@@ -24,214 +65,547 @@ public class TaskDao {
             preparedStatement.setInt(2, statusId);
             preparedStatement.setInt(3, userId);
             preparedStatement.setInt(4, categoryId);
+            preparedStatement.setTimestamp(5, dueDate != null ? Timestamp.valueOf(dueDate) : null);
 
             try (ResultSet rs = preparedStatement.executeQuery()) {
                 rs.next();
 
-                // For create we don't have JOIN names, so return minimal Task object
-                // You can just return null if you don't need the created Task instance.
-                Timestamp createdTs = rs.getTimestamp("created_date");
-                Timestamp updatedTs = rs.getTimestamp("updated_date");
-
-                LocalDateTime created = createdTs != null ? createdTs.toLocalDateTime() : null;
-                LocalDateTime updated = updatedTs != null ? updatedTs.toLocalDateTime() : null;
-
-                return new Task(
-                        rs.getInt("id"),
-                        rs.getString("task_name"),
-                        null,       // status_name (not joined)
-                        null,       // username (not joined)
-                        null,       // category_name (not joined)
-                        created,
-                        updated
-                );
+                // no joins here: status/category names resolve through NameTable, the username is not loaded
+                return TaskMapper.unjoined(rs);
             }
         }
     }
 
-    public void updateTask(int taskId, String newTaskName, int newStatusId) throws Exception {
-        String sql = "UPDATE tasks SET task_name = ?, status_id = ?, updated_date = NOW() WHERE id = ?";
+    // owner or editor; renaming also moves the task to newStatusId
+    public void updateTask(int taskId, int actorUserId, String newTaskName, int newStatusId) throws Exception {
+        String sql = "UPDATE tasks t SET task_name = ?, status_id = ?, updated_date = NOW(), version = t.version + 1 " +
+                "WHERE t.id = ? AND " + Guard.CAN_EDIT.sql;
         try (Connection c = DB.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, newTaskName);
             ps.setInt(2, newStatusId);
             ps.setInt(3, taskId);
-            if (ps.executeUpdate() == 0) throw new IllegalArgumentException("Task not found: " + taskId);
+            Guard.CAN_EDIT.bind(ps, 4, actorUserId);
+            if (ps.executeUpdate() == 0) throw new IllegalArgumentException("You are not allowed to modify this task.");
         }
     }
 
-    public void assignTask(int taskId, int assigneeUserId, int inProgressStatusId) throws Exception {
-        String sql = "UPDATE tasks SET user_id = ?, status_id = ?, updated_date = NOW() WHERE id = ?";
+    // only applies when the row is still at expectedVersion, otherwise TaskConflictException
+    public void updateTask(int taskId, int actorUserId, String newTaskName, int newStatusId, int expectedVersion) throws Exception {
+        String sql = "UPDATE tasks t SET task_name = ?, status_id = ?, updated_date = NOW(), version = t.version + 1 " +
+                "WHERE t.id = ? AND " + Guard.CAN_EDIT.sql + " AND t.version = ?";
         try (Connection c = DB.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, assigneeUserId);
-            ps.setInt(2, inProgressStatusId);
+            ps.setString(1, newTaskName);
+            ps.setInt(2, newStatusId);
             ps.setInt(3, taskId);
-            if (ps.executeUpdate() == 0) throw new IllegalArgumentException("Task not found: " + taskId);
-        }
-    }
+            int i = Guard.CAN_EDIT.bind(ps, 4, actorUserId);
+            ps.setInt(i, expectedVersion);
+            if (ps.executeUpdate() == 1) return;
 
-    public void markTaskStatus(int taskId, int statusId) throws Exception {
-        String sql = "UPDATE tasks SET status_id = ?, updated_date = NOW() WHERE id = ?";
-        try (Connection c = DB.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, statusId);
-            ps.setInt(2, taskId);
-            if (ps.executeUpdate() == 0) throw new IllegalArgumentException("Task not found: " + taskId);
+            // failure path only: allowed but stale is a conflict, everything else is "not allowed"
+            if (passes(c, taskId, Guard.CAN_EDIT, actorUserId)) throw new TaskConflictException(taskId, expectedVersion);
+            throw new IllegalArgumentException("You are not allowed to modify this task.");
         }
     }
 
-    public List<Task> listByUser(int userId) throws Exception {
-        String sql =
-                "SELECT t.id, u.name AS username, t.task_name, " +
-                        "       s.status_name AS status_name, " +
-                        "       c.category_name AS category_name, " +
-                        "       t.created_date, t.updated_date " +
-                        "FROM tasks t " +
-                        "LEFT JOIN status s ON t.status_id = s.id " +
-                        "LEFT JOIN category c ON t.category_id = c.id " +
-                        "LEFT JOIN users u ON t.user_id = u.id " +
-                        "WHERE t.user_id = ? " +
-                        "ORDER BY t.updated_date DESC";
-
+    // owner or editor; null clears the due date. returns the updated row (without joined names) for the reminder scheduler
+    public Task setDueDate(int taskId, int userId, LocalDateTime dueDate) throws Exception {
+        String sql = "UPDATE tasks t SET due_date = ?, updated_date = NOW(), version = t.version + 1 " +
+                "WHERE t.id = ? AND " + Guard.CAN_EDIT.sql + " " +
+                "RETURNING t.id, t.task_name, t.status_id, t.category_id, t.user_id, t.created_date, t.updated_date, t.version, t.due_date";
         try (Connection c = DB.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
-
-            ps.setInt(1, userId);
+            ps.setTimestamp(1, dueDate != null ? Timestamp.valueOf(dueDate) : null);
+            ps.setInt(2, taskId);
+            Guard.CAN_EDIT.bind(ps, 3, userId);
 
             try (ResultSet rs = ps.executeQuery()) {
-                List<Task> out = new ArrayList<>();
-                while (rs.next()) out.add(map(rs));
-                return out;
+                if (!rs.next()) throw new IllegalArgumentException("You are not allowed to modify this task.");
+                return TaskMapper.unjoined(rs);
             }
         }
     }
 
-    public List<Task> filterByNames(int userId, String statusName, String categoryName) throws Exception {
-
-        StringBuilder sb = new StringBuilder(
-                "SELECT t.id, u.name AS username, t.task_name, " +
-                        "       s.status_name AS status_name, " +
-                        "       c.category_name AS category_name, " +
-                        "       t.created_date, t.updated_date " +
-                        "FROM tasks t " +
-                        "LEFT JOIN status s ON t.status_id = s.id " +
-                        "LEFT JOIN category c ON t.category_id = c.id " +
-                        "LEFT JOIN users u ON t.user_id = u.id " +
-                        "WHERE t.user_id = ? "
-        );
+    // the permission check is part of each statement below, so there is no window between checking and writing:
+    // false means the task does not exist or the actor may not change it; a stale expectedVersion on a task the
+    // actor may change is a TaskConflictException
 
-        List<Object> params = new ArrayList<>();
-        params.add(userId);
+    public boolean markTaskStatusAs(int taskId, int statusId, int actorUserId) throws Exception {
+        return guardedStatusUpdate(taskId, statusId, Guard.CAN_EDIT, actorUserId, null);
+    }
 
-        if (statusName != null && !statusName.isBlank()) {
-            sb.append(" AND s.status_name = ? ");
-            params.add(statusName.trim());
-        }
+    public boolean markTaskStatusAs(int taskId, int statusId, int actorUserId, int expectedVersion) throws Exception {
+        return guardedStatusUpdate(taskId, statusId, Guard.CAN_EDIT, actorUserId, expectedVersion);
+    }
 
-        if (categoryName != null && !categoryName.isBlank()) {
-            sb.append(" AND c.category_name = ? ");
-            params.add(categoryName.trim());
-        }
+    // owner only, e.g. for deletes
+    public boolean markOwnTaskStatus(int taskId, int statusId, int ownerUserId) throws Exception {
+        return guardedStatusUpdate(taskId, statusId, Guard.IS_OWNER, ownerUserId, null);
+    }
 
-        sb.append(" ORDER BY t.updated_date DESC");
+    public boolean markOwnTaskStatus(int taskId, int statusId, int ownerUserId, int expectedVersion) throws Exception {
+        return guardedStatusUpdate(taskId, statusId, Guard.IS_OWNER, ownerUserId, expectedVersion);
+    }
 
+    private boolean guardedStatusUpdate(int taskId, int statusId, Guard guard, int actorUserId,
+                                        Integer expectedVersion) throws Exception {
+        String sql = "UPDATE tasks t SET status_id = ?, updated_date = NOW(), version = t.version + 1 " +
+                "WHERE t.id = ? AND " + guard.sql + (expectedVersion != null ? " AND t.version = ?" : "");
         try (Connection c = DB.getConnection();
-             PreparedStatement ps = c.prepareStatement(sb.toString())) {
-
-            for (int i = 0; i < params.size(); i++) {
-                ps.setObject(i + 1, params.get(i));
-            }
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, statusId);
+            ps.setInt(2, taskId);
+            int i = guard.bind(ps, 3, actorUserId);
+            if (expectedVersion != null) ps.setInt(i, expectedVersion);
+            if (ps.executeUpdate() == 1) return true;
+            if (expectedVersion == null) return false;
+
+            // failure path only: allowed but stale is a conflict, everything else is "not allowed"
+            if (passes(c, taskId, guard, actorUserId)) throw new TaskConflictException(taskId, expectedVersion);
+            return false;
+        }
+    }
 
+    // whether the task exists and the guard lets the actor through, on the caller's connection
+    private static boolean passes(Connection c, int taskId, Guard guard, int actorUserId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT 1 FROM tasks t WHERE t.id = ? AND " + guard.sql)) {
+            ps.setInt(1, taskId);
+            guard.bind(ps, 2, actorUserId);
             try (ResultSet rs = ps.executeQuery()) {
-                List<Task> out = new ArrayList<>();
-                while (rs.next()) out.add(map(rs));
-                return out;
+                return rs.next();
             }
         }
     }
 
-    private Task map(ResultSet rs) throws Exception {
-        Timestamp createdTs = rs.getTimestamp("created_date");
-        Timestamp updatedTs = rs.getTimestamp("updated_date");
+    // open tasks due in [from, to), read through the partial index on due_date; feeds the reminder window
+    public List<Task> listDueBetween(LocalDateTime from, LocalDateTime to) throws Exception {
+        return Resilience.read(() -> {
+            String sql = """
+                SELECT t.id, u.name AS username, t.task_name,
+                       s.status_name AS status_name,
+                       c.category_name AS category_name,
+                       t.user_id, t.status_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date
+                FROM tasks t
+                LEFT JOIN status s ON t.status_id = s.id
+                LEFT JOIN category c ON t.category_id = c.id
+                LEFT JOIN users u ON t.user_id = u.id
+                WHERE t.due_date >= ? AND t.due_date < ?
+                  AND s.status_name NOT IN ('completed', 'deleted')
+                ORDER BY t.due_date
+            """;
+
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setTimestamp(1, Timestamp.valueOf(from));
+                ps.setTimestamp(2, Timestamp.valueOf(to));
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Task> out = new ArrayList<>();
+                    TaskMapper m = new TaskMapper();
+                    while (rs.next()) out.add(m.map(rs));
+                    return out;
+                }
+            }
+        });
+    }
 
-        LocalDateTime created = createdTs != null ? createdTs.toLocalDateTime() : null;
-        LocalDateTime updated = updatedTs != null ? updatedTs.toLocalDateTime() : null;
+    // the user's tasks written at or after sinceStamp (see ChangeStampDao), through idx_tasks_user_change.
+    // every status is returned (a task marked deleted has to leave the caller's list too)
+    public List<Task> listChangedSince(int userId, long sinceStamp) throws Exception {
+        return Resilience.read(() -> {
+            String sql = """
+                SELECT t.id, u.name AS username, t.task_name,
+                       s.status_name AS status_name,
+                       c.category_name AS category_name,
+                       t.user_id, t.status_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date
+                FROM tasks t
+                LEFT JOIN status s ON t.status_id = s.id
+                LEFT JOIN category c ON t.category_id = c.id
+                LEFT JOIN users u ON t.user_id = u.id
+                WHERE t.user_id = ? AND t.change_stamp >= ?
+                ORDER BY t.change_stamp
+            """;
+
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, userId);
+                ps.setLong(2, sinceStamp);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Task> out = new ArrayList<>();
+                    TaskMapper m = new TaskMapper();
+                    while (rs.next()) out.add(m.map(rs));
+                    return out;
+                }
+            }
+        });
+    }
 
-        return new Task(
-                rs.getInt("id"),                 // id
-                rs.getString("task_name"),       // task_name
-                rs.getString("status_name"),     // status_name
-                rs.getString("username"),        // username
-                rs.getString("category_name"),   // category_name
-                created,                         // createdDate
-                updated                          // updatedDate
-        );
+    // the task and everything below it in one pass over task_closure's primary key, each row with its direct
+    // parent (idx_task_closure_descendant); TaskNode.treeOrder puts them in display order
+    public List<TaskNode> listSubtree(int rootTaskId) throws Exception {
+        return Resilience.read(() -> {
+            String sql = """
+                SELECT t.id, u.name AS username, t.task_name,
+                       s.status_name AS status_name,
+                       c.category_name AS category_name,
+                       t.user_id, t.status_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date,
+                       d.depth, p.ancestor_id AS parent_id
+                FROM (SELECT ?::int AS id, 0 AS depth
+                      UNION ALL
+                      SELECT descendant_id, depth FROM task_closure WHERE ancestor_id = ?) d
+                JOIN tasks t ON t.id = d.id
+                LEFT JOIN task_closure p ON p.descendant_id = t.id AND p.depth = 1 AND d.depth > 0
+                LEFT JOIN status s ON t.status_id = s.id
+                LEFT JOIN category c ON t.category_id = c.id
+                LEFT JOIN users u ON t.user_id = u.id
+            """;
+
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, rootTaskId);
+                ps.setInt(2, rootTaskId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<TaskNode> out = new ArrayList<>();
+                    TaskMapper m = new TaskMapper();
+                    while (rs.next()) out.add(new TaskNode(m.map(rs), rs.getInt("parent_id"), rs.getInt("depth")));
+                    return out;
+                }
+            }
+        });
     }
 
-    public boolean isTaskOwnedBy(int taskId, int userId) throws Exception {
-        String sql = "SELECT 1 FROM tasks WHERE id = ? AND user_id = ?";
-        try (Connection c = DB.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, taskId);
-            ps.setInt(2, userId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
+    // the task's parent, grandparent, ... up to the top-level task, top-level task first
+    public List<Task> listAncestors(int taskId) throws Exception {
+        return Resilience.read(() -> {
+            String sql = """
+                SELECT t.id, u.name AS username, t.task_name,
+                       s.status_name AS status_name,
+                       c.category_name AS category_name,
+                       t.user_id, t.status_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date
+                FROM task_closure cl
+                JOIN tasks t ON t.id = cl.ancestor_id
+                LEFT JOIN status s ON t.status_id = s.id
+                LEFT JOIN category c ON t.category_id = c.id
+                LEFT JOIN users u ON t.user_id = u.id
+                WHERE cl.descendant_id = ?
+                ORDER BY cl.depth DESC
+            """;
+
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, taskId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Task> out = new ArrayList<>();
+                    TaskMapper m = new TaskMapper();
+                    while (rs.next()) out.add(m.map(rs));
+                    return out;
+                }
             }
-        }
+        });
     }
 
-    public List<Task> listStartableTasksByUser(int userId) throws Exception {
-        String sql =
-                "SELECT t.id, u.name AS username, t.task_name, " +
-                        "       s.status_name AS status_name, " +
-                        "       c.category_name AS category_name, " +
-                        "       t.created_date, t.updated_date " +
-                        "FROM tasks t " +
-                        "LEFT JOIN status s ON t.status_id = s.id " +
-                        "LEFT JOIN category c ON t.category_id = c.id " +
-                        "LEFT JOIN users u ON t.user_id = u.id " +
-                        "WHERE t.user_id = ? " +
-                        "  AND s.status_name IN ('ready_to_pick', 'blocked') " +
-                        "ORDER BY t.updated_date DESC";
+    // work-queue pull: atomically hands the oldest ready tasks of a category to the worker.
+    // SKIP LOCKED lets concurrent workers pass over rows another claim is holding instead of waiting on them.
+    public List<Task> claimNext(String categoryName, int workerUserId, int limit) throws Exception {
+        String sql = """
+            WITH next AS (
+                SELECT t.id
+                FROM tasks t
+                WHERE t.category_id = (SELECT id FROM category WHERE category_name = ?)
+                  AND t.status_id = (SELECT id FROM status WHERE status_name = 'ready_to_pick')
+                ORDER BY t.created_date, t.id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ), claimed AS (
+                UPDATE tasks t
+                SET user_id = ?,
+                    status_id = (SELECT id FROM status WHERE status_name = 'in_progress'),
+                    updated_date = NOW(),
+                    version = t.version + 1
+                FROM next
+                WHERE t.id = next.id
+                RETURNING t.*
+            )
+            SELECT t.id, u.name AS username, t.task_name,
+                   s.status_name AS status_name,
+                   c.category_name AS category_name,
+                   t.user_id, t.status_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date
+            FROM claimed t
+            LEFT JOIN status s ON t.status_id = s.id
+            LEFT JOIN category c ON t.category_id = c.id
+            LEFT JOIN users u ON t.user_id = u.id
+            ORDER BY t.created_date, t.id
+        """;
 
         try (Connection c = DB.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, userId);
+            ps.setString(1, categoryName);
+            ps.setInt(2, limit);
+            ps.setInt(3, workerUserId);
 
             try (ResultSet rs = ps.executeQuery()) {
                 List<Task> out = new ArrayList<>();
-                while (rs.next()) out.add(map(rs));
+                TaskMapper m = new TaskMapper();
+                while (rs.next()) out.add(m.map(rs));
                 return out;
             }
         }
     }
 
-    public List<Task> listActiveByUser(int userId) throws Exception {
+    public List<Task> listByUser(int userId) throws Exception {
+        return query(TaskQuery.forUser(userId));
+    }
+
+    public interface TaskHandler {
+        void accept(Task task) throws Exception;
+    }
+
+    // streams tasks in id order to the handler instead of building a list (userId null = every user).
+    // the driver only fetches through a cursor, fetchSize rows at a time, inside a transaction, so autocommit
+    // is switched off for the duration unless the caller already runs one
+    public int scan(Integer userId, TaskHandler handler) throws Exception {
         String sql =
                 "SELECT t.id, u.name AS username, t.task_name, " +
                         "       s.status_name AS status_name, " +
                         "       c.category_name AS category_name, " +
-                        "       t.created_date, t.updated_date " +
+                        "       t.user_id, t.status_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date " +
                         "FROM tasks t " +
                         "LEFT JOIN status s ON t.status_id = s.id " +
                         "LEFT JOIN category c ON t.category_id = c.id " +
                         "LEFT JOIN users u ON t.user_id = u.id " +
-                        "WHERE t.user_id = ? " +
-                        "  AND s.status_name <> 'deleted' " +
-                        "ORDER BY t.updated_date DESC";
+                        (userId != null ? "WHERE t.user_id = ? " : "") +
+                        "ORDER BY t.id";
+
+        try (Connection c = DB.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            if (autoCommit) c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(SCAN_FETCH_SIZE);
+                if (userId != null) ps.setInt(1, userId);
+
+                int n = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    TaskMapper m = new TaskMapper();
+                    while (rs.next()) {
+                        handler.accept(m.map(rs));
+                        n++;
+                    }
+                }
+                return n;
+            } finally {
+                if (autoCommit) {
+                    c.rollback();
+                    c.setAutoCommit(true);
+                }
+            }
+        }
+    }
 
-        try (Connection c = DB.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+    // same listing as listByUser, plus the user's rows that were moved to tasks_archive
+    public List<Task> listByUserIncludingArchived(int userId) throws Exception {
+        return query(TaskQuery.forUser(userId).includeArchived(true));
+    }
 
-            ps.setInt(1, userId);
+    public List<Task> filterByNames(int userId, String statusName, String categoryName) throws Exception {
+        return query(TaskQuery.forUser(userId).statuses(statusName).categories(categoryName));
+    }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                List<Task> out = new ArrayList<>();
-                while (rs.next()) out.add(map(rs));
-                return out;
+    public List<Task> query(TaskQuery q) throws Exception {
+        Integer[] statusIds = resolve(q.statuses, statusDao::getIdByName);
+        Integer[] excludedIds = resolve(q.excludedStatuses, statusDao::getIdByName);
+        Integer[] categoryIds = resolve(q.categories, categoryDao::getIdByName);
+        // every requested name is unknown, so nothing can match
+        if ((!q.statuses.isEmpty() && statusIds.length == 0) || (!q.categories.isEmpty() && categoryIds.length == 0)
+                || (q.ids != null && q.ids.length == 0))
+            return new ArrayList<>();
+
+        String sql = TaskQueryCompiler.sql(q, statusIds, excludedIds, categoryIds);
+
+        return Resilience.hedgedRead(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                int i = 1;
+                ps.setInt(i++, q.userId);
+                if (q.ids != null) ps.setArray(i++, c.createArrayOf("integer", Arrays.stream(q.ids).boxed().toArray()));
+                if (statusIds.length > 0) ps.setArray(i++, c.createArrayOf("integer", statusIds));
+                if (excludedIds.length > 0) ps.setArray(i++, c.createArrayOf("integer", excludedIds));
+                if (categoryIds.length > 0) ps.setArray(i++, c.createArrayOf("integer", categoryIds));
+                ps.setTimestamp(i++, Timestamp.valueOf(q.createdFrom != null ? q.createdFrom : MIN_TIME));
+                ps.setTimestamp(i++, Timestamp.valueOf(q.createdTo != null ? q.createdTo : MAX_TIME));
+                ps.setTimestamp(i++, Timestamp.valueOf(q.updatedFrom != null ? q.updatedFrom : MIN_TIME));
+                ps.setTimestamp(i++, Timestamp.valueOf(q.updatedTo != null ? q.updatedTo : MAX_TIME));
+                ps.setString(i++, q.namePrefix != null ? escapeLike(q.namePrefix) + "%" : "%");
+                if (q.limit != null) ps.setInt(i, q.limit); else ps.setNull(i, Types.INTEGER);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Task> out = new ArrayList<>();
+                    TaskMapper m = new TaskMapper();
+                    while (rs.next()) out.add(m.map(rs));
+                    return out;
+                }
+            }
+        });
+    }
+
+    private interface IdLookup {
+        int idOf(String name) throws Exception;
+    }
+
+    // unknown names are dropped instead of failing, like the name joins they replace
+    private static Integer[] resolve(List<String> names, IdLookup lookup) throws Exception {
+        List<Integer> ids = new ArrayList<>(names.size());
+        for (String name : names) {
+            try {
+                ids.add(lookup.idOf(name));
+            } catch (IllegalArgumentException unknown) {
+                // no such status/category
             }
         }
+        return ids.toArray(new Integer[0]);
     }
 
-}
\ No newline at end of file
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // one per result set: the username String is read once per user and shared by all of that user's rows,
+    // status/category names are read only the first time the process sees their id
+    private static final class TaskMapper {
+        private final Map<Integer, String> usernames = new HashMap<>();
+
+        Task map(ResultSet rs) throws SQLException {
+            int userId = rs.getInt("user_id");
+            String username = usernames.get(userId);
+            if (username == null) {
+                username = rs.getString("username");
+                if (username != null) usernames.put(userId, username);
+            }
+
+            int statusId = rs.getInt("status_id");
+            if (!NameTable.STATUS.contains(statusId)) {
+                String name = rs.getString("status_name");
+                if (name != null) NameTable.STATUS.put(statusId, name);
+            }
+            int categoryId = rs.getInt("category_id");
+            if (!NameTable.CATEGORY.contains(categoryId)) {
+                String name = rs.getString("category_name");
+                if (name != null) NameTable.CATEGORY.put(categoryId, name);
+            }
+
+            return new Task(
+                    rs.getInt("id"),
+                    rs.getString("task_name"),
+                    statusId,
+                    categoryId,
+                    userId,
+                    username,
+                    micros(rs, "created_date"),
+                    micros(rs, "updated_date"),
+                    rs.getInt("version"),
+                    micros(rs, "due_date"));
+        }
+
+        // RETURNING rows of single-table statements (no username/name columns)
+        static Task unjoined(ResultSet rs) throws SQLException {
+            return new Task(
+                    rs.getInt("id"),
+                    rs.getString("task_name"),
+                    rs.getInt("status_id"),
+                    rs.getInt("category_id"),
+                    rs.getInt("user_id"),
+                    null,
+                    micros(rs, "created_date"),
+                    micros(rs, "updated_date"),
+                    rs.getInt("version"),
+                    micros(rs, "due_date"));
+        }
+
+        private static long micros(ResultSet rs, String column) throws SQLException {
+            Timestamp ts = rs.getTimestamp(column);
+            return ts != null ? Task.toMicros(ts.toLocalDateTime()) : Task.NONE;
+        }
+    }
+
+    public boolean isTaskOwnedBy(int taskId, int userId) throws Exception {
+        return Resilience.read(() -> {
+            String sql = "SELECT 1 FROM tasks WHERE id = ? AND user_id = ?";
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, taskId);
+                ps.setInt(2, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        });
+    }
+
+    public boolean canView(int taskId, int userId) throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection()) {
+                return passes(c, taskId, Guard.CAN_VIEW, userId);
+            }
+        });
+    }
+
+    // owned and shared tasks merged newest-update first. each branch is cut to the limit on its own index
+    // ((user_id, updated_date) on tasks, (user_id, task_updated_date, task_id) on task_shares, whose copy of
+    // updated_date a trigger keeps current) before the merge, so the cost follows the limit rather than the
+    // number of shares; limit null returns everything
+    public List<Task> listVisibleTo(int userId, Integer limit) throws Exception {
+        String columns = "t.id, t.task_name, t.status_id, t.user_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date";
+        String sql =
+                "SELECT v.id, u.name AS username, v.task_name, " +
+                        "       s.status_name AS status_name, " +
+                        "       c.category_name AS category_name, " +
+                        "       v.user_id, v.status_id, v.category_id, v.created_date, v.updated_date, v.version, v.due_date " +
+                        "FROM ( " +
+                        "    (SELECT " + columns + " FROM tasks t WHERE t.user_id = ? " +
+                        "     ORDER BY t.updated_date DESC, t.id DESC LIMIT ?) " +
+                        "    UNION ALL " +
+                        "    (SELECT " + columns + " FROM task_shares sh JOIN tasks t ON t.id = sh.task_id " +
+                        "     WHERE sh.user_id = ? AND t.user_id <> ? " +
+                        "     ORDER BY sh.task_updated_date DESC, sh.task_id DESC LIMIT ?) " +
+                        ") v " +
+                        "LEFT JOIN status s ON v.status_id = s.id " +
+                        "LEFT JOIN category c ON v.category_id = c.id " +
+                        "LEFT JOIN users u ON v.user_id = u.id " +
+                        "ORDER BY v.updated_date DESC, v.id DESC " +
+                        "LIMIT ?";
+
+        return Resilience.hedgedRead(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, userId);
+                setLimit(ps, 2, limit);
+                ps.setInt(3, userId);
+                ps.setInt(4, userId);
+                setLimit(ps, 5, limit);
+                setLimit(ps, 6, limit);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Task> out = new ArrayList<>();
+                    TaskMapper m = new TaskMapper();
+                    while (rs.next()) out.add(m.map(rs));
+                    return out;
+                }
+            }
+        });
+    }
+
+    private static void setLimit(PreparedStatement ps, int index, Integer limit) throws SQLException {
+        if (limit != null) ps.setInt(index, limit); else ps.setNull(index, Types.INTEGER);
+    }
+
+    public List<Task> listStartableTasksByUser(int userId) throws Exception {
+        return query(TaskQuery.forUser(userId).statuses("ready_to_pick", "blocked"));
+    }
+
+    public List<Task> listActiveByUser(int userId) throws Exception {
+        return query(TaskQuery.forUser(userId).excludingStatuses("deleted"));
+    }
+}
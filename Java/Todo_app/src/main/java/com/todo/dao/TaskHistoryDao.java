@@ -0,0 +1,142 @@
+package com.todo.dao;
+
+import com.todo.model.CycleTime;
+import com.todo.model.CycleTimeStats;
+import com.todo.model.StatusChange;
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// reads task_status_history; rows are written by the tasks_status_history trigger in the same statement
+// as the status change, so nothing here writes
+public class TaskHistoryDao {
+
+    public List<StatusChange> listByTask(int taskId) throws Exception {
+        return Resilience.read(() -> {
+            String sql = """
+                SELECT h.task_id, f.status_name AS from_status, s.status_name AS to_status, h.changed_at
+                FROM task_status_history h
+                LEFT JOIN status f ON f.id = h.from_status_id
+                JOIN status s ON s.id = h.to_status_id
+                WHERE h.task_id = ?
+                ORDER BY h.changed_at, h.id
+            """;
+
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, taskId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<StatusChange> out = new ArrayList<>();
+                    while (rs.next()) {
+                        out.add(new StatusChange(
+                                rs.getInt("task_id"),
+                                rs.getString("from_status"),
+                                rs.getString("to_status"),
+                                toLocal(rs.getTimestamp("changed_at"))
+                        ));
+                    }
+                    return out;
+                }
+            }
+        });
+    }
+
+    public CycleTime cycleTime(int taskId) throws Exception {
+        return Resilience.read(() -> {
+            String sql = """
+                SELECT MIN(h.changed_at) AS created_at,
+                       MIN(h.changed_at) FILTER (WHERE s.status_name = 'in_progress') AS started_at,
+                       MAX(h.changed_at) FILTER (WHERE s.status_name = 'completed') AS completed_at
+                FROM task_status_history h
+                JOIN status s ON s.id = h.to_status_id
+                WHERE h.task_id = ?
+            """;
+
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, taskId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new CycleTime(taskId,
+                            toLocal(rs.getTimestamp("created_at")),
+                            toLocal(rs.getTimestamp("started_at")),
+                            toLocal(rs.getTimestamp("completed_at")));
+                }
+            }
+        });
+    }
+
+    public CycleTimeStats statsForUser(int userId, LocalDateTime from, LocalDateTime to) throws Exception {
+        return stats("user_id", userId, from, to);
+    }
+
+    public CycleTimeStats statsForCategory(int categoryId, LocalDateTime from, LocalDateTime to) throws Exception {
+        return stats("category_id", categoryId, from, to);
+    }
+
+    // starts from the completions inside [from, to) via the (scope, to_status_id, changed_at) index,
+    // then looks up each completed task's first row and first in_progress row through (task_id, changed_at);
+    // the cost follows the number of completions in the window, not the size of the history table
+    private CycleTimeStats stats(String scopeColumn, int scopeId, LocalDateTime from, LocalDateTime to) throws Exception {
+        String sql = """
+            WITH ids AS (
+                SELECT (SELECT id FROM status WHERE status_name = 'completed') AS completed,
+                       (SELECT id FROM status WHERE status_name = 'in_progress') AS in_progress
+            ), done AS (
+                SELECT h.task_id, MAX(h.changed_at) AS completed_at
+                FROM task_status_history h, ids
+                WHERE h.%s = ? AND h.to_status_id = ids.completed
+                  AND h.changed_at >= ? AND h.changed_at < ?
+                GROUP BY h.task_id
+            ), spans AS (
+                SELECT EXTRACT(EPOCH FROM d.completed_at -
+                           (SELECT MIN(h.changed_at) FROM task_status_history h WHERE h.task_id = d.task_id)) AS lead_s,
+                       EXTRACT(EPOCH FROM d.completed_at -
+                           (SELECT MIN(h.changed_at) FROM task_status_history h, ids
+                            WHERE h.task_id = d.task_id AND h.to_status_id = ids.in_progress)) AS cycle_s
+                FROM done d
+            )
+            SELECT COUNT(*) AS completed_tasks,
+                   AVG(lead_s) AS avg_lead,
+                   percentile_cont(0.5) WITHIN GROUP (ORDER BY lead_s) AS median_lead,
+                   AVG(cycle_s) AS avg_cycle,
+                   percentile_cont(0.5) WITHIN GROUP (ORDER BY cycle_s) AS median_cycle
+            FROM spans
+        """.formatted(scopeColumn);
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, scopeId);
+                ps.setTimestamp(2, Timestamp.valueOf(from));
+                ps.setTimestamp(3, Timestamp.valueOf(to));
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new CycleTimeStats(
+                            rs.getLong("completed_tasks"),
+                            seconds(rs, "avg_lead"),
+                            seconds(rs, "median_lead"),
+                            seconds(rs, "avg_cycle"),
+                            seconds(rs, "median_cycle"));
+                }
+            }
+        });
+    }
+
+    private static Duration seconds(ResultSet rs, String column) throws SQLException {
+        double v = rs.getDouble(column);
+        return rs.wasNull() ? null : Duration.ofMillis(Math.round(v * 1000));
+    }
+
+    private static LocalDateTime toLocal(Timestamp ts) {
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.todo.dao;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// typed filter for one user's tasks; TaskDao.query compiles it into one of a fixed set of SQL shapes.
+// unset filters match everything; status and category are given by name
+public class TaskQuery {
+
+    public enum Sort {
+        // the owner's order (TaskService.moveBefore/moveAfter), then tasks never moved, most recently updated first;
+        // matches idx_tasks_user_rank
+        MANUAL("t.rank_key, t.updated_date DESC, t.id DESC"),
+        UPDATED_DESC("t.updated_date DESC, t.id DESC"),
+        CREATED_DESC("t.created_date DESC, t.id DESC"),
+        CREATED_ASC("t.created_date, t.id"),
+        DUE_ASC("t.due_date NULLS LAST, t.id"),
+        NAME_ASC("t.task_name, t.id");
+
+        final String orderBy;
+
+        Sort(String orderBy) {
+            this.orderBy = orderBy;
+        }
+    }
+
+    final int userId;
+    final List<String> statuses = new ArrayList<>();
+    final List<String> excludedStatuses = new ArrayList<>();
+    final List<String> categories = new ArrayList<>();
+    int[] ids;
+    LocalDateTime createdFrom, createdTo, updatedFrom, updatedTo;
+    String namePrefix;
+    Sort sort = Sort.MANUAL;
+    Integer limit;
+    boolean includeArchived;
+
+    private TaskQuery(int userId) {
+        this.userId = userId;
+    }
+
+    public static TaskQuery forUser(int userId) {
+        return new TaskQuery(userId);
+    }
+
+    public TaskQuery statuses(String... names) {
+        addNames(statuses, names);
+        return this;
+    }
+
+    public TaskQuery excludingStatuses(String... names) {
+        addNames(excludedStatuses, names);
+        return this;
+    }
+
+    public TaskQuery categories(String... names) {
+        addNames(categories, names);
+        return this;
+    }
+
+    // only these task ids (e.g. candidates from the tag index); an empty array matches nothing
+    public TaskQuery ids(int[] ids) {
+        this.ids = ids;
+        return this;
+    }
+
+    // [from, to); either end may be null
+    public TaskQuery createdBetween(LocalDateTime from, LocalDateTime to) {
+        this.createdFrom = from;
+        this.createdTo = to;
+        return this;
+    }
+
+    public TaskQuery updatedBetween(LocalDateTime from, LocalDateTime to) {
+        this.updatedFrom = from;
+        this.updatedTo = to;
+        return this;
+    }
+
+    // case-sensitive
+    public TaskQuery namePrefix(String prefix) {
+        this.namePrefix = prefix == null || prefix.isEmpty() ? null : prefix;
+        return this;
+    }
+
+    public TaskQuery sort(Sort sort) {
+        this.sort = sort != null ? sort : Sort.MANUAL;
+        return this;
+    }
+
+    public TaskQuery limit(Integer limit) {
+        if (limit != null && limit < 1) throw new IllegalArgumentException("Limit must be at least 1.");
+        this.limit = limit;
+        return this;
+    }
+
+    public TaskQuery includeArchived(boolean includeArchived) {
+        this.includeArchived = includeArchived;
+        return this;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    private static void addNames(List<String> target, String... names) {
+        if (names == null) return;
+        Arrays.stream(names)
+                .filter(n -> n != null && !n.isBlank())
+                .map(String::trim)
+                .forEach(target::add);
+    }
+}
@@ -0,0 +1,109 @@
+package com.todo.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// turns a TaskQuery into SQL. the text depends only on the query's shape: which of the status-in,
+// status-not-in, category and task-id filters are present, whether archived rows are included, and the sort.
+// that is at most 2^5 * 6 = 192 distinct statements however the values vary, because
+//   - id lists are bound as one array parameter (= ANY(?)) instead of an IN list per length,
+//   - date ranges and the name prefix are always present, bound to open bounds / '%' when unset,
+//   - LIMIT is always present and bound to NULL (no limit) when unset.
+// a connection that reuses statements (the bound connection in script mode) therefore gets the driver's
+// server-side prepared statements and the server's cached plans instead of a new parse/plan per variant
+public final class TaskQueryCompiler {
+    static final int STATUS_IN = 1;
+    static final int STATUS_NOT_IN = 2;
+    static final int CATEGORY_IN = 4;
+    static final int ARCHIVED = 8;
+    static final int ID_IN = 16;
+    private static final int FLAG_BITS = 5;
+
+    public record Stats(int shapes, long compiled, long reused) {
+        public double hitRate() {
+            long total = compiled + reused;
+            return total == 0 ? 0 : (double) reused / total;
+        }
+    }
+
+    private static final AtomicReferenceArray<String> shapes =
+            new AtomicReferenceArray<>((1 << FLAG_BITS) * TaskQuery.Sort.values().length);
+    private static final AtomicLong compiled = new AtomicLong();
+    private static final AtomicLong reused = new AtomicLong();
+
+    static int shape(int flags, TaskQuery.Sort sort) {
+        return (sort.ordinal() << FLAG_BITS) | flags;
+    }
+
+    // the statement for a query whose status/category names resolved to these ids
+    static String sql(TaskQuery q, Integer[] statusIds, Integer[] excludedIds, Integer[] categoryIds) {
+        int flags = (q.ids != null ? ID_IN : 0)
+                | (statusIds.length > 0 ? STATUS_IN : 0)
+                | (excludedIds.length > 0 ? STATUS_NOT_IN : 0)
+                | (categoryIds.length > 0 ? CATEGORY_IN : 0)
+                | (q.includeArchived ? ARCHIVED : 0);
+        return sql(shape(flags, q.sort));
+    }
+
+    static String sql(int shape) {
+        String sql = shapes.get(shape);
+        if (sql != null) {
+            reused.incrementAndGet();
+            return sql;
+        }
+        compiled.incrementAndGet();
+        sql = build(shape);
+        shapes.compareAndSet(shape, null, sql);
+        return sql;
+    }
+
+    public static Stats stats() {
+        int n = 0;
+        for (int i = 0; i < shapes.length(); i++) if (shapes.get(i) != null) n++;
+        return new Stats(n, compiled.get(), reused.get());
+    }
+
+    // parameter order: user_id, [task ids], [status ids], [excluded status ids], [category ids],
+    // created from/to, updated from/to, name pattern, limit
+    private static String build(int shape) {
+        int flags = shape & ((1 << FLAG_BITS) - 1);
+        TaskQuery.Sort sort = TaskQuery.Sort.values()[shape >>> FLAG_BITS];
+
+        String source = (flags & ARCHIVED) == 0
+                ? "tasks t "
+                : "( " +
+                  "    SELECT id, task_name, status_id, user_id, category_id, created_date, updated_date, version, due_date, rank_key " +
+                  "    FROM tasks " +
+                  "    UNION ALL " +
+                  // archived rows keep no place in the manual order
+                  "    SELECT id, task_name, status_id, user_id, category_id, created_date, updated_date, version, due_date, NULL " +
+                  "    FROM tasks_archive " +
+                  ") t ";
+
+        StringBuilder sb = new StringBuilder(
+                "SELECT t.id, u.name AS username, t.task_name, " +
+                "       s.status_name AS status_name, " +
+                "       c.category_name AS category_name, " +
+                "       t.user_id, t.status_id, t.category_id, t.created_date, t.updated_date, t.version, t.due_date " +
+                "FROM " + source +
+                "LEFT JOIN status s ON t.status_id = s.id " +
+                "LEFT JOIN category c ON t.category_id = c.id " +
+                "LEFT JOIN users u ON t.user_id = u.id " +
+                "WHERE t.user_id = ? ");
+
+        if ((flags & ID_IN) != 0) sb.append("  AND t.id = ANY(?) ");
+        if ((flags & STATUS_IN) != 0) sb.append("  AND t.status_id = ANY(?) ");
+        if ((flags & STATUS_NOT_IN) != 0) sb.append("  AND NOT (t.status_id = ANY(?)) ");
+        if ((flags & CATEGORY_IN) != 0) sb.append("  AND t.category_id = ANY(?) ");
+
+        sb.append("  AND t.created_date >= ? AND t.created_date < ? ")
+          .append("  AND t.updated_date >= ? AND t.updated_date < ? ")
+          .append("  AND t.task_name LIKE ? ")
+          .append("ORDER BY ").append(sort.orderBy).append(' ')
+          .append("LIMIT ?");
+        return sb.toString();
+    }
+
+    private TaskQueryCompiler() {
+    }
+}
@@ -0,0 +1,88 @@
+package com.todo.dao;
+
+import com.todo.model.SharePermission;
+import com.todo.model.TaskShare;
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// task_shares rows; every write is owner-only and the ownership check is part of the statement
+public class TaskShareDao {
+
+    // returns false when the task is not the owner's or the user does not exist; sharing again changes the permission
+    public boolean share(int taskId, int ownerUserId, String username, SharePermission permission) throws Exception {
+        String sql = """
+            INSERT INTO task_shares (task_id, user_id, permission, task_updated_date)
+            SELECT t.id, u.id, ?, t.updated_date
+            FROM tasks t
+            JOIN users u ON u.name = ?
+            WHERE t.id = ? AND t.user_id = ? AND u.id <> t.user_id
+            ON CONFLICT (task_id, user_id) DO UPDATE SET permission = EXCLUDED.permission
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, permission.dbValue());
+            ps.setString(2, username);
+            ps.setInt(3, taskId);
+            ps.setInt(4, ownerUserId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    public boolean unshare(int taskId, int ownerUserId, String username) throws Exception {
+        String sql = """
+            DELETE FROM task_shares sh
+            USING tasks t, users u
+            WHERE sh.task_id = t.id AND sh.user_id = u.id
+              AND t.id = ? AND t.user_id = ? AND u.name = ?
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, taskId);
+            ps.setInt(2, ownerUserId);
+            ps.setString(3, username);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    // the owner and anyone the task is shared with may see who else has it
+    public List<TaskShare> listShares(int taskId, int viewerUserId) throws Exception {
+        String sql = """
+            SELECT sh.task_id, sh.user_id, u.name AS username, sh.permission, sh.shared_date
+            FROM task_shares sh
+            JOIN tasks t ON t.id = sh.task_id
+            JOIN users u ON u.id = sh.user_id
+            WHERE sh.task_id = ?
+              AND (t.user_id = ? OR EXISTS (SELECT 1 FROM task_shares me WHERE me.task_id = t.id AND me.user_id = ?))
+            ORDER BY u.name
+        """;
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, taskId);
+                ps.setInt(2, viewerUserId);
+                ps.setInt(3, viewerUserId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<TaskShare> out = new ArrayList<>();
+                    while (rs.next()) {
+                        Timestamp shared = rs.getTimestamp("shared_date");
+                        out.add(new TaskShare(
+                                rs.getInt("task_id"),
+                                rs.getInt("user_id"),
+                                rs.getString("username"),
+                                SharePermission.fromDb(rs.getString("permission")),
+                                shared != null ? shared.toLocalDateTime() : null));
+                    }
+                    return out;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package com.todo.dao;
+
+import com.todo.model.Recurrence;
+import com.todo.model.TaskTemplate;
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TaskTemplateDao {
+
+    public int create(int userId, int categoryId, String taskName, Recurrence recurrence, int weekdayMask,
+                      Integer dayOfMonth, LocalTime dueTime, LocalDate startsOn, LocalDate endsOn) throws Exception {
+        String sql = """
+            INSERT INTO task_templates (user_id, category_id, task_name, frequency, weekday_mask,
+                                        day_of_month, due_time, starts_on, ends_on)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            RETURNING id
+        """;
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, categoryId);
+            ps.setString(3, taskName);
+            ps.setString(4, recurrence.dbValue());
+            ps.setInt(5, weekdayMask);
+            if (dayOfMonth != null) ps.setInt(6, dayOfMonth); else ps.setNull(6, Types.SMALLINT);
+            ps.setTime(7, dueTime != null ? Time.valueOf(dueTime) : null);
+            ps.setDate(8, Date.valueOf(startsOn));
+            ps.setDate(9, endsOn != null ? Date.valueOf(endsOn) : null);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt("id");
+            }
+        }
+    }
+
+    public List<TaskTemplate> listByUser(int userId) throws Exception {
+        return Resilience.read(() -> {
+            String sql = """
+                SELECT tt.id, tt.user_id, tt.task_name, c.category_name, tt.frequency, tt.weekday_mask,
+                       tt.day_of_month, tt.due_time, tt.starts_on, tt.ends_on, tt.active
+                FROM task_templates tt
+                JOIN category c ON c.id = tt.category_id
+                WHERE tt.user_id = ?
+                ORDER BY tt.active DESC, tt.id
+            """;
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, userId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<TaskTemplate> out = new ArrayList<>();
+                    while (rs.next()) {
+                        int day = rs.getInt("day_of_month");
+                        Integer dayOfMonth = rs.wasNull() ? null : day;
+                        Time dueTime = rs.getTime("due_time");
+                        Date endsOn = rs.getDate("ends_on");
+                        out.add(new TaskTemplate(
+                                rs.getInt("id"),
+                                rs.getInt("user_id"),
+                                rs.getString("task_name"),
+                                rs.getString("category_name"),
+                                Recurrence.fromDb(rs.getString("frequency")),
+                                rs.getInt("weekday_mask"),
+                                dayOfMonth,
+                                dueTime != null ? dueTime.toLocalTime() : null,
+                                rs.getDate("starts_on").toLocalDate(),
+                                endsOn != null ? endsOn.toLocalDate() : null,
+                                rs.getBoolean("active")));
+                    }
+                    return out;
+                }
+            }
+        });
+    }
+
+    // already materialized occurrences stay; only future runs skip the template
+    public boolean deactivate(int templateId, int userId) throws Exception {
+        String sql = "UPDATE task_templates SET active = FALSE WHERE id = ? AND user_id = ?";
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, templateId);
+            ps.setInt(2, userId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    // one set-based statement per partition (templates with id % partitions = partition):
+    // claims the templates not yet materialized through the horizon, expands each into its days with
+    // generate_series, keeps the days matching the rule and inserts them as ready_to_pick tasks.
+    // materialized_through keeps re-runs from regenerating old days, and the unique
+    // (template_id, occurrence_date) index makes any overlap a no-op, so running twice never duplicates.
+    public int materialize(int partitions, int partition, int readyStatusId, LocalDate from, LocalDate horizon) throws Exception {
+        String sql = """
+            WITH claimed AS (
+                UPDATE task_templates t
+                SET materialized_through = ?
+                FROM task_templates prev
+                WHERE prev.id = t.id
+                  AND t.active AND t.id % ? = ?
+                  AND (t.materialized_through IS NULL OR t.materialized_through < ?)
+                RETURNING t.id, t.user_id, t.category_id, t.task_name, t.frequency, t.weekday_mask,
+                          t.day_of_month, t.due_time,
+                          GREATEST(t.starts_on, ?::date, prev.materialized_through + 1) AS first_day,
+                          LEAST(COALESCE(t.ends_on, ?::date), ?::date) AS last_day
+            ), days AS (
+                SELECT cl.*, d::date AS day
+                FROM claimed cl
+                CROSS JOIN LATERAL generate_series(cl.first_day, cl.last_day, INTERVAL '1 day') AS d
+            )
+            INSERT INTO tasks (task_name, status_id, user_id, category_id, created_date, updated_date,
+                               due_date, template_id, occurrence_date)
+            SELECT d.task_name, ?, d.user_id, d.category_id, NOW(), NOW(), d.day + d.due_time, d.id, d.day
+            FROM days d
+            WHERE CASE d.frequency
+                      WHEN 'daily' THEN TRUE
+                      WHEN 'weekly' THEN (d.weekday_mask & (1 << (EXTRACT(ISODOW FROM d.day)::int - 1))) <> 0
+                      WHEN 'monthly' THEN EXTRACT(DAY FROM d.day) =
+                          LEAST(d.day_of_month, EXTRACT(DAY FROM date_trunc('month', d.day) + INTERVAL '1 month - 1 day'))
+                      ELSE FALSE
+                  END
+            ON CONFLICT (template_id, occurrence_date) WHERE template_id IS NOT NULL DO NOTHING
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(horizon));
+            ps.setInt(2, partitions);
+            ps.setInt(3, partition);
+            ps.setDate(4, Date.valueOf(horizon));
+            ps.setDate(5, Date.valueOf(from));
+            ps.setDate(6, Date.valueOf(horizon));
+            ps.setDate(7, Date.valueOf(horizon));
+            ps.setInt(8, readyStatusId);
+            return ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.todo.dao;
+
+import com.todo.util.DB;
+import com.todo.util.Resilience;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// task_closure: one row per (ancestor, descendant) pair with the distance between them (1 = direct parent), no
+// rows for a task and itself. subtree, ancestors and progress are single lookups on the primary key or on
+// idx_task_closure_descendant; moving a subtree rewrites only the pairs that cross its top edge.
+// callers run structural changes as one transaction that starts with lockChains()
+public class TaskTreeDao {
+
+    // non-deleted tasks below a task, and how many of them are completed
+    public record Progress(int total, int completed) {
+        public int percent() {
+            return total == 0 ? 100 : completed * 100 / total;
+        }
+    }
+
+    // locks the given tasks and all of their ancestors, in id order. two moves that could close a cycle between
+    // them always share a row here (each locks its own subtree root, and that root sits on the other's chain),
+    // so the second waits and then checks isDescendant against the first's result; changes in unrelated trees
+    // never wait on each other. ids that are not tasks are skipped
+    public void lockChains(int... taskIds) throws Exception {
+        String sql = """
+            SELECT t.id
+            FROM tasks t
+            WHERE t.id = ANY(?)
+               OR t.id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = ANY(?))
+            ORDER BY t.id
+            FOR UPDATE OF t
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            Object[] ids = Arrays.stream(taskIds).boxed().toArray();
+            ps.setArray(1, c.createArrayOf("integer", ids));
+            ps.setArray(2, c.createArrayOf("integer", ids));
+            ps.executeQuery().close();
+        }
+    }
+
+    public boolean isDescendant(int taskId, int ancestorId) throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(
+                         "SELECT 1 FROM task_closure WHERE ancestor_id = ? AND descendant_id = ?")) {
+                ps.setInt(1, ancestorId);
+                ps.setInt(2, taskId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        });
+    }
+
+    // 0 for a top-level task
+    public int parentOf(int taskId) throws Exception {
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(
+                         "SELECT ancestor_id FROM task_closure WHERE descendant_id = ? AND depth = 1")) {
+                ps.setInt(1, taskId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        });
+    }
+
+    // cuts the subtree under taskId (taskId included) off its ancestors; pairs inside the subtree stay
+    public int detach(int taskId) throws Exception {
+        String sql = """
+            DELETE FROM task_closure
+            WHERE ancestor_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = ?)
+              AND (descendant_id = ? OR descendant_id IN (SELECT descendant_id FROM task_closure WHERE ancestor_id = ?))
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, taskId);
+            ps.setInt(2, taskId);
+            ps.setInt(3, taskId);
+            return ps.executeUpdate();
+        }
+    }
+
+    // hangs a detached subtree under parentId: every ancestor of the parent (and the parent) times every node
+    // of the subtree (and its root), in one statement
+    public int attach(int taskId, int parentId) throws Exception {
+        String sql = """
+            INSERT INTO task_closure (ancestor_id, descendant_id, depth)
+            SELECT a.id, s.id, a.depth + s.depth + 1
+            FROM (SELECT ancestor_id AS id, depth FROM task_closure WHERE descendant_id = ?
+                  UNION ALL SELECT ?::int, 0) a
+            CROSS JOIN
+                 (SELECT descendant_id AS id, depth FROM task_closure WHERE ancestor_id = ?
+                  UNION ALL SELECT ?::int, 0) s
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, parentId);
+            ps.setInt(2, parentId);
+            ps.setInt(3, taskId);
+            ps.setInt(4, taskId);
+            return ps.executeUpdate();
+        }
+    }
+
+    public Progress progress(int taskId, int completedStatusId, int deletedStatusId) throws Exception {
+        String sql = """
+            SELECT COUNT(*), COUNT(*) FILTER (WHERE t.status_id = ?)
+            FROM task_closure cl
+            JOIN tasks t ON t.id = cl.descendant_id
+            WHERE cl.ancestor_id = ? AND t.status_id <> ?
+        """;
+
+        return Resilience.read(() -> {
+            try (Connection c = DB.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, completedStatusId);
+                ps.setInt(2, taskId);
+                ps.setInt(3, deletedStatusId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new Progress(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        });
+    }
+
+    // locks one task row; its status, or null when there is no such task
+    public Integer lockTask(int taskId) throws Exception {
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT status_id FROM tasks WHERE id = ? FOR UPDATE")) {
+            ps.setInt(1, taskId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    // locks the task's ancestors, top-level task first. callers lock ancestors before descendants, like the
+    // parent-then-subtasks order of completing a task, so the two cannot deadlock
+    public void lockAncestors(int taskId) throws Exception {
+        String sql = """
+            SELECT t.id
+            FROM task_closure cl
+            JOIN tasks t ON t.id = cl.ancestor_id
+            WHERE cl.descendant_id = ?
+            ORDER BY cl.depth DESC
+            FOR UPDATE OF t
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, taskId);
+            ps.executeQuery().close();
+        }
+    }
+
+    // moves the task's completed ancestors to reopenStatusId; returns their ids
+    public List<Integer> reopenAncestors(int taskId, int completedStatusId, int reopenStatusId) throws Exception {
+        String sql = """
+            UPDATE tasks t SET status_id = ?, updated_date = NOW(), version = t.version + 1
+            FROM task_closure cl
+            WHERE cl.descendant_id = ? AND t.id = cl.ancestor_id AND t.status_id = ?
+            RETURNING t.id
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, reopenStatusId);
+            ps.setInt(2, taskId);
+            ps.setInt(3, completedStatusId);
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+            return ids;
+        }
+    }
+
+    // the number of subtasks (any depth) that are neither completed nor deleted. every subtask row is locked
+    // until the transaction ends, so none of them can be reopened while the caller completes the parent
+    // (the caller locks the parent itself first, see lockAncestors)
+    public int lockOpenSubtasks(int taskId, int completedStatusId, int deletedStatusId) throws Exception {
+        String sql = """
+            SELECT t.status_id
+            FROM task_closure cl
+            JOIN tasks t ON t.id = cl.descendant_id
+            WHERE cl.ancestor_id = ?
+            FOR SHARE OF t
+        """;
+
+        try (Connection c = DB.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, taskId);
+            int open = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int status = rs.getInt(1);
+                    if (status != completedStatusId && status != deletedStatusId) open++;
+                }
+            }
+            return open;
+        }
+    }
+}
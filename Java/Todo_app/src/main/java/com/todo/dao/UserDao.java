@@ -2,34 +2,41 @@ package com.todo.dao;
 
 import com.todo.model.User;
 import com.todo.util.DB;
+import com.todo.util.Resilience;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class UserDao {
 
     public Optional<User> findByName(String name) throws SQLException{
-        String sql = "select id, name, password, created_date  from users  where name = ? ";
-
-        try(Connection connection = DB.getConnection();
-            PreparedStatement ps = connection.prepareStatement(sql)){
-            ps.setString(1,name);
-
-            try(ResultSet rs = ps.executeQuery()){
-                if(rs.next()){
-                    return Optional.of(mapUser(rs));
-                }else{
-                    return Optional.empty();
+        return Resilience.read(() -> {
+            String sql = "select id, name, password, created_date  from users  where name = ? ";
+
+            try(Connection connection = DB.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)){
+                ps.setString(1,name);
+
+                try(ResultSet rs = ps.executeQuery()){
+                    if(rs.next()){
+                        return Optional.of(mapUser(rs));
+                    }else{
+                        return Optional.empty();
+                    }
                 }
             }
-        }
+        });
     }
 
-    public User createUser(String name, String password) throws SQLException {
+    // one round trip: a taken name comes back empty instead of as a unique violation, so two concurrent
+    // registrations of the same name cannot both pass a check and then race on the insert
+    public Optional<User> createUserIfAbsent(String name, String password) throws SQLException {
         String sql = """
             INSERT INTO users (name, password, created_date)
             VALUES (?, ?, NOW())
+            ON CONFLICT (name) DO NOTHING
             RETURNING id, name, password, created_date
         """;
 
@@ -40,26 +47,57 @@ public class UserDao {
             ps.setString(2, password);
 
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return mapUser(rs);
-                throw new SQLException("Failed to create user.");
+                return rs.next() ? Optional.of(mapUser(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    public long countUsers() throws SQLException {
+        return Resilience.read(() -> {
+            try (Connection conn = DB.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM users");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        });
+    }
+
+    // streams every username through a cursor (the driver needs autocommit off to fetch in batches)
+    public void forEachName(Consumer<String> consumer) throws SQLException {
+        try (Connection conn = DB.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            if (autoCommit) conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement("SELECT name FROM users")) {
+                ps.setFetchSize(5000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) consumer.accept(rs.getString(1));
+                }
+            } finally {
+                if (autoCommit) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
             }
         }
     }
 
     public Optional<User> validateLogin(String name, String password) throws SQLException {
-        String sql = "SELECT id, name, password, created_date FROM users WHERE name = ? AND password = ?";
+        return Resilience.read(() -> {
+            String sql = "SELECT id, name, password, created_date FROM users WHERE name = ? AND password = ?";
 
-        try (Connection conn = DB.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (Connection conn = DB.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setString(1, name);
-            ps.setString(2, password);
+                ps.setString(1, name);
+                ps.setString(2, password);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return Optional.of(mapUser(rs));
-                return Optional.empty();
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return Optional.of(mapUser(rs));
+                    return Optional.empty();
+                }
             }
-        }
+        });
     }
 
     private User mapUser(ResultSet rs) throws SQLException {
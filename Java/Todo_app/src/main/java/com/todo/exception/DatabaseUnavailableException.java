@@ -0,0 +1,14 @@
+package com.todo.exception;
+
+// the circuit breaker is open: recent calls kept failing with connection-level errors, so we fail fast for a while
+public class DatabaseUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+
+    public DatabaseUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
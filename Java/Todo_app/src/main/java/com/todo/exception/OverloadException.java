@@ -0,0 +1,25 @@
+package com.todo.exception;
+
+// admission control turned the call away before it reached the database
+public class OverloadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public enum Reason { RATE_LIMITED, QUEUE_FULL, WAIT_TIMEOUT }
+
+    private final Reason reason;
+    private final int userId;
+
+    public OverloadException(Reason reason, int userId, String message) {
+        super(message);
+        this.reason = reason;
+        this.userId = userId;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.todo.exception;
+
+// thrown when a conditional update finds the task at a different version than the caller read
+public class TaskConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int taskId;
+    private final int expectedVersion;
+
+    public TaskConflictException(int taskId, int expectedVersion) {
+        super("Task " + taskId + " was changed by someone else (expected version " + expectedVersion
+                + "). Please reload and try again.");
+        this.taskId = taskId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,66 @@
+package com.todo.model;
+
+import java.time.LocalDateTime;
+
+// metadata only; the content lives in the blob store under contentHash
+public class Attachment {
+    public static final String NOTE = "note";
+    public static final String FILE = "file";
+
+    private int id;
+    private int taskId;
+    private int userId;
+    private String kind;
+    private String fileName;
+    private String contentHash;
+    private long sizeBytes;
+    private LocalDateTime createdDate;
+
+    public Attachment(int id, int taskId, int userId, String kind, String fileName, String contentHash,
+                      long sizeBytes, LocalDateTime createdDate) {
+        this.id = id;
+        this.taskId = taskId;
+        this.userId = userId;
+        this.kind = kind;
+        this.fileName = fileName;
+        this.contentHash = contentHash;
+        this.sizeBytes = sizeBytes;
+        this.createdDate = createdDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public boolean isNote() {
+        return NOTE.equals(kind);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public LocalDateTime getCreatedDate() {
+        return createdDate;
+    }
+}
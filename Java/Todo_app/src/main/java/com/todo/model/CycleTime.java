@@ -0,0 +1,44 @@
+package com.todo.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// lead time = created -> completed, cycle time = first started -> completed
+public class CycleTime {
+    private int taskId;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    public CycleTime(int taskId, LocalDateTime createdAt, LocalDateTime startedAt, LocalDateTime completedAt) {
+        this.taskId = taskId;
+        this.createdAt = createdAt;
+        this.startedAt = startedAt;
+        this.completedAt = completedAt;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    // null while the task is not completed
+    public Duration getLeadTime() {
+        return createdAt != null && completedAt != null ? Duration.between(createdAt, completedAt) : null;
+    }
+
+    public Duration getCycleTime() {
+        return startedAt != null && completedAt != null ? Duration.between(startedAt, completedAt) : null;
+    }
+}
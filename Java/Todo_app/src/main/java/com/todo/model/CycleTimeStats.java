@@ -0,0 +1,41 @@
+package com.todo.model;
+
+import java.time.Duration;
+
+// aggregate over the tasks completed in a time window
+public class CycleTimeStats {
+    private long completedTasks;
+    private Duration avgLeadTime;
+    private Duration medianLeadTime;
+    private Duration avgCycleTime;
+    private Duration medianCycleTime;
+
+    public CycleTimeStats(long completedTasks, Duration avgLeadTime, Duration medianLeadTime,
+                          Duration avgCycleTime, Duration medianCycleTime) {
+        this.completedTasks = completedTasks;
+        this.avgLeadTime = avgLeadTime;
+        this.medianLeadTime = medianLeadTime;
+        this.avgCycleTime = avgCycleTime;
+        this.medianCycleTime = medianCycleTime;
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks;
+    }
+
+    public Duration getAvgLeadTime() {
+        return avgLeadTime;
+    }
+
+    public Duration getMedianLeadTime() {
+        return medianLeadTime;
+    }
+
+    public Duration getAvgCycleTime() {
+        return avgCycleTime;
+    }
+
+    public Duration getMedianCycleTime() {
+        return medianCycleTime;
+    }
+}
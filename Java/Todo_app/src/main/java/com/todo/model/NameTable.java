@@ -0,0 +1,61 @@
+package com.todo.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// append-only id <-> name table for the small lookup tables; tasks keep the id and resolve the name here,
+// so all tasks in memory share one String per status/category instead of a copy per row.
+// ids are the database ids (> 0); 0 means "no value"; names that were never seen with a database id
+// (hand-built Task objects) get negative ids of their own
+public final class NameTable {
+    public static final NameTable STATUS = new NameTable();
+    public static final NameTable CATEGORY = new NameTable();
+
+    private volatile String[] byId = new String[16];
+    private final Map<Integer, String> synthetic = new ConcurrentHashMap<>();
+    private final Map<String, Integer> byName = new ConcurrentHashMap<>();
+    private int nextSynthetic = -1;
+
+    public String name(int id) {
+        if (id > 0) {
+            String[] names = byId;
+            return id < names.length ? names[id] : null;
+        }
+        return id == 0 ? null : synthetic.get(id);
+    }
+
+    public boolean contains(int id) {
+        return name(id) != null;
+    }
+
+    public synchronized void put(int id, String name) {
+        if (id <= 0) throw new IllegalArgumentException("Database ids are positive: " + id);
+        String[] names = byId;
+        if (id >= names.length) names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+        else names = names.clone();
+        names[id] = name;
+        byId = names;
+        byName.put(name, id);
+    }
+
+    public Integer idOf(String name) {
+        return name == null ? null : byName.get(name);
+    }
+
+    // id for a name, making up a negative one if the database id is not known yet
+    public int intern(String name) {
+        if (name == null) return 0;
+        Integer id = byName.get(name);
+        if (id != null) return id;
+
+        synchronized (this) {
+            id = byName.get(name);
+            if (id != null) return id;
+            int s = nextSynthetic--;
+            synthetic.put(s, name);
+            byName.put(name, s);
+            return s;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.todo.model;
+
+// stored lower-case in task_templates.frequency
+public enum Recurrence {
+    DAILY, WEEKLY, MONTHLY;
+
+    public String dbValue() {
+        return name().toLowerCase();
+    }
+
+    public static Recurrence fromDb(String value) {
+        return valueOf(value.toUpperCase());
+    }
+}
@@ -0,0 +1,14 @@
+package com.todo.model;
+
+// stored lower-case in task_shares.permission; editors may change status, name and due date, only owners delete
+public enum SharePermission {
+    VIEWER, EDITOR;
+
+    public String dbValue() {
+        return name().toLowerCase();
+    }
+
+    public static SharePermission fromDb(String value) {
+        return valueOf(value.toUpperCase());
+    }
+}
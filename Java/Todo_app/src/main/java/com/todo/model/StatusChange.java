@@ -0,0 +1,34 @@
+package com.todo.model;
+
+import java.time.LocalDateTime;
+
+public class StatusChange {
+    private int taskId;
+    private String fromStatus;
+    private String toStatus;
+    private LocalDateTime changedAt;
+
+    public StatusChange(int taskId, String fromStatus, String toStatus, LocalDateTime changedAt) {
+        this.taskId = taskId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.changedAt = changedAt;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    // null for the row written when the task was created
+    public String getFromStatus() {
+        return fromStatus;
+    }
+
+    public String getToStatus() {
+        return toStatus;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
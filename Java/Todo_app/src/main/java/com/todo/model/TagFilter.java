@@ -0,0 +1,45 @@
+package com.todo.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// tag expression: every group must match (AND) and a group matches if the task has any of its tags (OR);
+// tasks with any excluded tag are dropped (NOT). text form: "urgent work|home -later"
+public record TagFilter(List<Set<String>> groups, Set<String> excluded) {
+    private static final Pattern TAG = Pattern.compile("[\\p{L}\\p{N}_-]{1,50}");
+
+    public TagFilter {
+        groups = List.copyOf(groups);
+        excluded = Set.copyOf(excluded);
+    }
+
+    public static TagFilter parse(String expression) {
+        List<Set<String>> groups = new ArrayList<>();
+        Set<String> excluded = new LinkedHashSet<>();
+        for (String token : expression.trim().split("\\s+")) {
+            if (token.isEmpty()) continue;
+            if (token.startsWith("-")) {
+                excluded.add(normalize(token.substring(1)));
+                continue;
+            }
+            Set<String> group = new LinkedHashSet<>();
+            for (String tag : token.split("\\|")) group.add(normalize(tag));
+            groups.add(group);
+        }
+        if (groups.isEmpty() && excluded.isEmpty())
+            throw new IllegalArgumentException("Tag filter cannot be empty.");
+        return new TagFilter(groups, excluded);
+    }
+
+    // tags are stored lower-case; letters, digits, '_' and '-', at most 50 characters
+    public static String normalize(String tag) {
+        String t = tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+        if (!TAG.matcher(t).matches())
+            throw new IllegalArgumentException("Invalid tag '" + tag + "': use letters, digits, '_' or '-' (max 50).");
+        return t;
+    }
+}
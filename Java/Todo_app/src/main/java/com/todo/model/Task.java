@@ -1,32 +1,69 @@
 package com.todo.model;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
+// kept small because listings hold many of these: status and category are ids resolved through NameTable,
+// the username String is shared by every task of a result set (see TaskDao), and timestamps are stored as
+// wall-clock microseconds and turned back into LocalDateTime only when a getter asks for one
 public class Task {
+    // "no timestamp" marker for the micros fields
+    public static final long NONE = Long.MIN_VALUE;
 
     private int id;
     private String task_name;
     private String username;
-//    private int statusId;
+    private int statusId;
     private int userId;
-//    private int categoryId;
-    private LocalDateTime createdDate;
-    private LocalDateTime updatedDate;
-    private String status_name;
-    private String category_name;
+    private int categoryId;
+    private int version;
+    private long createdMicros;
+    private long updatedMicros;
+    private long dueMicros;
 
+    public Task(int id, String task_name, String status_name, String username, String category_name,
+                LocalDateTime createdDate, LocalDateTime updatedDate) {
+        this(id, task_name, NameTable.STATUS.intern(status_name), NameTable.CATEGORY.intern(category_name),
+                0, username, toMicros(createdDate), toMicros(updatedDate), 0, NONE);
+    }
 
+    public Task(int id, String task_name, String status_name, String username, String category_name,
+                LocalDateTime createdDate, LocalDateTime updatedDate, int version) {
+        this(id, task_name, NameTable.STATUS.intern(status_name), NameTable.CATEGORY.intern(category_name),
+                0, username, toMicros(createdDate), toMicros(updatedDate), version, NONE);
+    }
 
+    public Task(int id, String task_name, String status_name, int userId, String username, String category_name,
+                LocalDateTime createdDate, LocalDateTime updatedDate, int version, LocalDateTime dueDate) {
+        this(id, task_name, NameTable.STATUS.intern(status_name), NameTable.CATEGORY.intern(category_name),
+                userId, username, toMicros(createdDate), toMicros(updatedDate), version, toMicros(dueDate));
+    }
 
-    public Task(int id, String task_name, String status_name, String username, String category_name,
-                LocalDateTime createdDate, LocalDateTime updatedDate) {
+    // row form used by TaskDao: ids as stored in the tasks table, timestamps from toMicros
+    public Task(int id, String task_name, int statusId, int categoryId, int userId, String username,
+                long createdMicros, long updatedMicros, int version, long dueMicros) {
         this.id = id;
         this.task_name = task_name;
-        this.status_name = status_name;
+        this.statusId = statusId;
+        this.categoryId = categoryId;
+        this.userId = userId;
         this.username = username;
-        this.category_name = category_name;
-        this.createdDate = createdDate;
-        this.updatedDate = updatedDate;
+        this.createdMicros = createdMicros;
+        this.updatedMicros = updatedMicros;
+        this.version = version;
+        this.dueMicros = dueMicros;
+    }
+
+    // the zone is irrelevant: it only has to map the same wall-clock time back and forth
+    public static long toMicros(LocalDateTime t) {
+        if (t == null) return NONE;
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + t.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromMicros(long micros) {
+        if (micros == NONE) return null;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
     }
 
     public int getId() {
@@ -37,24 +74,32 @@ public class Task {
         return task_name;
     }
 
-//    public int getStatusId() {
-//        return statusId;
-//    }
+    public int getStatusId() {
+        return statusId;
+    }
 
-//    public int getUserId() {
-//        return userId;
-//    }
+    public int getUserId() {
+        return userId;
+    }
 
-//    public int getCategoryId() {
-//        return categoryId;
-//    }
+    public int getCategoryId() {
+        return categoryId;
+    }
 
     public LocalDateTime getCreatedDate() {
-        return createdDate;
+        return fromMicros(createdMicros);
     }
 
     public LocalDateTime getUpdatedDate() {
-        return updatedDate;
+        return fromMicros(updatedMicros);
+    }
+
+    public long getCreatedMicros() {
+        return createdMicros;
+    }
+
+    public long getUpdatedMicros() {
+        return updatedMicros;
     }
 
     public String getUsername() {
@@ -62,10 +107,24 @@ public class Task {
     }
 
     public String getStatusName() {
-        return status_name;
+        return NameTable.STATUS.name(statusId);
     }
 
     public String getCategoryName() {
-        return category_name;
+        return NameTable.CATEGORY.name(categoryId);
+    }
+
+    // null when the task has no due date
+    public LocalDateTime getDueDate() {
+        return fromMicros(dueMicros);
+    }
+
+    public long getDueMicros() {
+        return dueMicros;
+    }
+
+    // row version, bumped by every update; pass it back for conditional updates
+    public int getVersion() {
+        return version;
     }
 }
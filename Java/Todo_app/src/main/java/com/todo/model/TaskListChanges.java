@@ -0,0 +1,40 @@
+package com.todo.model;
+
+import java.util.List;
+
+// answer to "has my task list changed since stamp N": nothing (UNCHANGED), the whole list (FULL) or only the
+// tasks written since N (DELTA; soft-deleted tasks included so the caller can drop them). getStamp() is the
+// value to send next time
+public class TaskListChanges {
+    public enum Kind { UNCHANGED, FULL, DELTA }
+
+    private long stamp;
+    private Kind kind;
+    private List<Task> tasks;
+
+    public TaskListChanges(long stamp, Kind kind, List<Task> tasks) {
+        this.stamp = stamp;
+        this.kind = kind;
+        this.tasks = tasks;
+    }
+
+    public static TaskListChanges unchanged(long stamp) {
+        return new TaskListChanges(stamp, Kind.UNCHANGED, List.of());
+    }
+
+    public long getStamp() {
+        return stamp;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isChanged() {
+        return kind != Kind.UNCHANGED;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+}
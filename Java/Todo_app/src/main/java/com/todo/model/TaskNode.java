@@ -0,0 +1,64 @@
+package com.todo.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// one row of a subtree: the task, its direct parent (0 for the subtree's root) and its depth below that root
+public class TaskNode {
+    private Task task;
+    private int parentId;
+    private int depth;
+
+    public TaskNode(Task task, int parentId, int depth) {
+        this.task = task;
+        this.parentId = parentId;
+        this.depth = depth;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public int getParentId() {
+        return parentId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // depth-first order for display, siblings oldest first. iterative, so a chain thousands of levels deep is
+    // fine; a node whose parent is not among the rows (the parent was archived) is listed under the root
+    public static List<TaskNode> treeOrder(int rootId, List<TaskNode> nodes) {
+        Set<Integer> ids = new HashSet<>();
+        for (TaskNode n : nodes) ids.add(n.task.getId());
+        if (!ids.contains(rootId)) return new ArrayList<>();
+
+        TaskNode root = null;
+        Map<Integer, List<TaskNode>> children = new HashMap<>();
+        for (TaskNode n : nodes) {
+            if (n.task.getId() == rootId) root = n;
+            else children.computeIfAbsent(ids.contains(n.parentId) ? n.parentId : rootId, k -> new ArrayList<>()).add(n);
+        }
+        for (List<TaskNode> kids : children.values()) kids.sort(Comparator.comparingInt(n -> n.task.getId()));
+
+        List<TaskNode> out = new ArrayList<>(nodes.size());
+        Deque<TaskNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TaskNode n = stack.pop();
+            out.add(n);
+            List<TaskNode> kids = children.get(n.task.getId());
+            if (kids == null) continue;
+            for (int i = kids.size() - 1; i >= 0; i--) stack.push(kids.get(i));
+        }
+        return out;
+    }
+}
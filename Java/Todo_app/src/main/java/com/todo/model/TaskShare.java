@@ -0,0 +1,39 @@
+package com.todo.model;
+
+import java.time.LocalDateTime;
+
+public class TaskShare {
+    private int taskId;
+    private int userId;
+    private String username;
+    private SharePermission permission;
+    private LocalDateTime sharedDate;
+
+    public TaskShare(int taskId, int userId, String username, SharePermission permission, LocalDateTime sharedDate) {
+        this.taskId = taskId;
+        this.userId = userId;
+        this.username = username;
+        this.permission = permission;
+        this.sharedDate = sharedDate;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public SharePermission getPermission() {
+        return permission;
+    }
+
+    public LocalDateTime getSharedDate() {
+        return sharedDate;
+    }
+}
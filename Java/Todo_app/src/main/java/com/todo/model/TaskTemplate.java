@@ -0,0 +1,99 @@
+package com.todo.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+// a recurring task; RecurrenceService turns it into one task per occurrence date
+public class TaskTemplate {
+    private int id;
+    private int userId;
+    private String taskName;
+    private String categoryName;
+    private Recurrence recurrence;
+    // weekly only: bit (ISO day-of-week - 1), Monday = 1
+    private int weekdayMask;
+    // monthly only: 1-31, clamped to the last day of shorter months
+    private Integer dayOfMonth;
+    // occurrences get due_date = occurrence date + dueTime when set
+    private LocalTime dueTime;
+    private LocalDate startsOn;
+    private LocalDate endsOn;
+    private boolean active;
+
+    public TaskTemplate(int id, int userId, String taskName, String categoryName, Recurrence recurrence,
+                        int weekdayMask, Integer dayOfMonth, LocalTime dueTime,
+                        LocalDate startsOn, LocalDate endsOn, boolean active) {
+        this.id = id;
+        this.userId = userId;
+        this.taskName = taskName;
+        this.categoryName = categoryName;
+        this.recurrence = recurrence;
+        this.weekdayMask = weekdayMask;
+        this.dayOfMonth = dayOfMonth;
+        this.dueTime = dueTime;
+        this.startsOn = startsOn;
+        this.endsOn = endsOn;
+        this.active = active;
+    }
+
+    public static int weekdayMask(Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek d : days) mask |= 1 << (d.getValue() - 1);
+        return mask;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public int getWeekdayMask() {
+        return weekdayMask;
+    }
+
+    public Set<DayOfWeek> getWeekdays() {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if ((weekdayMask & (1 << (d.getValue() - 1))) != 0) days.add(d);
+        }
+        return days;
+    }
+
+    public Integer getDayOfMonth() {
+        return dayOfMonth;
+    }
+
+    public LocalTime getDueTime() {
+        return dueTime;
+    }
+
+    public LocalDate getStartsOn() {
+        return startsOn;
+    }
+
+    public LocalDate getEndsOn() {
+        return endsOn;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
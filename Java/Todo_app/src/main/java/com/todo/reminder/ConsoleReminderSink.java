@@ -0,0 +1,20 @@
+package com.todo.reminder;
+
+// prints reminders for the logged-in user only; nothing is shown while nobody is logged in
+public class ConsoleReminderSink implements ReminderSink {
+    private volatile int userId = -1;
+
+    public void setUser(int userId) {
+        this.userId = userId;
+    }
+
+    public void clearUser() {
+        this.userId = -1;
+    }
+
+    @Override
+    public void remind(Reminder r) {
+        if (r.userId() != userId) return;
+        System.out.println("\n⏰ Reminder: [" + r.taskId() + "] " + r.taskName() + " is due at " + r.dueDate());
+    }
+}
@@ -0,0 +1,39 @@
+package com.todo.reminder;
+
+import com.todo.util.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// appends one JSON object per fired reminder, e.g. for a desktop notifier tailing the file
+public class FileReminderSink implements ReminderSink {
+    private final Path path;
+
+    public FileReminderSink(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public synchronized void remind(Reminder r) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"task_id\":").append(r.taskId())
+          .append(",\"user_id\":").append(r.userId())
+          .append(",\"task\":");
+        Json.quote(sb, r.taskName());
+        sb.append(",\"due\":");
+        Json.quote(sb, r.dueDate().toString());
+        sb.append("}\n");
+
+        try (Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            w.write(sb.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
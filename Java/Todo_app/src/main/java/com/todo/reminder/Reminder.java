@@ -0,0 +1,6 @@
+package com.todo.reminder;
+
+import java.time.LocalDateTime;
+
+public record Reminder(int taskId, int userId, String taskName, LocalDateTime dueDate) {
+}
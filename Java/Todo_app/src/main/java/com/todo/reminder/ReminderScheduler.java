@@ -0,0 +1,162 @@
+package com.todo.reminder;
+
+import com.todo.dao.TaskDao;
+import com.todo.model.Task;
+import com.todo.service.TaskListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// in-process reminders: only tasks due within the next TODO_REMINDER_WINDOW_MIN minutes are held in memory,
+// read through the due_date index and topped up as time moves on; TaskService events keep the wheel in sync
+// with edits made in this process (changes made elsewhere show up with the next window load)
+public class ReminderScheduler implements TaskListener {
+    private static final long TICK_MS = Long.getLong("TODO_REMINDER_TICK_MS", 1000);
+    private static final long WINDOW_MS = TimeUnit.MINUTES.toMillis(Long.getLong("TODO_REMINDER_WINDOW_MIN", 60));
+    private static final int WHEEL_SIZE = 512;
+
+    // loads open tasks due in [from, to)
+    interface WindowLoader {
+        List<Task> load(LocalDateTime from, LocalDateTime to) throws Exception;
+    }
+
+    private final WindowLoader loader;
+    private final ReminderSink sink;
+    private final LongSupplier clock;
+    private final long windowMs;
+    private final TimingWheel<Reminder> wheel;
+    private final Map<Integer, TimingWheel.Entry<Reminder>> byTask = new HashMap<>();
+    // everything due before this instant is either in the wheel or already fired
+    private long loadedUntil;
+    private ScheduledExecutorService executor;
+
+    public ReminderScheduler(ReminderSink sink) {
+        this(new TaskDao()::listDueBetween, sink, System::currentTimeMillis, WINDOW_MS);
+    }
+
+    ReminderScheduler(WindowLoader loader, ReminderSink sink, LongSupplier clock, long windowMs) {
+        this.loader = loader;
+        this.sink = sink;
+        this.clock = clock;
+        this.windowMs = windowMs;
+        long now = clock.getAsLong();
+        this.wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, now);
+        // overdue tasks are not replayed on start
+        this.loadedUntil = now;
+    }
+
+    public synchronized void start() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "todo-reminders");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleAtFixedRate(this::tick, 0, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    public synchronized int pending() {
+        return wheel.size();
+    }
+
+    synchronized void tick() {
+        long now = clock.getAsLong();
+        // top up once half the window has been consumed, so a slow query never leaves a gap
+        if (loadedUntil - now < windowMs / 2) loadWindow(now + windowMs);
+
+        wheel.advanceTo(now, r -> {
+            byTask.remove(r.taskId());
+            try {
+                sink.remind(r);
+            } catch (RuntimeException e) {
+                System.err.println("Reminder sink failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void loadWindow(long until) {
+        List<Task> due;
+        try {
+            due = loader.load(toLocal(loadedUntil), toLocal(until));
+        } catch (Exception e) {
+            // keep loadedUntil where it is; the next tick retries the same range
+            System.err.println("Could not load reminders: " + e.getMessage());
+            return;
+        }
+        loadedUntil = until;
+        for (Task t : due) schedule(t);
+    }
+
+    private void schedule(Task t) {
+        cancel(t.getId());
+        if (t.getDueDate() == null) return;
+
+        long at = toEpochMs(t.getDueDate());
+        if (at >= loadedUntil) return; // a later window load will pick it up
+
+        Reminder r = new Reminder(t.getId(), t.getUserId(), t.getTask_name(), t.getDueDate());
+        byTask.put(t.getId(), wheel.schedule(r, at));
+    }
+
+    private void cancel(int taskId) {
+        TimingWheel.Entry<Reminder> e = byTask.remove(taskId);
+        if (e != null) wheel.cancel(e);
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public synchronized void taskDueDateChanged(Task task) {
+        schedule(task);
+    }
+
+    // bulk inserts carry no per-task events, so the current window is read again from now on
+    @Override
+    public synchronized void tasksBulkAdded() {
+        for (TimingWheel.Entry<Reminder> e : byTask.values()) wheel.cancel(e);
+        byTask.clear();
+        loadedUntil = clock.getAsLong();
+        loadWindow(loadedUntil + windowMs);
+    }
+
+    @Override
+    public synchronized void taskRenamed(int taskId, String newName) {
+        TimingWheel.Entry<Reminder> e = byTask.remove(taskId);
+        if (e == null) return;
+
+        wheel.cancel(e);
+        Reminder old = e.getPayload();
+        Reminder r = new Reminder(taskId, old.userId(), newName, old.dueDate());
+        byTask.put(taskId, wheel.schedule(r, e.getExpiration()));
+    }
+
+    @Override
+    public synchronized void taskStatusChanged(int taskId, String statusName) {
+        if (statusName.equals("completed") || statusName.equals("deleted")) cancel(taskId);
+    }
+
+    private static long toEpochMs(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
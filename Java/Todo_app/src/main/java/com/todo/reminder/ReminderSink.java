@@ -0,0 +1,18 @@
+package com.todo.reminder;
+
+import java.nio.file.Paths;
+
+// where fired reminders go; called from the scheduler thread, so implementations must not block for long
+public interface ReminderSink {
+
+    void remind(Reminder reminder);
+
+    // TODO_REMINDERS=console (default) | file:<path> | off
+    static ReminderSink fromConfig() {
+        String spec = System.getProperty("TODO_REMINDERS", "console").trim();
+        if (spec.equalsIgnoreCase("off")) return null;
+        if (spec.startsWith("file:")) return new FileReminderSink(Paths.get(spec.substring(5)));
+        if (spec.equalsIgnoreCase("console")) return new ConsoleReminderSink();
+        throw new IllegalArgumentException("Unknown TODO_REMINDERS value: " + spec);
+    }
+}
@@ -0,0 +1,183 @@
+package com.todo.reminder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// hierarchical timing wheel (Varghese & Lauck): level 0 has wheelSize buckets of tickMs each, level n has
+// buckets of tickMs * wheelSize^n, and higher levels are added on demand for far-away expirations.
+// schedule and cancel are O(1) (unlink from a doubly linked bucket); advancing one tick drains one bucket per level
+// whose slot starts at the new time, re-inserting entries of higher levels into finer ones.
+// not thread-safe: the owner serializes access.
+public class TimingWheel<T> {
+
+    public static final class Entry<T> {
+        private final T payload;
+        private final long expiration;
+        private Bucket<T> bucket;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        private Entry(T payload, long expiration) {
+            this.payload = payload;
+            this.expiration = expiration;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getExpiration() {
+            return expiration;
+        }
+
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private final Entry<T> head = new Entry<>(null, 0);
+
+        Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void add(Entry<T> e) {
+            e.bucket = this;
+            e.prev = head.prev;
+            e.next = head;
+            head.prev.next = e;
+            head.prev = e;
+        }
+
+        void remove(Entry<T> e) {
+            e.prev.next = e.next;
+            e.next.prev = e.prev;
+            e.prev = null;
+            e.next = null;
+            e.bucket = null;
+        }
+
+        // detaches every entry and hands it to the consumer
+        void drain(Consumer<Entry<T>> consumer) {
+            Entry<T> e = head.next;
+            head.next = head;
+            head.prev = head;
+            while (e != head) {
+                Entry<T> next = e.next;
+                e.prev = null;
+                e.next = null;
+                e.bucket = null;
+                consumer.accept(e);
+                e = next;
+            }
+        }
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    // levels.get(n) holds the buckets of level n; tick of level n is ticks.get(n)
+    private final List<Bucket<T>[]> levels = new ArrayList<>();
+    private final List<Long> ticks = new ArrayList<>();
+    // entries that were already due when scheduled, fired on the next advance
+    private final Bucket<T> due = new Bucket<>();
+
+    private long currentTime;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) throw new IllegalArgumentException("tickMs > 0 and wheelSize >= 2 required");
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - (startMs % tickMs);
+        addLevel();
+    }
+
+    public Entry<T> schedule(T payload, long expirationMs) {
+        Entry<T> e = new Entry<>(payload, expirationMs);
+        place(e);
+        size++;
+        return e;
+    }
+
+    // O(1); returns false if the entry already fired or was cancelled
+    public boolean cancel(Entry<T> e) {
+        if (e.bucket == null) return false;
+        e.bucket.remove(e);
+        size--;
+        return true;
+    }
+
+    // moves the wheel forward to nowMs and passes every expired payload to onExpire
+    public void advanceTo(long nowMs, Consumer<T> onExpire) {
+        Consumer<Entry<T>> fire = e -> {
+            size--;
+            onExpire.accept(e.payload);
+        };
+        due.drain(fire);
+
+        long target = nowMs - (nowMs % tickMs);
+        if (size == 0) {
+            currentTime = Math.max(currentTime, target);
+            return;
+        }
+
+        while (currentTime < target) {
+            currentTime += tickMs;
+
+            // cascade from the coarsest level whose slot starts now down to level 1
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                long tick = ticks.get(level);
+                if (currentTime % tick != 0) continue;
+                bucketFor(level, currentTime).drain(this::place);
+            }
+            due.drain(fire);
+            bucketFor(0, currentTime).drain(fire);
+
+            if (size == 0) {
+                currentTime = Math.max(currentTime, target);
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    private void place(Entry<T> e) {
+        if (e.expiration < currentTime + tickMs) {
+            due.add(e);
+            return;
+        }
+        for (int level = 0; ; level++) {
+            if (level == levels.size()) addLevel();
+            long tick = ticks.get(level);
+            long levelStart = currentTime - (currentTime % tick);
+            if (e.expiration < levelStart + tick * wheelSize) {
+                bucketFor(level, e.expiration).add(e);
+                return;
+            }
+        }
+    }
+
+    private Bucket<T> bucketFor(int level, long time) {
+        long tick = ticks.get(level);
+        return levels.get(level)[(int) ((time / tick) % wheelSize)];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void addLevel() {
+        long tick = levels.isEmpty() ? tickMs : Math.multiplyExact(ticks.get(ticks.size() - 1), (long) wheelSize);
+        Bucket<T>[] buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) buckets[i] = new Bucket<>();
+        levels.add(buckets);
+        ticks.add(tick);
+    }
+}
@@ -0,0 +1,56 @@
+package com.todo.report;
+
+// counters for one user or one category; partial results of different id ranges are combined with merge()
+public final class GroupStats {
+    long tasks;
+    long completed;
+    long inProgress;
+    long staleInProgress;
+    final int[] createdPerDay;
+    final int[] completedPerDay;
+
+    GroupStats(int days) {
+        createdPerDay = new int[days];
+        completedPerDay = new int[days];
+    }
+
+    void merge(GroupStats other) {
+        tasks += other.tasks;
+        completed += other.completed;
+        inProgress += other.inProgress;
+        staleInProgress += other.staleInProgress;
+        for (int i = 0; i < createdPerDay.length; i++) {
+            createdPerDay[i] += other.createdPerDay[i];
+            completedPerDay[i] += other.completedPerDay[i];
+        }
+    }
+
+    // tasks that were not deleted
+    public long tasks() {
+        return tasks;
+    }
+
+    public long completed() {
+        return completed;
+    }
+
+    public long inProgress() {
+        return inProgress;
+    }
+
+    public long staleInProgress() {
+        return staleInProgress;
+    }
+
+    public double completionRatio() {
+        return tasks == 0 ? 0 : (double) completed / tasks;
+    }
+
+    public int createdOn(int dayIndex) {
+        return createdPerDay[dayIndex];
+    }
+
+    public int completedOn(int dayIndex) {
+        return completedPerDay[dayIndex];
+    }
+}
@@ -0,0 +1,20 @@
+package com.todo.report;
+
+import java.util.Map;
+
+// an aggregated report with the names to print next to the ids
+public record ProductivityReport(ReportAccumulator data, Map<Integer, String> userNames,
+                                 Map<Integer, String> categoryNames, long elapsedMs) {
+
+    public ReportSpec spec() {
+        return data.spec();
+    }
+
+    public String userName(int userId) {
+        return userNames.get(userId);
+    }
+
+    public String categoryName(int categoryId) {
+        return categoryNames.get(categoryId);
+    }
+}
@@ -0,0 +1,144 @@
+package com.todo.report;
+
+import com.todo.dao.ReportDao;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// aggregates task rows. not thread-safe: every report worker fills its own accumulator and the
+// accumulators are merged afterwards, so the hot path takes no locks and shares no cache lines.
+// deleted tasks are left out entirely. the completion day of a task is the day of its last update while completed
+public final class ReportAccumulator implements ReportDao.RowHandler {
+    private final ReportSpec spec;
+    private final long staleBefore;
+    private final GroupMap byUser;
+    private final GroupMap byCategory;
+    private long rows;
+    // id ranges scanned into this one, merged ones included
+    int partitions;
+
+    public ReportAccumulator(ReportSpec spec) {
+        this.spec = spec;
+        this.staleBefore = spec.staleBeforeMicros();
+        this.byUser = new GroupMap(spec.days());
+        this.byCategory = new GroupMap(spec.days());
+    }
+
+    @Override
+    public void accept(int userId, int categoryId, int statusId, long createdMicros, long updatedMicros) {
+        rows++;
+        if (statusId == spec.deletedStatusId()) return;
+
+        boolean completed = statusId == spec.completedStatusId();
+        boolean inProgress = statusId == spec.inProgressStatusId();
+        boolean stale = inProgress && updatedMicros < staleBefore;
+        int createdDay = spec.dayIndex(createdMicros);
+        int completedDay = completed ? spec.dayIndex(updatedMicros) : -1;
+
+        add(byUser.get(userId), completed, inProgress, stale, createdDay, completedDay);
+        add(byCategory.get(categoryId), completed, inProgress, stale, createdDay, completedDay);
+    }
+
+    private static void add(GroupStats g, boolean completed, boolean inProgress, boolean stale, int createdDay, int completedDay) {
+        g.tasks++;
+        if (completed) g.completed++;
+        if (inProgress) g.inProgress++;
+        if (stale) g.staleInProgress++;
+        if (createdDay >= 0) g.createdPerDay[createdDay]++;
+        if (completedDay >= 0) g.completedPerDay[completedDay]++;
+    }
+
+    // folds other into this one and returns this
+    public ReportAccumulator merge(ReportAccumulator other) {
+        rows += other.rows;
+        partitions += other.partitions;
+        byUser.mergeFrom(other.byUser);
+        byCategory.mergeFrom(other.byCategory);
+        return this;
+    }
+
+    public ReportSpec spec() {
+        return spec;
+    }
+
+    // rows scanned, deleted ones included
+    public long rows() {
+        return rows;
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    // keyed by user id, in id order
+    public Map<Integer, GroupStats> byUser() {
+        return byUser.toMap();
+    }
+
+    // keyed by category id (0 = no category), in id order
+    public Map<Integer, GroupStats> byCategory() {
+        return byCategory.toMap();
+    }
+
+    // int -> stats with open addressing, so the per-row lookup neither boxes the id nor allocates a node
+    private static final class GroupMap {
+        private final int days;
+        private int[] keys = new int[64];
+        private GroupStats[] values = new GroupStats[64];
+        private int size;
+
+        GroupMap(int days) {
+            this.days = days;
+        }
+
+        GroupStats get(int key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                GroupStats g = values[i];
+                if (g == null) {
+                    g = new GroupStats(days);
+                    keys[i] = key;
+                    values[i] = g;
+                    if (++size * 2 > keys.length) grow();
+                    return g;
+                }
+                if (keys[i] == key) return g;
+            }
+        }
+
+        void mergeFrom(GroupMap other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.values[i] != null) get(other.keys[i]).merge(other.values[i]);
+            }
+        }
+
+        Map<Integer, GroupStats> toMap() {
+            Map<Integer, GroupStats> map = new TreeMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null) map.put(keys[i], values[i]);
+            }
+            return map;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            GroupStats[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new GroupStats[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == null) continue;
+                int i = mix(oldKeys[j]) & mask;
+                while (values[i] != null) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        // ids are sequential; spread them so neighbours do not form long probe runs
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
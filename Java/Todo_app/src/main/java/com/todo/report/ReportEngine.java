@@ -0,0 +1,137 @@
+package com.todo.report;
+
+import com.todo.dao.ReportDao;
+import com.todo.util.DB;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// aggregates the whole tasks table in parallel. the id range is split in halves with fork-join until a piece
+// spans at most TODO_REPORT_PARTITION_IDS ids; each piece is streamed on its own connection into the
+// accumulator of the worker running it, and the workers' accumulators are merged at the end. the pool has
+// TODO_REPORT_THREADS workers (default: one per core), which is also the number of connections open at a time.
+// pieces are small compared to the table, so a worker that finishes early steals the remaining ones instead of
+// idling behind a slow range.
+// a thread with a bound connection (script, unit of work) scans on that connection, one piece after another
+public class ReportEngine {
+    private static final int THREADS = Integer.getInteger("TODO_REPORT_THREADS", Runtime.getRuntime().availableProcessors());
+    private static final int PARTITION_IDS = Integer.getInteger("TODO_REPORT_PARTITION_IDS", 250_000);
+
+    interface Source {
+        // {min id, max id}, or null when there are no tasks
+        int[] idRange() throws Exception;
+
+        // rows with fromId <= id <= lastId
+        long scan(int fromId, int lastId, ReportDao.RowHandler handler) throws Exception;
+    }
+
+    private static final class DaoSource implements Source {
+        private final ReportDao dao = new ReportDao();
+
+        @Override
+        public int[] idRange() throws Exception {
+            return dao.idRange();
+        }
+
+        @Override
+        public long scan(int fromId, int lastId, ReportDao.RowHandler handler) throws Exception {
+            return dao.scanRange(fromId, lastId, handler);
+        }
+    }
+
+    private final Source source;
+    private final int threads;
+    private final int partitionIds;
+
+    public ReportEngine() {
+        this(new DaoSource(), THREADS, PARTITION_IDS);
+    }
+
+    ReportEngine(Source source, int threads, int partitionIds) {
+        this.source = source;
+        this.threads = Math.max(1, threads);
+        this.partitionIds = Math.max(1, partitionIds);
+    }
+
+    public ReportAccumulator run(ReportSpec spec) throws Exception {
+        int[] range = source.idRange();
+        if (range == null) return new ReportAccumulator(spec);
+        // half-open [from, to) in longs: max id + 1 may not fit in an int
+        long from = range[0], to = range[1] + 1L;
+
+        if (DB.isBound() || threads == 1) {
+            ReportAccumulator acc = new ReportAccumulator(spec);
+            for (long lo = from; lo < to; lo += partitionIds) scanInto(acc, lo, Math.min(to, lo + partitionIds));
+            return acc;
+        }
+
+        // one accumulator per worker, not per piece: merging costs O(groups) each time, so the merges stay at
+        // `threads` however many pieces the range is cut into
+        Queue<ReportAccumulator> perWorker = new ConcurrentLinkedQueue<>();
+        ThreadLocal<ReportAccumulator> local = ThreadLocal.withInitial(() -> {
+            ReportAccumulator acc = new ReportAccumulator(spec);
+            perWorker.add(acc);
+            return acc;
+        });
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Partition(local, from, to));
+        } catch (ScanFailure e) {
+            throw e.getCause() instanceof Exception ex ? ex : e;
+        } catch (RuntimeException e) {
+            // a failure in another worker is rethrown here wrapped once more
+            if (e.getCause() instanceof ScanFailure f && f.getCause() instanceof Exception ex) throw ex;
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+
+        ReportAccumulator result = new ReportAccumulator(spec);
+        for (ReportAccumulator acc : perWorker) result.merge(acc);
+        return result;
+    }
+
+    private void scanInto(ReportAccumulator acc, long from, long to) throws Exception {
+        source.scan((int) from, (int) (to - 1), acc);
+        acc.partitions++;
+    }
+
+    private final class Partition extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ThreadLocal<ReportAccumulator> local;
+        private final long from;
+        private final long to;
+
+        Partition(ThreadLocal<ReportAccumulator> local, long from, long to) {
+            this.local = local;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= partitionIds) {
+                try {
+                    scanInto(local.get(), from, to);
+                } catch (Exception e) {
+                    throw new ScanFailure(e);
+                }
+                return;
+            }
+            long mid = from + (to - from) / 2;
+            invokeAll(new Partition(local, from, mid), new Partition(local, mid, to));
+        }
+    }
+
+    // carries a checked exception out of a fork-join task
+    private static final class ScanFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ScanFailure(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.todo.report;
+
+import com.todo.model.Task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// what a productivity report covers: per-day series for the `days` days starting at `from`, and in-progress
+// tasks not updated since staleBefore counted as stale. the status ids are the database ids (0 = unknown)
+public record ReportSpec(LocalDate from, int days, LocalDateTime staleBefore,
+                         int completedStatusId, int inProgressStatusId, int deletedStatusId) {
+
+    static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    public ReportSpec {
+        if (days < 1 || days > 366) throw new IllegalArgumentException("Report days must be between 1 and 366.");
+    }
+
+    // the last `days` days up to and including today, stale after staleDays without an update
+    public static ReportSpec lastDays(int days, int staleDays, int completedStatusId, int inProgressStatusId, int deletedStatusId) {
+        if (staleDays < 0) throw new IllegalArgumentException("Stale days cannot be negative.");
+        LocalDate today = LocalDate.now();
+        return new ReportSpec(today.minusDays(days - 1L), days, LocalDateTime.now().minusDays(staleDays),
+                completedStatusId, inProgressStatusId, deletedStatusId);
+    }
+
+    public LocalDate day(int index) {
+        return from.plusDays(index);
+    }
+
+    // index into the per-day series, or -1 outside the window
+    int dayIndex(long micros) {
+        if (micros == Task.NONE) return -1;
+        long d = Math.floorDiv(micros, MICROS_PER_DAY) - from.toEpochDay();
+        return d >= 0 && d < days ? (int) d : -1;
+    }
+
+    long staleBeforeMicros() {
+        return Task.toMicros(staleBefore);
+    }
+}
@@ -0,0 +1,123 @@
+package com.todo.report;
+
+import com.todo.util.Json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+// CSV: one row per user and per category with the totals followed by one created_<day> and one completed_<day>
+// column per day of the window. JSON: the same data as {"users":[...],"categories":[...]} with the days as arrays
+public final class ReportWriter {
+
+    public enum Format {
+        CSV, JSON;
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown report format: " + name + " (use csv or json)");
+            }
+        }
+
+        // by file extension, CSV when there is none
+        public static Format forFile(String fileName) {
+            return fileName.toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    private ReportWriter() {
+    }
+
+    public static void write(ProductivityReport report, Format format, Writer out) throws IOException {
+        if (format == Format.JSON) json(report, out);
+        else csv(report, out);
+    }
+
+    public static void csv(ProductivityReport report, Writer out) throws IOException {
+        ReportSpec spec = report.spec();
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("group,id,name,tasks,completed,completion_ratio,in_progress,stale_in_progress");
+        for (int d = 0; d < spec.days(); d++) sb.append(",created_").append(spec.day(d));
+        for (int d = 0; d < spec.days(); d++) sb.append(",completed_").append(spec.day(d));
+        out.append(sb).append('\n');
+
+        csvRows(out, sb, "user", report.data().byUser(), report::userName, spec.days());
+        csvRows(out, sb, "category", report.data().byCategory(), report::categoryName, spec.days());
+        out.flush();
+    }
+
+    public static void json(ProductivityReport report, Writer out) throws IOException {
+        ReportSpec spec = report.spec();
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"from\":");
+        Json.quote(sb, spec.from().toString()).append(",\"days\":").append(spec.days()).append(",\"staleBefore\":");
+        Json.quote(sb, spec.staleBefore().toString())
+                .append(",\"rows\":").append(report.data().rows())
+                .append(",\"partitions\":").append(report.data().partitions())
+                .append(",\"elapsedMs\":").append(report.elapsedMs())
+                .append(",\"users\":[");
+        out.append(sb);
+        jsonGroups(out, sb, report.data().byUser(), report::userName, spec.days());
+        out.append("],\"categories\":[");
+        jsonGroups(out, sb, report.data().byCategory(), report::categoryName, spec.days());
+        out.append("]}\n");
+        out.flush();
+    }
+
+    private static void csvRows(Writer out, StringBuilder sb, String group, Map<Integer, GroupStats> groups,
+                                IntFunction<String> names, int days) throws IOException {
+        for (Map.Entry<Integer, GroupStats> e : groups.entrySet()) {
+            GroupStats g = e.getValue();
+            sb.setLength(0);
+            sb.append(group).append(',').append(e.getKey()).append(',');
+            csvField(sb, names.apply(e.getKey()));
+            sb.append(',').append(g.tasks()).append(',').append(g.completed())
+                    .append(',').append(ratio(g)).append(',').append(g.inProgress()).append(',').append(g.staleInProgress());
+            for (int d = 0; d < days; d++) sb.append(',').append(g.createdOn(d));
+            for (int d = 0; d < days; d++) sb.append(',').append(g.completedOn(d));
+            out.append(sb).append('\n');
+        }
+    }
+
+    private static void jsonGroups(Writer out, StringBuilder sb, Map<Integer, GroupStats> groups,
+                                   IntFunction<String> names, int days) throws IOException {
+        boolean first = true;
+        for (Map.Entry<Integer, GroupStats> e : groups.entrySet()) {
+            GroupStats g = e.getValue();
+            sb.setLength(0);
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"id\":").append(e.getKey()).append(",\"name\":");
+            Json.quote(sb, names.apply(e.getKey()))
+                    .append(",\"tasks\":").append(g.tasks())
+                    .append(",\"completed\":").append(g.completed())
+                    .append(",\"completionRatio\":").append(ratio(g))
+                    .append(",\"inProgress\":").append(g.inProgress())
+                    .append(",\"staleInProgress\":").append(g.staleInProgress())
+                    .append(",\"createdPerDay\":[");
+            for (int d = 0; d < days; d++) sb.append(d > 0 ? "," : "").append(g.createdOn(d));
+            sb.append("],\"completedPerDay\":[");
+            for (int d = 0; d < days; d++) sb.append(d > 0 ? "," : "").append(g.completedOn(d));
+            sb.append("]}");
+            out.append(sb);
+        }
+    }
+
+    private static String ratio(GroupStats g) {
+        return String.format(Locale.ROOT, "%.4f", g.completionRatio());
+    }
+
+    // quoted only when it has to be (RFC 4180)
+    private static void csvField(StringBuilder sb, String value) {
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,255 @@
+package com.todo.service;
+
+import com.todo.dao.TaskQuery;
+import com.todo.dao.TaskTreeDao;
+import com.todo.model.CycleTime;
+import com.todo.model.CycleTimeStats;
+import com.todo.model.SharePermission;
+import com.todo.model.StatusChange;
+import com.todo.model.TagFilter;
+import com.todo.model.Task;
+import com.todo.model.TaskListChanges;
+import com.todo.model.TaskNode;
+import com.todo.model.TaskShare;
+import com.todo.util.PrefixIndex;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// TaskService with every call routed through an AdmissionController (reads and writes in separate bulkheads)
+public class AdmissionControlledTaskService extends TaskService {
+    // calls that carry no user id (category listing and stats) share this lane
+    private static final int UNATTRIBUTED = 0;
+
+    private final AdmissionController admission;
+
+    public AdmissionControlledTaskService(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    public Task addTask(String taskName, int userId, String categoryName) throws Exception {
+        return admission.write(userId, () -> super.addTask(taskName, userId, categoryName));
+    }
+
+    @Override
+    public Task addTask(String taskName, int userId, String categoryName, LocalDateTime dueDate) throws Exception {
+        return admission.write(userId, () -> super.addTask(taskName, userId, categoryName, dueDate));
+    }
+
+    @Override
+    public Task setDueDate(int taskId, int loggedInUserId, LocalDateTime dueDate) throws Exception {
+        return admission.write(loggedInUserId, () -> super.setDueDate(taskId, loggedInUserId, dueDate));
+    }
+
+    @Override
+    public void editTask(int taskId, int loggedInUserId, String newName) throws Exception {
+        admission.write(loggedInUserId, () -> { super.editTask(taskId, loggedInUserId, newName); return null; });
+    }
+
+    @Override
+    public void editTask(int taskId, int loggedInUserId, String newName, int expectedVersion) throws Exception {
+        admission.write(loggedInUserId, () -> { super.editTask(taskId, loggedInUserId, newName, expectedVersion); return null; });
+    }
+
+    @Override
+    public void startTask(int taskId, int loggedInUserId) throws Exception {
+        admission.write(loggedInUserId, () -> { super.startTask(taskId, loggedInUserId); return null; });
+    }
+
+    @Override
+    public void startTask(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
+        admission.write(loggedInUserId, () -> { super.startTask(taskId, loggedInUserId, expectedVersion); return null; });
+    }
+
+    @Override
+    public Optional<Task> claimNextTask(String categoryName, int workerUserId) throws Exception {
+        return admission.write(workerUserId, () -> super.claimNextTask(categoryName, workerUserId));
+    }
+
+    @Override
+    public List<Task> claimTasks(String categoryName, int workerUserId, int count) throws Exception {
+        return admission.write(workerUserId, () -> super.claimTasks(categoryName, workerUserId, count));
+    }
+
+    @Override
+    public List<Task> getActiveTasks(int userId) throws Exception {
+        return admission.read(userId, () -> super.getActiveTasks(userId));
+    }
+
+    @Override
+    public void markCompleted(int taskId, int loggedInUserId) throws Exception {
+        admission.write(loggedInUserId, () -> { super.markCompleted(taskId, loggedInUserId); return null; });
+    }
+
+    @Override
+    public void markCompleted(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
+        admission.write(loggedInUserId, () -> { super.markCompleted(taskId, loggedInUserId, expectedVersion); return null; });
+    }
+
+    @Override
+    public void markBlocked(int taskId, int loggedInUserId) throws Exception {
+        admission.write(loggedInUserId, () -> { super.markBlocked(taskId, loggedInUserId); return null; });
+    }
+
+    @Override
+    public void markBlocked(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
+        admission.write(loggedInUserId, () -> { super.markBlocked(taskId, loggedInUserId, expectedVersion); return null; });
+    }
+
+    @Override
+    public void deleteTask(int taskId, int loggedInUserId) throws Exception {
+        admission.write(loggedInUserId, () -> { super.deleteTask(taskId, loggedInUserId); return null; });
+    }
+
+    @Override
+    public void deleteTask(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
+        admission.write(loggedInUserId, () -> { super.deleteTask(taskId, loggedInUserId, expectedVersion); return null; });
+    }
+
+    @Override
+    public List<Task> viewMyTasks(int userId) throws Exception {
+        return admission.read(userId, () -> super.viewMyTasks(userId));
+    }
+
+    @Override
+    public List<Task> viewMyTasks(int userId, boolean includeArchived) throws Exception {
+        return admission.read(userId, () -> super.viewMyTasks(userId, includeArchived));
+    }
+
+    @Override
+    public TaskListChanges listIfChanged(int userId, long knownStamp) throws Exception {
+        return admission.read(userId, () -> super.listIfChanged(userId, knownStamp));
+    }
+
+    @Override
+    public TaskListChanges listChangesSince(int userId, long knownStamp) throws Exception {
+        return admission.read(userId, () -> super.listChangesSince(userId, knownStamp));
+    }
+
+    @Override
+    public List<Task> filterMyTasksByNames(int userId, String statusName, String categoryName) throws Exception {
+        return admission.read(userId, () -> super.filterMyTasksByNames(userId, statusName, categoryName));
+    }
+
+    @Override
+    public List<Task> findMyTasks(TaskQuery query) throws Exception {
+        return admission.read(query.getUserId(), () -> super.findMyTasks(query));
+    }
+
+    @Override
+    public List<String> getAllCategoryNames() throws Exception {
+        return admission.read(UNATTRIBUTED, super::getAllCategoryNames);
+    }
+
+    @Override
+    public List<Task> getStartableTasks(int userId) throws Exception {
+        return admission.read(userId, () -> super.getStartableTasks(userId));
+    }
+
+    @Override
+    public void shareTask(int taskId, int ownerUserId, String username, SharePermission permission) throws Exception {
+        admission.write(ownerUserId, () -> { super.shareTask(taskId, ownerUserId, username, permission); return null; });
+    }
+
+    @Override
+    public void unshareTask(int taskId, int ownerUserId, String username) throws Exception {
+        admission.write(ownerUserId, () -> { super.unshareTask(taskId, ownerUserId, username); return null; });
+    }
+
+    @Override
+    public List<TaskShare> getShares(int taskId, int loggedInUserId) throws Exception {
+        return admission.read(loggedInUserId, () -> super.getShares(taskId, loggedInUserId));
+    }
+
+    @Override
+    public List<Task> viewVisibleTasks(int userId, Integer limit) throws Exception {
+        return admission.read(userId, () -> super.viewVisibleTasks(userId, limit));
+    }
+
+    @Override
+    public void moveBefore(int taskId, int anchorTaskId, int ownerUserId) throws Exception {
+        admission.write(ownerUserId, () -> { super.moveBefore(taskId, anchorTaskId, ownerUserId); return null; });
+    }
+
+    @Override
+    public void moveAfter(int taskId, int anchorTaskId, int ownerUserId) throws Exception {
+        admission.write(ownerUserId, () -> { super.moveAfter(taskId, anchorTaskId, ownerUserId); return null; });
+    }
+
+    @Override
+    public Task addSubtask(int parentTaskId, String taskName, int ownerUserId) throws Exception {
+        return admission.write(ownerUserId, () -> super.addSubtask(parentTaskId, taskName, ownerUserId));
+    }
+
+    @Override
+    public void moveSubtree(int taskId, int newParentTaskId, int ownerUserId) throws Exception {
+        admission.write(ownerUserId, () -> { super.moveSubtree(taskId, newParentTaskId, ownerUserId); return null; });
+    }
+
+    @Override
+    public List<TaskNode> getSubtree(int taskId, int loggedInUserId) throws Exception {
+        return admission.read(loggedInUserId, () -> super.getSubtree(taskId, loggedInUserId));
+    }
+
+    @Override
+    public List<Task> getAncestors(int taskId, int loggedInUserId) throws Exception {
+        return admission.read(loggedInUserId, () -> super.getAncestors(taskId, loggedInUserId));
+    }
+
+    @Override
+    public TaskTreeDao.Progress getSubtaskProgress(int taskId, int loggedInUserId) throws Exception {
+        return admission.read(loggedInUserId, () -> super.getSubtaskProgress(taskId, loggedInUserId));
+    }
+
+    @Override
+    public void tagTask(int taskId, int ownerUserId, List<String> tags) throws Exception {
+        admission.write(ownerUserId, () -> { super.tagTask(taskId, ownerUserId, tags); return null; });
+    }
+
+    @Override
+    public void untagTask(int taskId, int ownerUserId, List<String> tags) throws Exception {
+        admission.write(ownerUserId, () -> { super.untagTask(taskId, ownerUserId, tags); return null; });
+    }
+
+    @Override
+    public List<String> getTags(int taskId, int loggedInUserId) throws Exception {
+        return admission.read(loggedInUserId, () -> super.getTags(taskId, loggedInUserId));
+    }
+
+    @Override
+    public List<Task> findByTags(int userId, TagFilter filter, Integer limit) throws Exception {
+        return admission.read(userId, () -> super.findByTags(userId, filter, limit));
+    }
+
+    @Override
+    public List<PrefixIndex.Match> suggestTasks(int userId, String prefix, int limit) throws Exception {
+        return admission.read(userId, () -> super.suggestTasks(userId, prefix, limit));
+    }
+
+    @Override
+    public List<String> suggestCategories(String prefix, int limit) throws Exception {
+        return admission.read(UNATTRIBUTED, () -> super.suggestCategories(prefix, limit));
+    }
+
+    @Override
+    public List<StatusChange> getStatusHistory(int taskId, int loggedInUserId) throws Exception {
+        return admission.read(loggedInUserId, () -> super.getStatusHistory(taskId, loggedInUserId));
+    }
+
+    @Override
+    public CycleTime getCycleTime(int taskId, int loggedInUserId) throws Exception {
+        return admission.read(loggedInUserId, () -> super.getCycleTime(taskId, loggedInUserId));
+    }
+
+    @Override
+    public CycleTimeStats getCycleTimeStatsForUser(int userId, LocalDateTime from, LocalDateTime to) throws Exception {
+        return admission.read(userId, () -> super.getCycleTimeStatsForUser(userId, from, to));
+    }
+
+    @Override
+    public CycleTimeStats getCycleTimeStatsForCategory(String categoryName, LocalDateTime from, LocalDateTime to) throws Exception {
+        return admission.read(UNATTRIBUTED, () -> super.getCycleTimeStatsForCategory(categoryName, from, to));
+    }
+}
@@ -0,0 +1,173 @@
+package com.todo.service;
+
+import com.todo.exception.OverloadException;
+import com.todo.exception.OverloadException.Reason;
+import com.todo.util.TokenBucket;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// per-user admission control in front of the DAO layer.
+// every user gets a token bucket (rate limit) and two bulkheads, one for reads and one for writes,
+// so a client hammering list queries cannot starve its own or anyone else's writes.
+// a call that finds its bulkhead full waits a bounded time in a bounded queue, otherwise it is rejected.
+public class AdmissionController {
+
+    private static final AdmissionController shared = new AdmissionController(
+            Integer.getInteger("TODO_MAX_READS_PER_USER", 4),
+            Integer.getInteger("TODO_MAX_WRITES_PER_USER", 2),
+            Integer.getInteger("TODO_MAX_QUEUED_PER_USER", 16),
+            Long.getLong("TODO_MAX_QUEUE_WAIT_MS", 200),
+            Integer.getInteger("TODO_RATE_PER_SEC", 2000),
+            Integer.getInteger("TODO_RATE_BURST", 4000));
+
+    // admissions between two sweeps for idle lanes; a power of two
+    private static final int SWEEP_EVERY = 4096;
+
+    // true while the current thread is inside an admitted call, so nested service calls are not counted twice
+    private static final ThreadLocal<Boolean> admitted = ThreadLocal.withInitial(() -> false);
+
+    private final int maxReads;
+    private final int maxWrites;
+    private final int maxQueued;
+    private final long maxWaitMs;
+    private final double ratePerSecond;
+    private final double burst;
+
+    private final Map<Integer, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder admittedCalls = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger sinceSweep = new AtomicInteger();
+
+    public AdmissionController(int maxReads, int maxWrites, int maxQueued, long maxWaitMs,
+                               double ratePerSecond, double burst) {
+        this.maxReads = maxReads;
+        this.maxWrites = maxWrites;
+        this.maxQueued = maxQueued;
+        this.maxWaitMs = maxWaitMs;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+    }
+
+    public static AdmissionController shared() {
+        return shared;
+    }
+
+    public <T> T read(int userId, Callable<T> call) throws Exception {
+        return admit(userId, false, call);
+    }
+
+    public <T> T write(int userId, Callable<T> call) throws Exception {
+        return admit(userId, true, call);
+    }
+
+    private <T> T admit(int userId, boolean write, Callable<T> call) throws Exception {
+        if (admitted.get()) return call.call();
+
+        if ((sinceSweep.incrementAndGet() & (SWEEP_EVERY - 1)) == 0) evictIdle();
+
+        // the lane is pinned for the whole call, so a sweep cannot drop it while its permits are taken
+        Lane lane = lanes.compute(userId, (id, l) -> {
+            if (l == null) l = new Lane();
+            l.users++;
+            return l;
+        });
+        try {
+            if (!lane.bucket.tryAcquire()) {
+                rateLimited.increment();
+                throw new OverloadException(Reason.RATE_LIMITED, userId,
+                        "Too many requests, please slow down and try again.");
+            }
+
+            Semaphore bulkhead = write ? lane.writes : lane.reads;
+            if (!bulkhead.tryAcquire()) waitForSlot(lane, bulkhead, userId);
+
+            admittedCalls.increment();
+            admitted.set(true);
+            try {
+                return call.call();
+            } finally {
+                admitted.set(false);
+                bulkhead.release();
+            }
+        } finally {
+            lanes.computeIfPresent(userId, (id, l) -> {
+                l.users--;
+                return l;
+            });
+        }
+    }
+
+    // drops the lanes of users with no call in flight and a full bucket: such a lane is indistinguishable from
+    // a new one, so the map only holds recently active users. runs under each key's bin lock, like admit's pin
+    void evictIdle() {
+        for (Integer userId : lanes.keySet()) {
+            lanes.computeIfPresent(userId, (id, l) -> l.users == 0 && l.bucket.isFull() ? null : l);
+        }
+    }
+
+    int laneCount() {
+        return lanes.size();
+    }
+
+    private void waitForSlot(Lane lane, Semaphore bulkhead, int userId) throws InterruptedException {
+        if (lane.queued.incrementAndGet() > maxQueued) {
+            lane.queued.decrementAndGet();
+            queueFull.increment();
+            throw new OverloadException(Reason.QUEUE_FULL, userId,
+                    "Too many requests in flight, please try again shortly.");
+        }
+
+        queued.incrementAndGet();
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } finally {
+            lane.queued.decrementAndGet();
+            queued.decrementAndGet();
+            long waited = System.nanoTime() - start;
+            waitNanos.add(waited);
+            waits.increment();
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+
+        if (!ok) {
+            waitTimeouts.increment();
+            throw new OverloadException(Reason.WAIT_TIMEOUT, userId,
+                    "The server is busy, please try again shortly.");
+        }
+    }
+
+    public Stats stats() {
+        long w = waits.sum();
+        return new Stats(admittedCalls.sum(), rateLimited.sum(), queueFull.sum(), waitTimeouts.sum(),
+                queued.get(), w, w == 0 ? 0 : waitNanos.sum() / w / 1_000_000d, maxWaitNanos.get() / 1_000_000d);
+    }
+
+    public record Stats(long admitted, long rateLimited, long queueFull, long waitTimeouts,
+                        int queueDepth, long queuedCalls, double avgWaitMs, double maxWaitMs) {
+    }
+
+    private class Lane {
+        final Semaphore reads = new Semaphore(maxReads, true);
+        final Semaphore writes = new Semaphore(maxWrites, true);
+        final TokenBucket bucket = new TokenBucket(ratePerSecond, burst);
+        final AtomicInteger queued = new AtomicInteger();
+        // calls holding this lane; only changed inside lanes.compute for this user
+        int users;
+    }
+}
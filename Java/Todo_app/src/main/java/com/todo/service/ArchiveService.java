@@ -0,0 +1,47 @@
+package com.todo.service;
+
+import com.todo.dao.ArchiveDao;
+import com.todo.util.UnitOfWork;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ArchiveService {
+    private final ArchiveDao archiveDao = new ArchiveDao();
+
+    private final int archiveAfterDays = Integer.getInteger("TODO_ARCHIVE_AFTER_DAYS", 90);
+    private final int batchSize = Integer.getInteger("TODO_ARCHIVE_BATCH_SIZE", 500);
+
+    // moves completed/deleted tasks untouched for archiveAfterDays into the archive, batch by batch
+    public int archiveOldTasks() throws Exception {
+        // inside another unit of work every batch would join it, turning the run into one long transaction
+        if (UnitOfWork.active())
+            throw new IllegalArgumentException("Archiving commits batch by batch and cannot run inside a transaction.");
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(archiveAfterDays);
+        List<LocalDate> detachedMonths = archiveDao.ensurePartitions(cutoff);
+
+        int total = 0;
+        while (true) {
+            // one short transaction per batch, so row locks are held only for this batch
+            int[] result = UnitOfWork.call(() -> {
+                List<Integer> ids = archiveDao.lockBatch(cutoff, batchSize, detachedMonths);
+                return new int[]{ids.size(), archiveDao.moveBatch(ids)};
+            });
+            total += result[1];
+            if (result[0] < batchSize) return total;
+        }
+    }
+
+    public List<String> listPartitions() throws Exception {
+        return archiveDao.listPartitions();
+    }
+
+    public void detachPartition(String partitionName) throws Exception {
+        archiveDao.detachPartition(partitionName);
+    }
+
+    public void dropPartition(String partitionName) throws Exception {
+        archiveDao.dropPartition(partitionName);
+    }
+}
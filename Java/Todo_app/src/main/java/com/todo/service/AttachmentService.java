@@ -0,0 +1,103 @@
+package com.todo.service;
+
+import com.todo.dao.AttachmentDao;
+import com.todo.model.Attachment;
+import com.todo.storage.BlobStore;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// notes and files on tasks: content in the blob store, metadata in task_attachments. content is written before
+// the row, so a failed or refused insert only leaves an unreferenced blob behind for collectGarbage
+public class AttachmentService {
+    private static final int MAX_NOTE_CHARS = Integer.getInteger("TODO_NOTE_MAX_CHARS", 10_000);
+    private static final long GC_GRACE_MIN = Long.getLong("TODO_BLOB_GC_GRACE_MIN", 60);
+
+    private final AttachmentDao attachmentDao = new AttachmentDao();
+    private final BlobStore blobs;
+
+    public AttachmentService() {
+        this(BlobStore.fromConfig());
+    }
+
+    public AttachmentService(BlobStore blobs) {
+        this.blobs = blobs;
+    }
+
+    public Attachment addNote(int taskId, int userId, String text) throws Exception {
+        if (text == null || text.trim().isEmpty())
+            throw new IllegalArgumentException("Note cannot be empty.");
+        if (text.length() > MAX_NOTE_CHARS)
+            throw new IllegalArgumentException("Note cannot be longer than " + MAX_NOTE_CHARS + " characters.");
+
+        byte[] bytes = text.trim().getBytes(StandardCharsets.UTF_8);
+        BlobStore.Blob blob = blobs.put(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        return insert(taskId, userId, Attachment.NOTE, null, blob);
+    }
+
+    public Attachment attachFile(int taskId, int userId, Path file) throws Exception {
+        if (file == null || !Files.isRegularFile(file))
+            throw new IllegalArgumentException("File not found: " + file);
+
+        BlobStore.Blob blob = blobs.put(file);
+        return insert(taskId, userId, Attachment.FILE, file.getFileName().toString(), blob);
+    }
+
+    public List<Attachment> listAttachments(int taskId, int userId) throws Exception {
+        return attachmentDao.listByTask(taskId, userId);
+    }
+
+    // attachment counts for tasks already on screen; one grouped query for the whole page
+    public Map<Integer, Integer> countAttachments(int[] taskIds, int userId) throws Exception {
+        return attachmentDao.countByTasks(taskIds, userId);
+    }
+
+    public String readNote(int attachmentId, int userId) throws Exception {
+        Attachment a = find(attachmentId, userId);
+        if (!a.isNote())
+            throw new IllegalArgumentException("Attachment is a file, download it instead.");
+        return blobs.readString(a.getContentHash());
+    }
+
+    public long download(int attachmentId, int userId, Path target) throws Exception {
+        return blobs.copyTo(find(attachmentId, userId).getContentHash(), target);
+    }
+
+    public long download(int attachmentId, int userId, WritableByteChannel out) throws Exception {
+        return blobs.copyTo(find(attachmentId, userId).getContentHash(), out);
+    }
+
+    public void deleteAttachment(int attachmentId, int userId) throws Exception {
+        if (!attachmentDao.delete(attachmentId, userId))
+            throw new IllegalArgumentException("You can only delete attachments you added or that are on your tasks.");
+    }
+
+    // removes blobs no row refers to; the grace period covers uploads whose row is not inserted yet
+    public int collectGarbage() throws Exception {
+        Set<String> live = new HashSet<>();
+        attachmentDao.forEachHash(live::add);
+        return blobs.sweep(live::contains, System.currentTimeMillis() - GC_GRACE_MIN * 60_000);
+    }
+
+    private Attachment find(int attachmentId, int userId) throws Exception {
+        Attachment a = attachmentDao.find(attachmentId, userId);
+        if (a == null)
+            throw new IllegalArgumentException("Attachment not found.");
+        return a;
+    }
+
+    private Attachment insert(int taskId, int userId, String kind, String fileName, BlobStore.Blob blob) throws Exception {
+        Attachment a = attachmentDao.insert(taskId, userId, kind, fileName, blob.hash(), blob.size());
+        if (a == null)
+            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        return a;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Optional;
 
 public class AuthService {
     private final UserDao userDao = new UserDao();
+    private final UsernameIndex usernames = UsernameIndex.shared();
     private User currentUser;
 
 
@@ -22,15 +23,25 @@ public class AuthService {
 
         String normalizedUsername = username.trim();
 
-        Optional<User> existing = userDao.findByName(normalizedUsername);
-        if (existing.isPresent()) {
+        Optional<User> created = userDao.createUserIfAbsent(normalizedUsername, password);
+        if (created.isEmpty()) {
             throw new IllegalArgumentException("User already exists, please select a different username.");
         }
 
-        currentUser = userDao.createUser(normalizedUsername, password);
+        usernames.added(normalizedUsername);
+        currentUser = created.get();
         return currentUser;
     }
 
+    // early hint for the registration prompt; most free names are answered by the in-memory filter alone
+    public boolean isUsernameAvailable(String username) throws SQLException {
+        if (username == null || username.trim().isEmpty()) return false;
+
+        String normalizedUsername = username.trim();
+        if (!usernames.mightExist(normalizedUsername)) return true;
+        return userDao.findByName(normalizedUsername).isEmpty();
+    }
+
     //validation for user login
     public User login(String username, String password) throws SQLException {
         if (username == null || username.trim().isEmpty()) {
@@ -0,0 +1,213 @@
+package com.todo.service;
+
+import com.todo.dao.CategoryDao;
+import com.todo.dao.TaskDao;
+import com.todo.model.Category;
+import com.todo.model.Task;
+import com.todo.util.PrefixIndex;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// prefix suggestions for one user's task names (most recently updated first) and for category names (most recently
+// used first). a user's index is loaded on their first lookup and kept current from TaskEvents; loads and event
+// updates for the same user take the same lock, so an event either waits for the load or lands before the load's
+// read and is seen by it. indexes older than TODO_AUTOCOMPLETE_REFRESH_MIN are reloaded to pick up other processes'
+// changes and at most TODO_AUTOCOMPLETE_USERS users are kept (least recently used go first).
+// deleted tasks are not suggested
+public class AutocompleteService implements TaskListener {
+    private static final int MAX_USERS = Integer.getInteger("TODO_AUTOCOMPLETE_USERS", 1000);
+    private static final long REFRESH_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("TODO_AUTOCOMPLETE_REFRESH_MIN", 10));
+
+    private static final AutocompleteService SHARED =
+            new AutocompleteService(new DaoLoader(new TaskDao(), new CategoryDao()), MAX_USERS, REFRESH_NANOS, System::nanoTime);
+
+    static {
+        // registered with the instance so a loaded index can never miss a mutation made through TaskService
+        TaskEvents.register(SHARED);
+    }
+
+    interface Loader {
+        // the user's tasks that are not deleted, recency = updated date in Task micros
+        List<PrefixIndex.Match> tasks(int userId) throws Exception;
+
+        List<PrefixIndex.Match> categories() throws Exception;
+    }
+
+    private static final class DaoLoader implements Loader {
+        private final TaskDao taskDao;
+        private final CategoryDao categoryDao;
+
+        DaoLoader(TaskDao taskDao, CategoryDao categoryDao) {
+            this.taskDao = taskDao;
+            this.categoryDao = categoryDao;
+        }
+
+        @Override
+        public List<PrefixIndex.Match> tasks(int userId) throws Exception {
+            List<PrefixIndex.Match> out = new ArrayList<>();
+            taskDao.scan(userId, t -> {
+                if (!"deleted".equals(t.getStatusName()))
+                    out.add(new PrefixIndex.Match(t.getId(), t.getTask_name(), t.getUpdatedMicros()));
+            });
+            return out;
+        }
+
+        @Override
+        public List<PrefixIndex.Match> categories() throws Exception {
+            List<PrefixIndex.Match> out = new ArrayList<>();
+            for (Category c : categoryDao.listAll()) out.add(new PrefixIndex.Match(c.getId(), c.getCategory_name(), 0));
+            return out;
+        }
+    }
+
+    // guarded by itself
+    private static final class Entry {
+        PrefixIndex index;
+        long loadedAt;
+    }
+
+    private final Loader loader;
+    private final long refreshNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Integer, Entry> entries;
+    private final Entry categories = new Entry();
+    private final Map<Integer, Long> categoryUse = new ConcurrentHashMap<>();
+
+    AutocompleteService(Loader loader, int maxUsers, long refreshNanos, LongSupplier clock) {
+        this.loader = loader;
+        this.refreshNanos = refreshNanos;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public static AutocompleteService shared() {
+        return SHARED;
+    }
+
+    public List<PrefixIndex.Match> suggestTasks(int userId, String prefix, int limit) throws Exception {
+        Entry e;
+        synchronized (entries) {
+            e = entries.computeIfAbsent(userId, k -> new Entry());
+        }
+        return loaded(e, () -> build(loader.tasks(userId))).top(prefix, limit);
+    }
+
+    public List<String> suggestCategories(String prefix, int limit) throws Exception {
+        PrefixIndex index = loaded(categories, () -> {
+            PrefixIndex built = build(loader.categories());
+            // use is only known in memory, so it survives reloads here
+            categoryUse.forEach(built::touch);
+            return built;
+        });
+        List<String> out = new ArrayList<>();
+        for (PrefixIndex.Match m : index.top(prefix, limit)) out.add(m.name());
+        return out;
+    }
+
+    private interface Builder {
+        PrefixIndex build() throws Exception;
+    }
+
+    private static PrefixIndex build(List<PrefixIndex.Match> names) {
+        PrefixIndex index = new PrefixIndex();
+        index.putAll(names);
+        return index;
+    }
+
+    private PrefixIndex loaded(Entry e, Builder builder) throws Exception {
+        synchronized (e) {
+            if (e.index == null || clock.getAsLong() - e.loadedAt >= refreshNanos) {
+                e.index = builder.build();
+                e.loadedAt = clock.getAsLong();
+            }
+            return e.index;
+        }
+    }
+
+    // users whose index is not loaded are skipped: their next load reads the change from the database
+    private void apply(int userId, Consumer<PrefixIndex> change) {
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(userId);
+        }
+        if (e != null) applyTo(e, change);
+    }
+
+    // for events that carry only a task id: every loaded user whose index has it
+    private void applyAll(int taskId, Consumer<PrefixIndex> change) {
+        List<Entry> loaded;
+        synchronized (entries) {
+            loaded = new ArrayList<>(entries.values());
+        }
+        for (Entry e : loaded) {
+            applyTo(e, index -> {
+                if (index.contains(taskId)) change.accept(index);
+            });
+        }
+    }
+
+    private static void applyTo(Entry e, Consumer<PrefixIndex> change) {
+        synchronized (e) {
+            if (e.index != null) change.accept(e.index);
+        }
+    }
+
+    private static long now() {
+        return Task.toMicros(LocalDateTime.now());
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        long now = now();
+        apply(task.getUserId(), index -> index.put(task.getId(), task.getTask_name(), now));
+        categoryUse.put(task.getCategoryId(), now);
+        applyTo(categories, index -> index.touch(task.getCategoryId(), now));
+    }
+
+    @Override
+    public void taskRenamed(int taskId, String newName) {
+        long now = now();
+        applyAll(taskId, index -> index.put(taskId, newName, now));
+    }
+
+    @Override
+    public void taskStatusChanged(int taskId, String statusName) {
+        long now = now();
+        if ("deleted".equals(statusName)) applyAll(taskId, index -> index.remove(taskId));
+        else applyAll(taskId, index -> index.touch(taskId, now));
+    }
+
+    @Override
+    public void taskDueDateChanged(Task task) {
+        long now = now();
+        applyAll(task.getId(), index -> index.touch(task.getId(), now));
+    }
+
+    // moves from the previous owner's index to the worker's
+    @Override
+    public void taskClaimed(Task task) {
+        long now = now();
+        applyAll(task.getId(), index -> index.remove(task.getId()));
+        apply(task.getUserId(), index -> index.put(task.getId(), task.getTask_name(), now));
+    }
+
+    @Override
+    public void tasksBulkAdded() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+}
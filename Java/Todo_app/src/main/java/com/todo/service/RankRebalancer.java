@@ -0,0 +1,52 @@
+package com.todo.service;
+
+import com.todo.dao.RankDao;
+import com.todo.util.RankKeys;
+import com.todo.util.UnitOfWork;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// rewrites a user's rank keys into short, evenly spaced ones once a move has produced a key longer than
+// TODO_RANK_MAX_LENGTH (default 24). runs on one daemon thread after the move committed, at most one pending run
+// per user; it takes the same per-user lock as moves, so the order it writes is the order it read
+public final class RankRebalancer {
+    static final int MAX_KEY_LENGTH = Integer.getInteger("TODO_RANK_MAX_LENGTH", 24);
+
+    private static final RankRebalancer SHARED = new RankRebalancer();
+
+    private final RankDao rankDao = new RankDao();
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "todo-rank-rebalance");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public static RankRebalancer shared() {
+        return SHARED;
+    }
+
+    public void schedule(int userId) {
+        if (!pending.add(userId)) return;
+        executor.execute(() -> {
+            pending.remove(userId);
+            try {
+                rebalance(userId);
+            } catch (Exception e) {
+                System.err.println("Could not rebalance task order: " + e.getMessage());
+            }
+        });
+    }
+
+    // returns the number of keys rewritten
+    public int rebalance(int userId) throws Exception {
+        return UnitOfWork.call(() -> {
+            rankDao.lock(userId);
+            int[] ids = rankDao.rankedIds(userId);
+            return rankDao.setKeys(userId, ids, RankKeys.spread(ids.length));
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.todo.service;
+
+import com.todo.dao.CategoryDao;
+import com.todo.dao.StatusDao;
+import com.todo.dao.TaskTemplateDao;
+import com.todo.model.Recurrence;
+import com.todo.model.TaskTemplate;
+import com.todo.util.DB;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class RecurrenceService {
+    private final TaskTemplateDao templateDao = new TaskTemplateDao();
+    private final StatusDao statusDao = new StatusDao();
+    private final CategoryDao categoryDao = new CategoryDao();
+
+    private final int horizonDays = Integer.getInteger("TODO_RECURRENCE_HORIZON_DAYS", 14);
+    private final int partitions = Integer.getInteger("TODO_RECURRENCE_PARTITIONS",
+            Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    // weekdays is used for WEEKLY, dayOfMonth for MONTHLY; dueTime and endsOn are optional
+    public int createTemplate(int userId, String taskName, String categoryName, Recurrence recurrence,
+                              Set<DayOfWeek> weekdays, Integer dayOfMonth, LocalTime dueTime,
+                              LocalDate startsOn, LocalDate endsOn) throws Exception {
+        if (taskName == null || taskName.trim().isEmpty())
+            throw new IllegalArgumentException("Task name cannot be empty.");
+        if (recurrence == null)
+            throw new IllegalArgumentException("Recurrence is required.");
+        if (recurrence == Recurrence.WEEKLY && (weekdays == null || weekdays.isEmpty()))
+            throw new IllegalArgumentException("Weekly recurrence needs at least one weekday.");
+        if (recurrence == Recurrence.MONTHLY && (dayOfMonth == null || dayOfMonth < 1 || dayOfMonth > 31))
+            throw new IllegalArgumentException("Monthly recurrence needs a day of month between 1 and 31.");
+
+        LocalDate start = startsOn != null ? startsOn : LocalDate.now();
+        if (endsOn != null && endsOn.isBefore(start))
+            throw new IllegalArgumentException("End date cannot be before the start date.");
+
+        int categoryId = categoryDao.getIdByName(categoryName);
+        int mask = recurrence == Recurrence.WEEKLY ? TaskTemplate.weekdayMask(weekdays) : 0;
+        Integer day = recurrence == Recurrence.MONTHLY ? dayOfMonth : null;
+
+        return templateDao.create(userId, categoryId, taskName.trim(), recurrence, mask, day, dueTime, start, endsOn);
+    }
+
+    public List<TaskTemplate> listTemplates(int userId) throws Exception {
+        return templateDao.listByUser(userId);
+    }
+
+    public void stopTemplate(int templateId, int userId) throws Exception {
+        if (!templateDao.deactivate(templateId, userId))
+            throw new IllegalArgumentException("You are not allowed to modify this template.");
+    }
+
+    // creates every occurrence up to today + TODO_RECURRENCE_HORIZON_DAYS for all users' templates and returns
+    // how many tasks were added. partitions run concurrently on their own connections and commit independently;
+    // inside a bound connection (atomic script) they run one after another so they join its transaction
+    public int materialize() throws Exception {
+        LocalDate today = LocalDate.now();
+        LocalDate horizon = today.plusDays(horizonDays);
+        int ready = statusDao.getIdByName("ready_to_pick");
+
+        int total = 0;
+        if (DB.isBound() || partitions <= 1) {
+            int n = DB.isBound() ? 1 : partitions;
+            for (int p = 0; p < n; p++) total += templateDao.materialize(n, p, ready, today, horizon);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(partitions);
+            try {
+                List<Future<Integer>> parts = new ArrayList<>();
+                for (int p = 0; p < partitions; p++) {
+                    int partition = p;
+                    parts.add(pool.submit(() -> templateDao.materialize(partitions, partition, ready, today, horizon)));
+                }
+                Exception failure = null;
+                for (Future<Integer> f : parts) {
+                    try {
+                        total += f.get();
+                    } catch (ExecutionException e) {
+                        if (failure == null) failure = e.getCause() instanceof Exception ex ? ex : e;
+                    }
+                }
+                if (failure != null) throw failure;
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        if (total > 0) TaskEvents.bulkAdded();
+        return total;
+    }
+}
@@ -0,0 +1,78 @@
+package com.todo.service;
+
+import com.todo.dao.CategoryDao;
+import com.todo.dao.ReportDao;
+import com.todo.dao.StatusDao;
+import com.todo.model.NameTable;
+import com.todo.model.User;
+import com.todo.report.ProductivityReport;
+import com.todo.report.ReportAccumulator;
+import com.todo.report.ReportEngine;
+import com.todo.report.ReportSpec;
+import com.todo.report.ReportWriter;
+
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// productivity reports over all users' live tasks (archived ones are not included): per user and per category,
+// tasks created and completed per day, completion ratio and in-progress tasks untouched for TODO_REPORT_STALE_DAYS.
+// the report shows every user's numbers, so only the users named in TODO_REPORT_MANAGERS may run it
+public class ReportService {
+    private final int defaultDays = Integer.getInteger("TODO_REPORT_DAYS", 30);
+    private final int defaultStaleDays = Integer.getInteger("TODO_REPORT_STALE_DAYS", 14);
+    // comma-separated user names; unset means nobody
+    private final Set<String> managers = Arrays.stream(System.getProperty("TODO_REPORT_MANAGERS", "").split(","))
+            .map(String::trim).filter(n -> !n.isEmpty()).collect(Collectors.toSet());
+
+    private final ReportEngine engine = new ReportEngine();
+    private final ReportDao reportDao = new ReportDao();
+    private final StatusDao statusDao = new StatusDao();
+    private final CategoryDao categoryDao = new CategoryDao();
+
+    public ProductivityReport productivity(User requester) throws Exception {
+        return productivity(requester, defaultDays, defaultStaleDays);
+    }
+
+    public ProductivityReport productivity(User requester, int days, int staleDays) throws Exception {
+        if (!isManager(requester))
+            throw new IllegalArgumentException("Only report managers (TODO_REPORT_MANAGERS) can run the productivity report.");
+        ReportSpec spec = ReportSpec.lastDays(days, staleDays, statusDao.getIdByName("completed"),
+                statusDao.getIdByName("in_progress"), statusDao.getIdByName("deleted"));
+
+        long start = System.nanoTime();
+        ReportAccumulator data = engine.run(spec);
+
+        Map<Integer, String> users = reportDao.userNames(data.byUser().keySet().stream().mapToInt(Integer::intValue).toArray());
+        categoryDao.primeCache();
+        Map<Integer, String> categories = new HashMap<>();
+        for (int id : data.byCategory().keySet()) categories.put(id, NameTable.CATEGORY.name(id));
+
+        return new ProductivityReport(data, users, categories, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public ProductivityReport export(User requester, Path target, ReportWriter.Format format, int days, int staleDays) throws Exception {
+        ProductivityReport report = productivity(requester, days, staleDays);
+        try (Writer out = Files.newBufferedWriter(target)) {
+            ReportWriter.write(report, format, out);
+        }
+        return report;
+    }
+
+    public boolean isManager(User user) {
+        return user != null && managers.contains(user.getName());
+    }
+
+    public int defaultDays() {
+        return defaultDays;
+    }
+
+    public int defaultStaleDays() {
+        return defaultStaleDays;
+    }
+}
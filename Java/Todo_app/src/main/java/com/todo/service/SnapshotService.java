@@ -0,0 +1,36 @@
+package com.todo.service;
+
+import com.todo.dao.TaskDao;
+import com.todo.model.Task;
+import com.todo.snapshot.TaskSnapshot;
+import com.todo.snapshot.TaskSnapshotWriter;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// binary task snapshots for warming caches or offline clients without replaying the list queries
+public class SnapshotService {
+    private final TaskDao taskDao = new TaskDao();
+
+    public int exportUser(int userId, Path target) throws Exception {
+        return export(userId, target);
+    }
+
+    public int exportAll(Path target) throws Exception {
+        return export(null, target);
+    }
+
+    public List<Task> load(Path source) throws Exception {
+        try (TaskSnapshot snapshot = TaskSnapshot.open(source)) {
+            return snapshot.toTasks();
+        }
+    }
+
+    private int export(Integer userId, Path target) throws Exception {
+        try (TaskSnapshotWriter writer = new TaskSnapshotWriter(target)) {
+            taskDao.scan(userId, writer::add);
+            writer.commit();
+            return writer.rows();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.todo.service;
+
+import com.todo.dao.TagDao;
+import com.todo.model.Task;
+import com.todo.model.TagFilter;
+import com.todo.util.CompressedBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+// per-user inverted index: tag -> compressed bitmap of task ids, plus a bitmap of every task the user owns
+// (what NOT is taken against). a user's index is loaded on their first tag query and kept current from TaskEvents;
+// events that arrive while a load is running are queued and replayed over the loaded state, which is safe because
+// every change is an idempotent set add/remove. indexes older than TODO_TAG_INDEX_REFRESH_MIN are reloaded to pick
+// up other processes' changes, and at most TODO_TAG_INDEX_USERS users are kept (least recently queried go first).
+// matches are candidates only: callers fetch the rows by id with the owner check, which also drops tasks that were
+// claimed by someone else or archived since
+public class TagIndex implements TaskListener {
+    private static final int MAX_USERS = Integer.getInteger("TODO_TAG_INDEX_USERS", 1000);
+    private static final long REFRESH_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("TODO_TAG_INDEX_REFRESH_MIN", 10));
+
+    private static final TagIndex SHARED = new TagIndex(new DaoLoader(new TagDao()), MAX_USERS, REFRESH_NANOS, System::nanoTime);
+
+    static {
+        // registered with the instance so a loaded index can never miss a mutation made through TaskService
+        TaskEvents.register(SHARED);
+    }
+
+    interface Loader {
+        // every task id the user owns
+        void tasks(int userId, IntConsumer consumer) throws Exception;
+
+        void tags(int userId, TagDao.TagHandler handler) throws Exception;
+    }
+
+    private static final class DaoLoader implements Loader {
+        private final TagDao dao;
+
+        DaoLoader(TagDao dao) {
+            this.dao = dao;
+        }
+
+        @Override
+        public void tasks(int userId, IntConsumer consumer) throws Exception {
+            dao.forEachTaskId(userId, consumer);
+        }
+
+        @Override
+        public void tags(int userId, TagDao.TagHandler handler) throws Exception {
+            dao.forEachTag(userId, handler);
+        }
+    }
+
+    private static final class Entry {
+        // held for the whole load; queries wait on it, events do not
+        final Object loadLock = new Object();
+        // the fields below are guarded by the entry itself
+        CompressedBitmap tasks = new CompressedBitmap();
+        Map<String, CompressedBitmap> byTag = new HashMap<>();
+        // non-null while (re)loading: changes to replay once the load is in
+        List<Consumer<Entry>> pending = new ArrayList<>();
+        long loadedAt;
+    }
+
+    private final Loader loader;
+    private final LongSupplier clock;
+    private final long refreshNanos;
+    private final LinkedHashMap<Integer, Entry> entries;
+
+    TagIndex(Loader loader, int maxUsers, long refreshNanos, LongSupplier clock) {
+        this.loader = loader;
+        this.clock = clock;
+        this.refreshNanos = refreshNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public static TagIndex shared() {
+        return SHARED;
+    }
+
+    // AND over the filter's groups (smallest first), OR within a group, minus every excluded tag
+    public CompressedBitmap match(int userId, TagFilter filter) throws Exception {
+        Entry e = loaded(userId);
+        synchronized (e) {
+            List<CompressedBitmap> groups = new ArrayList<>(filter.groups().size());
+            for (Set<String> group : filter.groups()) {
+                CompressedBitmap any = new CompressedBitmap();
+                for (String tag : group) {
+                    CompressedBitmap b = e.byTag.get(tag);
+                    if (b != null) any = CompressedBitmap.or(any, b);
+                }
+                if (any.isEmpty()) return any;
+                groups.add(any);
+            }
+            groups.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+
+            CompressedBitmap result = e.tasks;
+            for (CompressedBitmap g : groups) {
+                result = CompressedBitmap.and(g, result);
+                if (result.isEmpty()) return result;
+            }
+            for (String tag : filter.excluded()) {
+                CompressedBitmap b = e.byTag.get(tag);
+                if (b != null) result = CompressedBitmap.andNot(result, b);
+            }
+            return result == e.tasks ? result.copy() : result;
+        }
+    }
+
+    public int loadedUsers() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Entry loaded(int userId) throws Exception {
+        while (true) {
+            Entry e;
+            synchronized (entries) {
+                e = entries.computeIfAbsent(userId, k -> new Entry());
+            }
+            synchronized (e.loadLock) {
+                synchronized (entries) {
+                    // evicted, or dropped after a failed load, while this thread waited
+                    if (entries.get(userId) != e) continue;
+                }
+                synchronized (e) {
+                    if (e.pending == null) {
+                        if (clock.getAsLong() - e.loadedAt < refreshNanos) return e;
+                        e.pending = new ArrayList<>();
+                    }
+                }
+                load(userId, e);
+                return e;
+            }
+        }
+    }
+
+    private void load(int userId, Entry e) throws Exception {
+        CompressedBitmap tasks = new CompressedBitmap();
+        Map<String, CompressedBitmap> byTag = new HashMap<>();
+        try {
+            loader.tasks(userId, tasks::add);
+            loader.tags(userId, (tag, taskId) -> byTag.computeIfAbsent(tag, t -> new CompressedBitmap()).add(taskId));
+        } catch (Exception ex) {
+            synchronized (entries) {
+                entries.remove(userId, e);
+            }
+            throw ex;
+        }
+
+        synchronized (e) {
+            e.tasks = tasks;
+            e.byTag = byTag;
+            for (Consumer<Entry> change : e.pending) change.accept(e);
+            e.pending = null;
+            e.loadedAt = clock.getAsLong();
+        }
+    }
+
+    // users whose index is not loaded are skipped: their next load reads the change from the database
+    private void apply(int userId, Consumer<Entry> change) {
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(userId);
+        }
+        if (e == null) return;
+        synchronized (e) {
+            if (e.pending != null) e.pending.add(change);
+            else change.accept(e);
+        }
+    }
+
+    private void invalidate(int userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        int id = task.getId();
+        apply(task.getUserId(), e -> e.tasks.add(id));
+    }
+
+    @Override
+    public void taskTagged(int taskId, int ownerUserId, List<String> tags) {
+        apply(ownerUserId, e -> {
+            for (String tag : tags) e.byTag.computeIfAbsent(tag, t -> new CompressedBitmap()).add(taskId);
+        });
+    }
+
+    @Override
+    public void taskUntagged(int taskId, int ownerUserId, List<String> tags) {
+        apply(ownerUserId, e -> {
+            for (String tag : tags) {
+                CompressedBitmap b = e.byTag.get(tag);
+                if (b == null) continue;
+                b.remove(taskId);
+                if (b.isEmpty()) e.byTag.remove(tag);
+            }
+        });
+    }
+
+    // the new owner's index does not know the task's tags; rebuild it on their next query.
+    // the previous owner's stale ids are dropped by the owner check when rows are fetched
+    @Override
+    public void taskClaimed(Task task) {
+        invalidate(task.getUserId());
+    }
+
+    // occurrences for many users were inserted without per-task events
+    @Override
+    public void tasksBulkAdded() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+}
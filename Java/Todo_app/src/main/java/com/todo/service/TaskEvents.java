@@ -0,0 +1,69 @@
+package com.todo.service;
+
+import com.todo.model.Task;
+import com.todo.util.UnitOfWork;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// process-wide fan-out of TaskService mutations to in-memory consumers (reminders, indexes).
+// inside a UnitOfWork the fan-out waits for the commit and is dropped on rollback
+public class TaskEvents {
+    private static final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
+
+    public static void register(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void unregister(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    static void added(Task task) {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.taskAdded(task);
+        });
+    }
+
+    static void renamed(int taskId, String newName) {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.taskRenamed(taskId, newName);
+        });
+    }
+
+    static void statusChanged(int taskId, String statusName) {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.taskStatusChanged(taskId, statusName);
+        });
+    }
+
+    static void bulkAdded() {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.tasksBulkAdded();
+        });
+    }
+
+    static void dueDateChanged(Task task) {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.taskDueDateChanged(task);
+        });
+    }
+
+    static void tagged(int taskId, int ownerUserId, List<String> tags) {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.taskTagged(taskId, ownerUserId, tags);
+        });
+    }
+
+    static void untagged(int taskId, int ownerUserId, List<String> tags) {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.taskUntagged(taskId, ownerUserId, tags);
+        });
+    }
+
+    static void claimed(Task task) {
+        UnitOfWork.afterCommit(() -> {
+            for (TaskListener l : listeners) l.taskClaimed(task);
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package com.todo.service;
+
+import com.todo.model.Task;
+
+import java.util.List;
+
+// notified by TaskService after a mutation has been written; implementations must be quick and must not throw
+public interface TaskListener {
+
+    default void taskAdded(Task task) {
+    }
+
+    default void taskRenamed(int taskId, String newName) {
+    }
+
+    default void taskStatusChanged(int taskId, String statusName) {
+    }
+
+    // task carries id, owner, name and the new due date (null when cleared)
+    default void taskDueDateChanged(Task task) {
+    }
+
+    // tags were added to / removed from one of the owner's tasks (already normalized)
+    default void taskTagged(int taskId, int ownerUserId, List<String> tags) {
+    }
+
+    default void taskUntagged(int taskId, int ownerUserId, List<String> tags) {
+    }
+
+    // the task moved to a new owner (task.getUserId()) through the shared queue
+    default void taskClaimed(Task task) {
+    }
+
+    // many tasks were inserted by one statement (recurring occurrences); consumers reload what they cache
+    default void tasksBulkAdded() {
+    }
+}
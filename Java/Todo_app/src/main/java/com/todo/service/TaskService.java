@@ -1,18 +1,51 @@
 package com.todo.service;
 
 import com.todo.dao.CategoryDao;
+import com.todo.dao.ChangeStampDao;
+import com.todo.dao.RankDao;
 import com.todo.dao.StatusDao;
+import com.todo.dao.TagDao;
 import com.todo.dao.TaskDao;
+import com.todo.dao.TaskHistoryDao;
+import com.todo.dao.TaskQuery;
+import com.todo.dao.TaskShareDao;
+import com.todo.dao.TaskTreeDao;
+import com.todo.model.CycleTime;
+import com.todo.model.CycleTimeStats;
+import com.todo.model.SharePermission;
+import com.todo.model.StatusChange;
+import com.todo.model.TagFilter;
 import com.todo.model.Task;
+import com.todo.model.TaskListChanges;
+import com.todo.model.TaskNode;
+import com.todo.model.TaskShare;
+import com.todo.util.PrefixIndex;
+import com.todo.util.RankKeys;
+import com.todo.util.UnitOfWork;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 public class TaskService {
     private final TaskDao taskDao = new TaskDao();
     private final StatusDao statusDao = new StatusDao();
     private final CategoryDao categoryDao = new CategoryDao();
+    private final TaskHistoryDao historyDao = new TaskHistoryDao();
+    private final TaskShareDao shareDao = new TaskShareDao();
+    private final TagDao tagDao = new TagDao();
+    private final RankDao rankDao = new RankDao();
+    private final ChangeStampDao stampDao = new ChangeStampDao();
+    private final TaskTreeDao treeDao = new TaskTreeDao();
+    private final TagIndex tagIndex = TagIndex.shared();
+    private final AutocompleteService autocomplete = AutocompleteService.shared();
 
     public Task addTask(String taskName, int userId, String categoryName) throws Exception {
+        return addTask(taskName, userId, categoryName, null);
+    }
+
+    public Task addTask(String taskName, int userId, String categoryName, LocalDateTime dueDate) throws Exception {
         if (taskName == null || taskName.trim().isEmpty())
             throw new IllegalArgumentException("Task name cannot be empty.");
 
@@ -20,29 +53,103 @@ public class TaskService {
 
         int ready = statusDao.getIdByName("ready_to_pick");
 
-        return taskDao.createTask(taskName.trim(), ready, userId, categoryId);
+        Task created = taskDao.createTask(taskName.trim(), ready, userId, categoryId, dueDate);
+        TaskEvents.added(created);
+        return created;
+    }
+
+    // null clears the due date
+    public Task setDueDate(int taskId, int loggedInUserId, LocalDateTime dueDate) throws Exception {
+        Task updated = taskDao.setDueDate(taskId, loggedInUserId, dueDate);
+        TaskEvents.dueDateChanged(updated);
+        return updated;
     }
 
-    public void editTask(int taskId,  String newName) throws Exception {
+    // owner or editor; the permission check is part of the UPDATE
+    public void editTask(int taskId, int loggedInUserId, String newName) throws Exception {
         if (newName == null || newName.trim().isEmpty())
             throw new IllegalArgumentException("Task name cannot be empty.");
 
-//        if (!taskDao.isTaskOwnedBy(taskId, loggedInUserId))
-//            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        int inProgress = statusDao.getIdByName("in_progress");
+        reopening(taskId, () -> {
+            taskDao.updateTask(taskId, loggedInUserId, newName.trim(), inProgress);
+            return true;
+        }, null);
+        TaskEvents.renamed(taskId, newName.trim());
+        TaskEvents.statusChanged(taskId, "in_progress");
+    }
+
+    // optimistic variant: fails with TaskConflictException if the task changed since it was read
+    public void editTask(int taskId, int loggedInUserId, String newName, int expectedVersion) throws Exception {
+        if (newName == null || newName.trim().isEmpty())
+            throw new IllegalArgumentException("Task name cannot be empty.");
 
         int inProgress = statusDao.getIdByName("in_progress");
-        taskDao.updateTask(taskId, newName.trim(), inProgress);
+        reopening(taskId, () -> {
+            taskDao.updateTask(taskId, loggedInUserId, newName.trim(), inProgress, expectedVersion);
+            return true;
+        }, null);
+        TaskEvents.renamed(taskId, newName.trim());
+        TaskEvents.statusChanged(taskId, "in_progress");
     }
 
     public void startTask(int taskId, int loggedInUserId) throws Exception {
-        if (!taskDao.isTaskOwnedBy(taskId, loggedInUserId)) {
-            throw new IllegalArgumentException("You are not allowed to start this task.");
-        }
+        int inProgress = statusDao.getIdByName("in_progress");
+        reopening(taskId, () -> taskDao.markTaskStatusAs(taskId, inProgress, loggedInUserId),
+                "You are not allowed to start this task.");
+        TaskEvents.statusChanged(taskId, "in_progress");
+    }
+
+    public void startTask(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
+        int inProgress = statusDao.getIdByName("in_progress");
+        reopening(taskId, () -> taskDao.markTaskStatusAs(taskId, inProgress, loggedInUserId, expectedVersion),
+                "You are not allowed to start this task.");
+        TaskEvents.statusChanged(taskId, "in_progress");
+    }
+
+    private interface StatusUpdate {
+        boolean run() throws Exception;
+    }
 
+    // a task that is worked on again (started, blocked, renamed) takes its completed ancestors back to in_progress
+    // in the same transaction, so a parent never stays completed over an open subtask. the ancestors are locked
+    // before the task itself; notAllowed is thrown when the update returns false
+    private void reopening(int taskId, StatusUpdate update, String notAllowed) throws Exception {
+        int completed = statusDao.getIdByName("completed");
         int inProgress = statusDao.getIdByName("in_progress");
-        taskDao.markTaskStatus(taskId, inProgress);
+        List<Integer> reopened = UnitOfWork.call(() -> {
+            treeDao.lockAncestors(taskId);
+            if (!update.run())
+                throw new IllegalArgumentException(notAllowed);
+            return treeDao.reopenAncestors(taskId, completed, inProgress);
+        });
+        for (int id : reopened) TaskEvents.statusChanged(id, "in_progress");
+    }
+
+
+    // pull model: take the oldest ready_to_pick task in the category and start it for the worker
+    public Optional<Task> claimNextTask(String categoryName, int workerUserId) throws Exception {
+        List<Task> claimed = claimTasks(categoryName, workerUserId, 1);
+        return claimed.isEmpty() ? Optional.empty() : Optional.of(claimed.get(0));
     }
 
+    public List<Task> claimTasks(String categoryName, int workerUserId, int count) throws Exception {
+        if (categoryName == null || categoryName.trim().isEmpty())
+            throw new IllegalArgumentException("Category name cannot be empty.");
+        if (count < 1)
+            throw new IllegalArgumentException("Claim count must be at least 1.");
+
+        // resolves the name first so a typo is reported instead of looking like an empty queue
+        return UnitOfWork.call(() -> {
+            categoryDao.getIdByName(categoryName.trim());
+            List<Task> claimed = taskDao.claimNext(categoryName.trim(), workerUserId, count);
+            for (Task t : claimed) {
+                TaskEvents.claimed(t);
+                TaskEvents.statusChanged(t.getId(), "in_progress");
+            }
+            return claimed;
+        });
+    }
 
     public List<Task> getActiveTasks(int userId) throws Exception {
         // exclude deleted tasks by default
@@ -50,37 +157,223 @@ public class TaskService {
     }
 
     public void markCompleted(int taskId, int loggedInUserId) throws Exception {
-        if (!taskDao.isTaskOwnedBy(taskId, loggedInUserId))
-            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        complete(taskId, loggedInUserId, null);
+    }
 
+    public void markCompleted(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
+        complete(taskId, loggedInUserId, expectedVersion);
+    }
+
+    // a task with subtasks can only be completed once all of them are (deleted subtasks do not count); the
+    // subtasks stay locked until the status is written, and reopening one later reopens the task (reopening())
+    private void complete(int taskId, int loggedInUserId, Integer expectedVersion) throws Exception {
         int completed = statusDao.getIdByName("completed");
-        taskDao.markTaskStatus(taskId, completed);
+        int deleted = statusDao.getIdByName("deleted");
+        UnitOfWork.call(() -> {
+            // the task first, then its subtasks: a concurrent addSubtask waits on the same row and then sees it completed
+            treeDao.lockTask(taskId);
+            int open = treeDao.lockOpenSubtasks(taskId, completed, deleted);
+            if (open > 0 && taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("Complete its subtasks first (" + open + " still open).");
+            boolean updated = open == 0 && (expectedVersion != null
+                    ? taskDao.markTaskStatusAs(taskId, completed, loggedInUserId, expectedVersion)
+                    : taskDao.markTaskStatusAs(taskId, completed, loggedInUserId));
+            if (!updated)
+                throw new IllegalArgumentException("You are not allowed to modify this task.");
+            return null;
+        });
+        TaskEvents.statusChanged(taskId, "completed");
     }
 
     public void markBlocked(int taskId, int loggedInUserId) throws Exception {
-        if (!taskDao.isTaskOwnedBy(taskId, loggedInUserId))
-            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        int blocked = statusDao.getIdByName("blocked");
+        reopening(taskId, () -> taskDao.markTaskStatusAs(taskId, blocked, loggedInUserId),
+                "You are not allowed to modify this task.");
+        TaskEvents.statusChanged(taskId, "blocked");
+    }
 
+    public void markBlocked(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
         int blocked = statusDao.getIdByName("blocked");
-        taskDao.markTaskStatus(taskId, blocked);
+        reopening(taskId, () -> taskDao.markTaskStatusAs(taskId, blocked, loggedInUserId, expectedVersion),
+                "You are not allowed to modify this task.");
+        TaskEvents.statusChanged(taskId, "blocked");
     }
 
     public void deleteTask(int taskId, int loggedInUserId) throws Exception {
-        if (!taskDao.isTaskOwnedBy(taskId, loggedInUserId))
+        int deleted = statusDao.getIdByName("deleted");
+        if (!taskDao.markOwnTaskStatus(taskId, deleted, loggedInUserId))
             throw new IllegalArgumentException("You are not allowed to modify this task.");
+        TaskEvents.statusChanged(taskId, "deleted");
+    }
 
+    public void deleteTask(int taskId, int loggedInUserId, int expectedVersion) throws Exception {
         int deleted = statusDao.getIdByName("deleted");
-        taskDao.markTaskStatus(taskId, deleted);
+        if (!taskDao.markOwnTaskStatus(taskId, deleted, loggedInUserId, expectedVersion))
+            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        TaskEvents.statusChanged(taskId, "deleted");
     }
 
     public List<Task> viewMyTasks(int userId) throws Exception {
         return taskDao.listByUser(userId);
     }
 
+    // archived rows live in a separate table, so callers have to ask for them explicitly
+    public List<Task> viewMyTasks(int userId, boolean includeArchived) throws Exception {
+        return includeArchived ? taskDao.listByUserIncludingArchived(userId) : taskDao.listByUser(userId);
+    }
+
+    // viewMyTasks for a caller that already holds the list as of knownStamp: when nothing changed this is two
+    // index probes. the stamp is read before the list, so the list is never older than the stamp it comes with
+    public TaskListChanges listIfChanged(int userId, long knownStamp) throws Exception {
+        ChangeStampDao.Changes c = stampDao.since(userId, knownStamp);
+        if (knownStamp > 0 && knownStamp <= c.stamp() && !c.changed() && !c.removed())
+            return TaskListChanges.unchanged(c.stamp());
+        return new TaskListChanges(c.stamp(), TaskListChanges.Kind.FULL, taskDao.listByUser(userId));
+    }
+
+    // like listIfChanged, but returns only the tasks written since knownStamp. falls back to the full list when a
+    // delta cannot be complete: a task left the list since knownStamp (archived, claimed or assigned away), or
+    // the stamp is not one this service handed out (0, or ahead of the current watermark). a task written just
+    // before the stamp may be sent again; callers replace by id
+    public TaskListChanges listChangesSince(int userId, long knownStamp) throws Exception {
+        ChangeStampDao.Changes c = stampDao.since(userId, knownStamp);
+        if (knownStamp <= 0 || knownStamp > c.stamp() || c.removed())
+            return new TaskListChanges(c.stamp(), TaskListChanges.Kind.FULL, taskDao.listByUser(userId));
+        if (!c.changed()) return TaskListChanges.unchanged(c.stamp());
+        return new TaskListChanges(c.stamp(), TaskListChanges.Kind.DELTA, taskDao.listChangedSince(userId, knownStamp));
+    }
+
     public List<Task> filterMyTasksByNames(int userId, String statusName, String categoryName) throws Exception {
         return taskDao.filterByNames(userId, statusName, categoryName);
     }
 
+    public List<Task> findMyTasks(TaskQuery query) throws Exception {
+        return taskDao.query(query);
+    }
+
+    // owner-only manual order of viewMyTasks: the task is placed right before / after the anchor task
+    public void moveBefore(int taskId, int anchorTaskId, int ownerUserId) throws Exception {
+        move(taskId, anchorTaskId, ownerUserId, true);
+    }
+
+    public void moveAfter(int taskId, int anchorTaskId, int ownerUserId) throws Exception {
+        move(taskId, anchorTaskId, ownerUserId, false);
+    }
+
+    // rewrites only the moved task's rank key. the first time the anchor itself has no key, the tasks without a key
+    // listed down to it get keys in their current order first (one statement), so nothing else moves
+    private void move(int taskId, int anchorTaskId, int ownerUserId, boolean before) throws Exception {
+        if (taskId == anchorTaskId)
+            throw new IllegalArgumentException("A task cannot be moved next to itself.");
+
+        UnitOfWork.call(() -> {
+            rankDao.lock(ownerUserId);
+            RankDao.Neighbors n = rankDao.neighbors(anchorTaskId, taskId, ownerUserId);
+            if (n == null)
+                throw new IllegalArgumentException("You are not allowed to modify this task.");
+            if (n.anchor() == null) {
+                String last = rankDao.maxKey(ownerUserId);
+                int[] ids = rankDao.unrankedUpTo(anchorTaskId, taskId, ownerUserId);
+                String[] keys = RankKeys.spread(ids.length);
+                if (last != null) for (int i = 0; i < keys.length; i++) keys[i] = last + keys[i];
+                rankDao.setKeys(ownerUserId, ids, keys);
+                n = rankDao.neighbors(anchorTaskId, taskId, ownerUserId);
+            }
+
+            String key = before ? RankKeys.between(n.prev(), n.anchor()) : RankKeys.between(n.anchor(), n.next());
+            if (!rankDao.setKey(taskId, ownerUserId, key))
+                throw new IllegalArgumentException("You are not allowed to modify this task.");
+            if (key.length() > RankRebalancer.MAX_KEY_LENGTH)
+                UnitOfWork.afterCommit(() -> RankRebalancer.shared().schedule(ownerUserId));
+            return null;
+        });
+    }
+
+    // subtasks: task_closure (TaskTreeDao) holds every ancestor/descendant pair, so reading a subtree, the path
+    // to the top or the rolled-up progress is one query however deep the tree is. only the owner of both tasks
+    // can link them, and a completed task takes no new subtasks
+    public Task addSubtask(int parentTaskId, String taskName, int ownerUserId) throws Exception {
+        if (taskName == null || taskName.trim().isEmpty())
+            throw new IllegalArgumentException("Task name cannot be empty.");
+
+        int ready = statusDao.getIdByName("ready_to_pick");
+        int completed = statusDao.getIdByName("completed");
+        Task created = UnitOfWork.call(() -> {
+            // a new leaf cannot close a cycle, so only the parent's chain is locked: the parent cannot be completed,
+            // and no ancestor moved, until the subtask is linked under it
+            treeDao.lockChains(parentTaskId);
+            Task parent = ownedTask(parentTaskId, ownerUserId);
+            if (parent.getStatusId() == completed)
+                throw new IllegalArgumentException("A completed task cannot get new subtasks.");
+            // subtasks inherit the parent's category
+            Task task = taskDao.createTask(taskName.trim(), ready, ownerUserId, parent.getCategoryId());
+            treeDao.attach(task.getId(), parentTaskId);
+            return task;
+        });
+        TaskEvents.added(created);
+        return created;
+    }
+
+    // moves the task with all of its subtasks under newParentTaskId (0 = make it a top-level task), in one
+    // transaction: the pairs linking the subtree to its old ancestors are deleted and the new ones inserted
+    public void moveSubtree(int taskId, int newParentTaskId, int ownerUserId) throws Exception {
+        if (taskId == newParentTaskId)
+            throw new IllegalArgumentException("A task cannot be its own subtask.");
+
+        int completed = statusDao.getIdByName("completed");
+        UnitOfWork.call(() -> {
+            // the moved subtree's root, the new parent and both ancestor chains; nothing else in the tree waits
+            if (newParentTaskId != 0) treeDao.lockChains(taskId, newParentTaskId);
+            else treeDao.lockChains(taskId);
+            ownedTask(taskId, ownerUserId);
+            if (newParentTaskId != 0) {
+                Task parent = ownedTask(newParentTaskId, ownerUserId);
+                if (treeDao.isDescendant(newParentTaskId, taskId))
+                    throw new IllegalArgumentException("A task cannot be moved under one of its own subtasks.");
+                if (parent.getStatusId() == completed)
+                    throw new IllegalArgumentException("A completed task cannot get new subtasks.");
+            }
+            treeDao.detach(taskId);
+            if (newParentTaskId != 0) treeDao.attach(taskId, newParentTaskId);
+            return null;
+        });
+    }
+
+    // the task and all of its subtasks, depth-first
+    public List<TaskNode> getSubtree(int taskId, int loggedInUserId) throws Exception {
+        return UnitOfWork.read(() -> {
+            if (!taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("You are not allowed to view this task.");
+            return TaskNode.treeOrder(taskId, taskDao.listSubtree(taskId));
+        });
+    }
+
+    // top-level task first, direct parent last; empty for a top-level task
+    public List<Task> getAncestors(int taskId, int loggedInUserId) throws Exception {
+        return UnitOfWork.read(() -> {
+            if (!taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("You are not allowed to view this task.");
+            return taskDao.listAncestors(taskId);
+        });
+    }
+
+    public TaskTreeDao.Progress getSubtaskProgress(int taskId, int loggedInUserId) throws Exception {
+        int completed = statusDao.getIdByName("completed");
+        int deleted = statusDao.getIdByName("deleted");
+        return UnitOfWork.read(() -> {
+            if (!taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("You are not allowed to view this task.");
+            return treeDao.progress(taskId, completed, deleted);
+        });
+    }
+
+    private Task ownedTask(int taskId, int ownerUserId) throws Exception {
+        List<Task> found = taskDao.query(TaskQuery.forUser(ownerUserId).ids(new int[]{taskId}));
+        if (found.isEmpty())
+            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        return found.get(0);
+    }
+
     public List<String> getAllCategoryNames() throws Exception {
         return categoryDao.listCategoryNames();
     }
@@ -88,5 +381,118 @@ public class TaskService {
     public List<Task> getStartableTasks(int userId) throws Exception {
         return taskDao.listStartableTasksByUser(userId);
     }
-}
 
+    // owner-only; sharing with the same user again changes the permission
+    public void shareTask(int taskId, int ownerUserId, String username, SharePermission permission) throws Exception {
+        if (username == null || username.trim().isEmpty())
+            throw new IllegalArgumentException("Username cannot be empty.");
+        if (permission == null)
+            throw new IllegalArgumentException("Permission cannot be empty.");
+
+        if (!shareDao.share(taskId, ownerUserId, username.trim(), permission))
+            throw new IllegalArgumentException("You can only share your own tasks with another existing user.");
+    }
+
+    public void unshareTask(int taskId, int ownerUserId, String username) throws Exception {
+        if (username == null || username.trim().isEmpty())
+            throw new IllegalArgumentException("Username cannot be empty.");
+
+        if (!shareDao.unshare(taskId, ownerUserId, username.trim()))
+            throw new IllegalArgumentException("Task is not shared with that user.");
+    }
+
+    public List<TaskShare> getShares(int taskId, int loggedInUserId) throws Exception {
+        // permission check and read share one connection
+        return UnitOfWork.read(() -> {
+            if (!taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("You are not allowed to view this task.");
+            return shareDao.listShares(taskId, loggedInUserId);
+        });
+    }
+
+    // owned and shared tasks, most recently updated first; limit null returns all of them
+    public List<Task> viewVisibleTasks(int userId, Integer limit) throws Exception {
+        if (limit != null && limit < 1)
+            throw new IllegalArgumentException("Limit must be at least 1.");
+        return taskDao.listVisibleTo(userId, limit);
+    }
+
+    // owner-only; adding a tag the task already has is a no-op
+    public void tagTask(int taskId, int ownerUserId, List<String> tags) throws Exception {
+        List<String> normalized = normalizeTags(tags);
+        if (!tagDao.addTags(taskId, ownerUserId, normalized))
+            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        TaskEvents.tagged(taskId, ownerUserId, normalized);
+    }
+
+    public void untagTask(int taskId, int ownerUserId, List<String> tags) throws Exception {
+        List<String> normalized = normalizeTags(tags);
+        if (!tagDao.removeTags(taskId, ownerUserId, normalized))
+            throw new IllegalArgumentException("You are not allowed to modify this task.");
+        TaskEvents.untagged(taskId, ownerUserId, normalized);
+    }
+
+    public List<String> getTags(int taskId, int loggedInUserId) throws Exception {
+        return UnitOfWork.read(() -> {
+            if (!taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("You are not allowed to view this task.");
+            return tagDao.listTags(taskId);
+        });
+    }
+
+    // the tag index picks the candidate ids in memory; only those rows are read, in list order
+    public List<Task> findByTags(int userId, TagFilter filter, Integer limit) throws Exception {
+        // a cold index loads through the same connection as the query
+        return UnitOfWork.read(() -> {
+            int[] ids = tagIndex.match(userId, filter).toArray();
+            return taskDao.query(TaskQuery.forUser(userId).ids(ids).excludingStatuses("deleted").limit(limit));
+        });
+    }
+
+    private static List<String> normalizeTags(List<String> tags) {
+        if (tags == null || tags.isEmpty())
+            throw new IllegalArgumentException("At least one tag is required.");
+        List<String> out = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            String t = TagFilter.normalize(tag);
+            if (!out.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    // the user's own task names starting with prefix (case-insensitive), most recently updated first
+    public List<PrefixIndex.Match> suggestTasks(int userId, String prefix, int limit) throws Exception {
+        return autocomplete.suggestTasks(userId, prefix, limit);
+    }
+
+    // category names starting with prefix, most recently used first
+    public List<String> suggestCategories(String prefix, int limit) throws Exception {
+        return autocomplete.suggestCategories(prefix, limit);
+    }
+
+    public List<StatusChange> getStatusHistory(int taskId, int loggedInUserId) throws Exception {
+        return UnitOfWork.read(() -> {
+            if (!taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("You are not allowed to view this task.");
+            return historyDao.listByTask(taskId);
+        });
+    }
+
+    public CycleTime getCycleTime(int taskId, int loggedInUserId) throws Exception {
+        return UnitOfWork.read(() -> {
+            if (!taskDao.canView(taskId, loggedInUserId))
+                throw new IllegalArgumentException("You are not allowed to view this task.");
+            return historyDao.cycleTime(taskId);
+        });
+    }
+
+    // tasks the user completed in [from, to)
+    public CycleTimeStats getCycleTimeStatsForUser(int userId, LocalDateTime from, LocalDateTime to) throws Exception {
+        return historyDao.statsForUser(userId, from, to);
+    }
+
+    public CycleTimeStats getCycleTimeStatsForCategory(String categoryName, LocalDateTime from, LocalDateTime to) throws Exception {
+        int categoryId = categoryDao.getIdByName(categoryName);
+        return historyDao.statsForCategory(categoryId, from, to);
+    }
+}
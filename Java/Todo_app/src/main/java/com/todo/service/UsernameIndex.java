@@ -0,0 +1,80 @@
+package com.todo.service;
+
+import com.todo.dao.UserDao;
+import com.todo.util.BloomFilter;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// in-memory Bloom filter of existing usernames: "not in the filter" means the name is free and needs no query.
+// registrations made by this process are added as they happen; names registered by other processes show up
+// with the next reload (every TODO_USERNAME_INDEX_REFRESH_MIN minutes), so a stale "free" is possible and
+// the INSERT ... ON CONFLICT in register() stays the authority
+public class UsernameIndex {
+    private static final UsernameIndex SHARED = new UsernameIndex(new UserDao());
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = Long.getLong("TODO_USERNAME_BLOOM_CAPACITY", 100_000);
+    private static final long REFRESH_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("TODO_USERNAME_INDEX_REFRESH_MIN", 10));
+
+    private final UserDao userDao;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private volatile BloomFilter filter;
+    // filter being rebuilt; registrations during a reload go into both
+    private volatile BloomFilter building;
+    private volatile long loadedAt;
+
+    UsernameIndex(UserDao userDao) {
+        this.userDao = userDao;
+    }
+
+    public static UsernameIndex shared() {
+        return SHARED;
+    }
+
+    // sized for twice the current user count so it stays accurate while the table grows
+    public void load() throws SQLException {
+        if (!loading.compareAndSet(false, true)) return;
+        try {
+            BloomFilter next = new BloomFilter(Math.max(MIN_CAPACITY, 2 * userDao.countUsers()), FALSE_POSITIVE_RATE);
+            building = next;
+            userDao.forEachName(next::put);
+            filter = next;
+            loadedAt = System.nanoTime();
+        } finally {
+            building = null;
+            loading.set(false);
+        }
+    }
+
+    public void loadInBackground() {
+        Thread t = new Thread(() -> {
+            try {
+                load();
+            } catch (Exception e) {
+                System.err.println("Could not load usernames: " + e.getMessage());
+            }
+        }, "todo-username-index");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public void added(String name) {
+        BloomFilter f = filter, b = building;
+        if (f != null) f.put(name);
+        if (b != null) b.put(name);
+    }
+
+    // false only when the name is certainly not taken (as of the last load); true before the first load
+    public boolean mightExist(String name) {
+        BloomFilter f = filter;
+        if (f == null) return true;
+        if (System.nanoTime() - loadedAt > REFRESH_NANOS) loadInBackground();
+        return f.mightContain(name);
+    }
+
+    public boolean isLoaded() {
+        return filter != null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.todo.snapshot;
+
+// layout of a task snapshot file, all little-endian:
+//
+//   int magic, int formatVersion, int rowCount, int columnCount
+//   columnCount x (long offset, long byteLength)
+//   column data, each column starting on an 8-byte boundary
+//
+// fixed-width columns hold one value per row in row order; NAME_REF/USERNAME_REF index the string
+// dictionary (-1 = null), which is STRING_OFFSETS (count + 1 ints into STRING_BYTES) plus UTF-8 bytes.
+// STATUS_NAMES/CATEGORY_NAMES are (id, string ref) pairs for the ids used by the rows
+final class SnapshotFormat {
+    static final int MAGIC = 0x54534E31; // "TSN1"
+    static final int VERSION = 1;
+
+    enum Column {
+        ID(4), USER_ID(4), STATUS_ID(4), CATEGORY_ID(4), VERSION(4),
+        CREATED(8), UPDATED(8), DUE(8),
+        NAME_REF(4), USERNAME_REF(4),
+        STRING_OFFSETS(4), STRING_BYTES(1),
+        STATUS_NAMES(4), CATEGORY_NAMES(4);
+
+        final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+    }
+
+    static final int HEADER_BYTES = 16 + Column.values().length * 16;
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,169 @@
+package com.todo.snapshot;
+
+import com.todo.model.NameTable;
+import com.todo.model.Task;
+import com.todo.snapshot.SnapshotFormat.Column;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// read side of TaskSnapshotWriter: every column is memory-mapped on its own and exposed as an Int/LongBuffer
+// view over the mapping, so scanning a column copies nothing onto the heap. strings are decoded on first
+// access and then shared. the mappings stay valid until they are garbage collected, even after close()
+public class TaskSnapshot implements AutoCloseable {
+    private final FileChannel channel;
+    private final int rows;
+    private final Map<Column, ByteBuffer> columns = new EnumMap<>(Column.class);
+    private final String[] strings;
+
+    private TaskSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SnapshotFormat.HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != SnapshotFormat.MAGIC) throw new IOException("Not a task snapshot.");
+        int version = header.getInt();
+        if (version != SnapshotFormat.VERSION) throw new IOException("Unsupported snapshot version: " + version);
+        this.rows = header.getInt();
+        if (header.getInt() != Column.values().length) throw new IOException("Corrupt snapshot header.");
+
+        long fileSize = channel.size();
+        for (Column col : Column.values()) {
+            long offset = header.getLong();
+            long length = header.getLong();
+            if (offset < 0 || length < 0 || offset + length > fileSize) throw new IOException("Corrupt snapshot header.");
+            columns.put(col, channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        this.strings = new String[column(Column.STRING_OFFSETS).remaining() / 4 - 1];
+
+        registerNames(Column.STATUS_NAMES, NameTable.STATUS);
+        registerNames(Column.CATEGORY_NAMES, NameTable.CATEGORY);
+    }
+
+    public static TaskSnapshot open(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new TaskSnapshot(ch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public IntBuffer ids() {
+        return ints(Column.ID);
+    }
+
+    public IntBuffer userIds() {
+        return ints(Column.USER_ID);
+    }
+
+    public IntBuffer statusIds() {
+        return ints(Column.STATUS_ID);
+    }
+
+    public IntBuffer categoryIds() {
+        return ints(Column.CATEGORY_ID);
+    }
+
+    public IntBuffer versions() {
+        return ints(Column.VERSION);
+    }
+
+    public LongBuffer createdMicros() {
+        return longs(Column.CREATED);
+    }
+
+    public LongBuffer updatedMicros() {
+        return longs(Column.UPDATED);
+    }
+
+    public LongBuffer dueMicros() {
+        return longs(Column.DUE);
+    }
+
+    public String taskName(int row) {
+        return string(columns.get(Column.NAME_REF).getInt(row * 4));
+    }
+
+    public String username(int row) {
+        return string(columns.get(Column.USERNAME_REF).getInt(row * 4));
+    }
+
+    public Task task(int row) {
+        return new Task(
+                columns.get(Column.ID).getInt(row * 4),
+                taskName(row),
+                columns.get(Column.STATUS_ID).getInt(row * 4),
+                columns.get(Column.CATEGORY_ID).getInt(row * 4),
+                columns.get(Column.USER_ID).getInt(row * 4),
+                username(row),
+                columns.get(Column.CREATED).getLong(row * 8),
+                columns.get(Column.UPDATED).getLong(row * 8),
+                columns.get(Column.VERSION).getInt(row * 4),
+                columns.get(Column.DUE).getLong(row * 8));
+    }
+
+    public List<Task> toTasks() {
+        List<Task> out = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) out.add(task(i));
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String string(int ref) {
+        if (ref < 0) return null;
+        String s = strings[ref];
+        if (s == null) {
+            ByteBuffer offsets = columns.get(Column.STRING_OFFSETS);
+            int start = offsets.getInt(ref * 4);
+            int end = offsets.getInt(ref * 4 + 4);
+            byte[] bytes = new byte[end - start];
+            columns.get(Column.STRING_BYTES).get(start, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[ref] = s;
+        }
+        return s;
+    }
+
+    // a snapshot may be read before the process has seen these ids from the database
+    private void registerNames(Column col, NameTable table) {
+        ByteBuffer pairs = columns.get(col);
+        for (int i = 0; i + 8 <= pairs.limit(); i += 8) {
+            int id = pairs.getInt(i);
+            String name = string(pairs.getInt(i + 4));
+            if (id > 0 && name != null && !table.contains(id)) table.put(id, name);
+        }
+    }
+
+    private ByteBuffer column(Column col) {
+        return columns.get(col).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private IntBuffer ints(Column col) {
+        return column(col).asIntBuffer();
+    }
+
+    private LongBuffer longs(Column col) {
+        return column(col).asLongBuffer();
+    }
+}
@@ -0,0 +1,187 @@
+package com.todo.snapshot;
+
+import com.todo.model.NameTable;
+import com.todo.model.Task;
+import com.todo.snapshot.SnapshotFormat.Column;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// writes tasks as they arrive (e.g. from TaskDao.scan) into one spill file per column, then stitches the
+// columns together behind a header on commit(). memory use is the string dictionary plus one small buffer
+// per column; the target file is replaced atomically, so readers never see a half-written snapshot.
+// like a unit of work, close() without commit() (the scan threw) only removes the spill files
+public class TaskSnapshotWriter implements AutoCloseable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path target;
+    private final Path tmp;
+    private final Map<Column, Spill> spills = new EnumMap<>(Column.class);
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final Map<Integer, Integer> statusRefs = new TreeMap<>();
+    private final Map<Integer, Integer> categoryRefs = new TreeMap<>();
+    private int rows;
+    private int stringBytes;
+    private boolean committed;
+    private boolean closed;
+
+    public TaskSnapshotWriter(Path target) throws IOException {
+        this.target = target;
+        Path dir = target.toAbsolutePath().getParent();
+        this.tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        for (Column col : Column.values()) spills.put(col, new Spill(Files.createTempFile(dir, "col-", ".tmp")));
+        spill(Column.STRING_OFFSETS).putInt(0);
+    }
+
+    public void add(Task t) throws IOException {
+        spill(Column.ID).putInt(t.getId());
+        spill(Column.USER_ID).putInt(t.getUserId());
+        spill(Column.STATUS_ID).putInt(t.getStatusId());
+        spill(Column.CATEGORY_ID).putInt(t.getCategoryId());
+        spill(Column.VERSION).putInt(t.getVersion());
+        spill(Column.CREATED).putLong(t.getCreatedMicros());
+        spill(Column.UPDATED).putLong(t.getUpdatedMicros());
+        spill(Column.DUE).putLong(t.getDueMicros());
+        spill(Column.NAME_REF).putInt(ref(t.getTask_name()));
+        spill(Column.USERNAME_REF).putInt(ref(t.getUsername()));
+
+        if (t.getStatusId() != 0 && !statusRefs.containsKey(t.getStatusId()))
+            statusRefs.put(t.getStatusId(), ref(NameTable.STATUS.name(t.getStatusId())));
+        if (t.getCategoryId() != 0 && !categoryRefs.containsKey(t.getCategoryId()))
+            categoryRefs.put(t.getCategoryId(), ref(NameTable.CATEGORY.name(t.getCategoryId())));
+        rows++;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    // publishes the snapshot; call once, after the last add()
+    public void commit() throws IOException {
+        if (committed || closed) throw new IllegalStateException("Snapshot already committed or closed.");
+        committed = true;
+        try {
+            for (Map.Entry<Integer, Integer> e : statusRefs.entrySet())
+                spill(Column.STATUS_NAMES).putInt(e.getKey()).putInt(e.getValue());
+            for (Map.Entry<Integer, Integer> e : categoryRefs.entrySet())
+                spill(Column.CATEGORY_NAMES).putInt(e.getKey()).putInt(e.getValue());
+            for (Spill s : spills.values()) s.flush();
+
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(SnapshotFormat.MAGIC).putInt(SnapshotFormat.VERSION).putInt(rows).putInt(Column.values().length);
+
+                long position = SnapshotFormat.align(SnapshotFormat.HEADER_BYTES);
+                for (Column col : Column.values()) {
+                    long length = spill(col).size;
+                    header.putLong(position).putLong(length);
+                    position = SnapshotFormat.align(position + length);
+                }
+                header.flip();
+                while (header.hasRemaining()) out.write(header);
+
+                for (Column col : Column.values()) {
+                    Spill s = spill(col);
+                    out.position(SnapshotFormat.align(out.position()));
+                    try (FileChannel in = FileChannel.open(s.path, StandardOpenOption.READ)) {
+                        long done = 0;
+                        while (done < s.size) done += in.transferTo(done, s.size - done, out);
+                    }
+                }
+                out.force(false);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            close();
+        }
+    }
+
+    // the target is left untouched unless commit() ran
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            for (Spill s : spills.values()) s.discard();
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private int ref(String value) throws IOException {
+        if (value == null) return -1;
+        Integer existing = dictionary.get(value);
+        if (existing != null) return existing;
+
+        int id = dictionary.size();
+        dictionary.put(value, id);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        spill(Column.STRING_BYTES).put(bytes);
+        stringBytes += bytes.length;
+        spill(Column.STRING_OFFSETS).putInt(stringBytes);
+        return id;
+    }
+
+    private Spill spill(Column col) {
+        return spills.get(col);
+    }
+
+    private static final class Spill {
+        final Path path;
+        final FileChannel channel;
+        final ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long size;
+
+        Spill(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        }
+
+        Spill putInt(int v) throws IOException {
+            if (buf.remaining() < 4) flush();
+            buf.putInt(v);
+            size += 4;
+            return this;
+        }
+
+        Spill putLong(long v) throws IOException {
+            if (buf.remaining() < 8) flush();
+            buf.putLong(v);
+            size += 8;
+            return this;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int off = 0;
+            while (off < bytes.length) {
+                if (!buf.hasRemaining()) flush();
+                int n = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, n);
+                off += n;
+            }
+            size += bytes.length;
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+
+        void discard() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
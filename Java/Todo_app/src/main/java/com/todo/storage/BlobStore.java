@@ -0,0 +1,204 @@
+package com.todo.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// content-addressed files: <root>/ab/cd/<sha-256 hex>. content is streamed into a temp file with transferTo /
+// transferFrom (file to file stays in the kernel), hashed through a read-only mapping of that file, then renamed
+// to its hash; content that is already stored is not written twice. nothing passes through a heap buffer the size
+// of the file. blobs are never deleted on the write path: sweep() removes the ones no metadata row refers to
+// anymore, once they are older than the grace period, so an upload in flight is never swept
+public class BlobStore {
+    private static final long MAX_BYTES = Long.getLong("TODO_ATTACHMENT_MAX_MB", 100) * 1024 * 1024;
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    public record Blob(String hash, long size) {
+    }
+
+    private final Path root;
+    private final long maxBytes;
+
+    public BlobStore(Path root) {
+        this(root, MAX_BYTES);
+    }
+
+    BlobStore(Path root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+    }
+
+    // TODO_BLOB_DIR, default ~/.todo/blobs
+    public static BlobStore fromConfig() {
+        String dir = System.getProperty("TODO_BLOB_DIR");
+        return new BlobStore(dir != null ? Paths.get(dir) : Paths.get(System.getProperty("user.home"), ".todo", "blobs"));
+    }
+
+    public Blob put(Path source) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            return put(in);
+        }
+    }
+
+    public Blob put(ReadableByteChannel in) throws IOException {
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            long size;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                size = in instanceof FileChannel file ? copyFile(file, out) : copyStream(in, out);
+            }
+
+            String hash = sha256(tmp, size);
+            Path target = pathOf(hash);
+            if (!refresh(target)) {
+                Files.createDirectories(target.getParent());
+                // a racing writer of the same content renames identical bytes over it, which is harmless
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new Blob(hash, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public long size(String hash) throws IOException {
+        return Files.size(pathOf(hash));
+    }
+
+    // streams the blob into out with transferTo; returns the bytes written
+    public long copyTo(String hash, WritableByteChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(pathOf(hash), StandardOpenOption.READ)) {
+            long size = in.size(), pos = 0;
+            while (pos < size) pos += in.transferTo(pos, size - pos, out);
+            return size;
+        }
+    }
+
+    public long copyTo(String hash, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return copyTo(hash, out);
+        }
+    }
+
+    // for small text content such as notes
+    public String readString(String hash) throws IOException {
+        return Files.readString(pathOf(hash));
+    }
+
+    // deletes blobs (and abandoned temp files) that are not live and were last touched before olderThanMillis;
+    // returns the number deleted
+    public int sweep(Predicate<String> live, long olderThanMillis) throws IOException {
+        if (!Files.isDirectory(root)) return 0;
+        Path trash = root.resolve("trash");
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = p.getFileName().toString();
+                if (p.startsWith(trash) && HASH.matcher(name).matches() && live.test(name) && !Files.exists(pathOf(name))) {
+                    // an interrupted sweep took it just as it became live
+                    Files.move(p, pathOf(name), StandardCopyOption.ATOMIC_MOVE);
+                } else if (p.startsWith(trash) || name.endsWith(".part")) {
+                    // left behind by an interrupted sweep or upload
+                    if (Files.getLastModifiedTime(p).toMillis() < olderThanMillis && Files.deleteIfExists(p)) deleted++;
+                } else if (HASH.matcher(name).matches() && !live.test(name)
+                        && Files.getLastModifiedTime(p).toMillis() < olderThanMillis && discard(p, olderThanMillis)) {
+                    deleted++;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return deleted;
+    }
+
+    // put() refreshes a blob's time before it inserts the row that references it, so a blob can become live
+    // between sweep's time check and the delete. the blob is first renamed into trash/ and its time checked
+    // again there: a put() that refreshed it before the rename gets it put back, and one that comes after finds
+    // it gone and stores the content again
+    boolean discard(Path p, long olderThanMillis) throws IOException {
+        Path trashed = Files.createDirectories(root.resolve("trash")).resolve(p.getFileName());
+        try {
+            Files.move(p, trashed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException gone) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(trashed).toMillis() >= olderThanMillis) {
+            // a racing put() may have stored the same bytes again meanwhile; replacing them is harmless
+            Files.move(trashed, p, StandardCopyOption.ATOMIC_MOVE);
+            return false;
+        }
+        Files.delete(trashed);
+        return true;
+    }
+
+    // sets a stored blob's time to now so a concurrent sweep leaves it alone; false when it is not stored
+    // (or a sweep has just taken it)
+    private static boolean refresh(Path target) throws IOException {
+        try {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException missing) {
+            return false;
+        }
+    }
+
+    Path pathOf(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches())
+            throw new IllegalArgumentException("Invalid content hash: " + hash);
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private long copyFile(FileChannel in, FileChannel out) throws IOException {
+        long size = in.size() - in.position();
+        if (size > maxBytes) throw new IllegalArgumentException("File is larger than " + maxBytes / (1024 * 1024) + " MB.");
+        long start = in.position(), pos = 0;
+        while (pos < size) pos += in.transferTo(start + pos, size - pos, out);
+        return size;
+    }
+
+    // transferFrom returns 0 once a blocking source is exhausted
+    private long copyStream(ReadableByteChannel in, FileChannel out) throws IOException {
+        long pos = 0, n;
+        while ((n = out.transferFrom(in, pos, TRANSFER_CHUNK)) > 0) {
+            pos += n;
+            if (pos > maxBytes) throw new IllegalArgumentException("File is larger than " + maxBytes / (1024 * 1024) + " MB.");
+        }
+        return pos;
+    }
+
+    private static String sha256(Path file, long size) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long pos = 0; pos < size; pos += MAP_CHUNK) {
+                MappedByteBuffer chunk = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_CHUNK, size - pos));
+                digest.update(chunk);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,77 @@
+package com.todo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// set membership with no false negatives and a bounded false-positive rate; adds and lookups are lock-free.
+// k bit positions per key come from double hashing two halves of one 64-bit hash (Kirsch-Mitzenmacher)
+public class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) expectedInsertions = 1;
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = wordCount * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * ln2));
+    }
+
+    public void put(String key) {
+        long h = hash(key);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int w = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long cur;
+            while (((cur = words.get(w)) & mask) == 0 && !words.compareAndSet(w, cur, cur | mask)) {
+                // lost a race with another writer on the same word, retry
+            }
+        }
+    }
+
+    // false means definitely absent
+    public boolean mightContain(String key) {
+        long h = hash(key);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    private long index(int combined) {
+        return (combined & 0xFFFFFFFFL) % bits;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes followed by a murmur3 finalizer to spread the high bits
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
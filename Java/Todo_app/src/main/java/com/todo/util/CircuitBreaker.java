@@ -0,0 +1,78 @@
+package com.todo.util;
+
+import com.todo.exception.DatabaseUnavailableException;
+
+// opens after failureThreshold consecutive transient failures, fails fast for openMillis,
+// then lets a single trial call through (half-open) and closes again if it succeeds.
+// outcomes come from opening connections (DB) and from reads (Resilience); only opening a connection is gated,
+// so while the breaker is open, statements on connections that are already open still run
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    // closed with no failures counted; lets the success path of every read skip the lock
+    private volatile boolean healthy = true;
+    // the same failure can surface through DB.getConnection() and again through Resilience; count it once
+    private Throwable lastRecorded;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public synchronized void beforeCall() {
+        if (state == State.CLOSED) return;
+
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return;
+        }
+        throw new DatabaseUnavailableException("Database is unavailable right now, please try again in a few seconds.");
+    }
+
+    public void onSuccess() {
+        if (healthy) return;
+        synchronized (this) {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+            healthy = true;
+        }
+    }
+
+    // only transient failures count; a constraint violation says nothing about the database being down
+    public synchronized void onFailure(Throwable t) {
+        if (t == lastRecorded) return;
+        lastRecorded = t;
+        if (!SqlStates.isTransient(t)) {
+            if (state == State.HALF_OPEN) onSuccess();
+            return;
+        }
+        consecutiveFailures++;
+        healthy = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized void reset() {
+        onSuccess();
+    }
+}
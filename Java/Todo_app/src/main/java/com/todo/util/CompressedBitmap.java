@@ -0,0 +1,448 @@
+package com.todo.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// set of non-negative ints in the Roaring layout: values are grouped into chunks by their high 16 bits, and each
+// chunk stores the low 16 bits either as a sorted char[] (up to 4096 values, 2 bytes each) or as a 65536-bit
+// long[1024] (8 KB, denser chunks). and/or/andNot walk the two sorted chunk lists together and pick the pairing
+// per chunk: array merge, array probes into a bitmap, or word-wise bitmap ops.
+// not thread-safe; the static operations never modify their inputs
+public final class CompressedBitmap {
+    static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public static CompressedBitmap of(int... values) {
+        CompressedBitmap b = new CompressedBitmap();
+        for (int v : values) b.add(v);
+        return b;
+    }
+
+    public void add(int value) {
+        checkValue(value);
+        char key = (char) (value >>> 16);
+        int i = indexOf(key);
+        if (i >= 0) {
+            containers[i] = containers[i].add((char) value);
+        } else {
+            insertAt(-i - 1, key, new ArrayContainer().add((char) value));
+        }
+    }
+
+    public void remove(int value) {
+        if (value < 0) return;
+        int i = indexOf((char) (value >>> 16));
+        if (i < 0) return;
+        Container c = containers[i].remove((char) value);
+        if (c.cardinality() == 0) removeAt(i);
+        else containers[i] = c;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int i = indexOf((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    public int cardinality() {
+        int n = 0;
+        for (int i = 0; i < size; i++) n += containers[i].cardinality();
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ascending order
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) containers[i].forEach(keys[i] << 16, consumer);
+    }
+
+    public int[] toArray() {
+        int[] out = new int[cardinality()];
+        int[] pos = {0};
+        forEach(v -> out[pos[0]++] = v);
+        return out;
+    }
+
+    // heap bytes held by the containers, for stats
+    public long sizeInBytes() {
+        long n = keys.length * 2L + containers.length * 8L;
+        for (int i = 0; i < size; i++) n += containers[i].sizeInBytes();
+        return n;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap out = new CompressedBitmap();
+        out.keys = Arrays.copyOf(keys, Math.max(4, size));
+        out.containers = new Container[out.keys.length];
+        for (int i = 0; i < size; i++) out.containers[i] = containers[i].copy();
+        out.size = size;
+        return out;
+    }
+
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap out = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) i++;
+            else if (a.keys[i] > b.keys[j]) j++;
+            else {
+                out.append(a.keys[i], a.containers[i].and(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap out = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                out.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                out.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                out.append(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    // values of a that are not in b
+    public static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap out = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < a.size) {
+            while (j < b.size && b.keys[j] < a.keys[i]) j++;
+            if (j < b.size && b.keys[j] == a.keys[i]) out.append(a.keys[i], a.containers[i].andNot(b.containers[j]));
+            else out.append(a.keys[i], a.containers[i].copy());
+            i++;
+        }
+        return out;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CompressedBitmap other) || other.size != size) return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != other.keys[i] || containers[i].cardinality() != other.containers[i].cardinality()) return false;
+        }
+        return Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) throw new IllegalArgumentException("Bitmap values must not be negative: " + value);
+    }
+
+    private int indexOf(char key) {
+        // appends in ascending order are the common case (loading ids in order)
+        if (size > 0 && keys[size - 1] == key) return size - 1;
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void append(char key, Container c) {
+        if (c.cardinality() == 0) return;
+        insertAt(size, key, c);
+    }
+
+    private void insertAt(int i, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    // operations return the container to keep, which may be this one, a converted one or a new one
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char v);
+
+        abstract Container add(char v);
+
+        abstract Container remove(char v);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract long sizeInBytes();
+
+        abstract Container copy();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int card;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int card) {
+            this.values = values;
+            this.card = card;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return Arrays.binarySearch(values, 0, card, v) >= 0;
+        }
+
+        @Override
+        Container add(char v) {
+            int i = card > 0 && values[card - 1] < v ? -card - 1 : Arrays.binarySearch(values, 0, card, v);
+            if (i >= 0) return this;
+            if (card == ARRAY_MAX) return toBitmap().add(v);
+            i = -i - 1;
+            if (card == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, card * 2));
+            System.arraycopy(values, i, values, i + 1, card - i);
+            values[i] = v;
+            card++;
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            int i = Arrays.binarySearch(values, 0, card, v);
+            if (i < 0) return this;
+            System.arraycopy(values, i + 1, values, i, card - i - 1);
+            card--;
+            if (values.length > 16 && card < values.length / 4) values = Arrays.copyOf(values, values.length / 2);
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.min(card, other.cardinality())];
+            int n = 0;
+            if (other instanceof ArrayContainer o) {
+                int i = 0, j = 0;
+                while (i < card && j < o.card) {
+                    if (values[i] < o.values[j]) i++;
+                    else if (values[i] > o.values[j]) j++;
+                    else {
+                        out[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < card; i++) if (other.contains(values[i])) out[n++] = values[i];
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer b) return b.or(this);
+            ArrayContainer o = (ArrayContainer) other;
+            char[] out = new char[card + o.card];
+            int n = 0, i = 0, j = 0;
+            while (i < card || j < o.card) {
+                if (j == o.card || (i < card && values[i] < o.values[j])) out[n++] = values[i++];
+                else if (i == card || values[i] > o.values[j]) out[n++] = o.values[j++];
+                else {
+                    out[n++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer merged = new ArrayContainer(out, n);
+            return n > ARRAY_MAX ? merged.toBitmap() : merged;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[card];
+            int n = 0;
+            if (other instanceof ArrayContainer o) {
+                int j = 0;
+                for (int i = 0; i < card; i++) {
+                    while (j < o.card && o.values[j] < values[i]) j++;
+                    if (j == o.card || o.values[j] != values[i]) out[n++] = values[i];
+                }
+            } else {
+                for (int i = 0; i < card; i++) if (!other.contains(values[i])) out[n++] = values[i];
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < card; i++) consumer.accept(high | values[i]);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + values.length * 2L;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, card)), card);
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < card; i++) b.set(values[i]);
+            return b;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int card;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        void set(char v) {
+            long before = words[v >>> 6];
+            words[v >>> 6] = before | (1L << v);
+            if (before != words[v >>> 6]) card++;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (words[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        Container add(char v) {
+            set(v);
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            long before = words[v >>> 6];
+            words[v >>> 6] = before & ~(1L << v);
+            if (before != words[v >>> 6] && --card <= ARRAY_MAX) return toArray();
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer a) return a.and(this);
+            long[] o = ((BitmapContainer) other).words;
+            long[] out = new long[1024];
+            int n = 0;
+            for (int i = 0; i < 1024; i++) n += Long.bitCount(out[i] = words[i] & o[i]);
+            return fromWords(out, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer a) {
+                BitmapContainer b = new BitmapContainer(out, card);
+                for (int i = 0; i < a.card; i++) b.set(a.values[i]);
+                return b;
+            }
+            long[] o = ((BitmapContainer) other).words;
+            int n = 0;
+            for (int i = 0; i < 1024; i++) n += Long.bitCount(out[i] |= o[i]);
+            return new BitmapContainer(out, n);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            int n = card;
+            if (other instanceof ArrayContainer a) {
+                for (int i = 0; i < a.card; i++) {
+                    char v = a.values[i];
+                    if ((out[v >>> 6] & (1L << v)) != 0) {
+                        out[v >>> 6] &= ~(1L << v);
+                        n--;
+                    }
+                }
+            } else {
+                long[] o = ((BitmapContainer) other).words;
+                n = 0;
+                for (int i = 0; i < 1024; i++) n += Long.bitCount(out[i] &= ~o[i]);
+            }
+            return fromWords(out, n);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < 1024; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + 8192;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        private static Container fromWords(long[] words, int card) {
+            BitmapContainer b = new BitmapContainer(words, card);
+            return card <= ARRAY_MAX ? b.toArray() : b;
+        }
+
+        ArrayContainer toArray() {
+            char[] out = new char[Math.max(4, card)];
+            int[] n = {0};
+            forEach(0, v -> out[n[0]++] = (char) v);
+            return new ArrayContainer(out, card);
+        }
+    }
+}
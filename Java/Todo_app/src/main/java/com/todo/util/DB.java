@@ -1,8 +1,11 @@
 package com.todo.util;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DB {
 
@@ -10,8 +13,86 @@ public class DB {
     private static String username = System.getProperty("TODO_DB_USER", "rutushah");
     private static String password = System.getProperty("TODO_DB_PASS", "todo_pwd");
 
+    public interface ConnectionFactory {
+        Connection open(String url, String user, String password) throws SQLException;
+    }
+
+    // swappable so a fault-injecting factory can stand in for the driver in tests
+    private static volatile ConnectionFactory factory = DriverManager::getConnection;
+
+    // connection bound to the current thread by bind(); DAO calls reuse it instead of opening their own
+    private static final ThreadLocal<Connection> bound = new ThreadLocal<>();
+
+    // physical connections opened; each one is a TCP connect, TLS/auth handshake and backend start on the server
+    private static final LongAdder opened = new LongAdder();
+
     public static Connection getConnection() throws SQLException{
-        Connection c = DriverManager.getConnection(jdbcURL, username, password);
+        Connection b = bound.get();
+        if (b != null) return nonClosing(b);
+
+        Connection c = open();
         return c;
     }
+
+    public static void setConnectionFactory(ConnectionFactory connectionFactory) {
+        factory = connectionFactory != null ? connectionFactory : DriverManager::getConnection;
+    }
+
+    // every new physical connection passes the circuit breaker: while it is open we fail fast instead of
+    // waiting for a connect timeout against a database that is down
+    private static Connection open() throws SQLException {
+        CircuitBreaker breaker = Resilience.breaker();
+        breaker.beforeCall();
+        try {
+            Connection c = factory.open(jdbcURL, username, password);
+            opened.increment();
+            breaker.onSuccess();
+            return c;
+        } catch (SQLException e) {
+            breaker.onFailure(e);
+            throw e;
+        }
+    }
+
+    // opens one connection for the current thread; every getConnection() until unbind() returns it
+    public static Connection bind(boolean autoCommit) throws SQLException {
+        if (bound.get() != null) throw new IllegalStateException("A connection is already bound to this thread.");
+        Connection c = open();
+        c.setAutoCommit(autoCommit);
+        bound.set(c);
+        return c;
+    }
+
+    public static long connectionsOpened() {
+        return opened.sum();
+    }
+
+    public static boolean isBound() {
+        return bound.get() != null;
+    }
+
+    // closes the bound connection; anything not committed is rolled back by the driver
+    public static void unbind() throws SQLException {
+        Connection c = bound.get();
+        bound.remove();
+        if (c != null) c.close();
+    }
+
+    // DAOs close what they get from getConnection(); for the bound connection that close must be a no-op
+    private static Connection nonClosing(Connection target) {
+        return (Connection) Proxy.newProxyInstance(DB.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> { return null; }
+                        case "isClosed" -> { return target.isClosed(); }
+                        default -> {
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }
+                });
+    }
 }
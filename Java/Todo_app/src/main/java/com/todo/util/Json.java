@@ -0,0 +1,30 @@
+package com.todo.util;
+
+// minimal JSON string escaping for the machine-readable outputs; no parsing
+public class Json {
+
+    public static StringBuilder quote(StringBuilder sb, String value) {
+        if (value == null) return sb.append("null");
+
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    public static String quote(String value) {
+        return quote(new StringBuilder(), value).toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.todo.util;
+
+// fractional rank keys: strings over 0-9a-z compared byte by byte (the column is COLLATE "C"), so a key
+// strictly between any two keys always exists and moving an item rewrites only that item's key.
+// keys never end in '0', otherwise nothing would fit in front of them ("a" < "a0" < "a00" < ... all < "a01").
+// repeated moves into the same gap add about one character per five moves; spread() rewrites a whole list
+// into short, evenly spaced keys again
+public final class RankKeys {
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+
+    private RankKeys() {
+    }
+
+    // a key strictly between lo and hi; null means unbounded on that side
+    public static String between(String lo, String hi) {
+        String a = lo == null ? "" : lo;
+        if (lo != null) check(lo);
+        if (hi != null) {
+            check(hi);
+            if (a.compareTo(hi) >= 0) throw new IllegalArgumentException("Rank keys out of order: " + lo + " >= " + hi);
+        }
+
+        StringBuilder sb = new StringBuilder(a.length() + 2);
+        String b = hi;
+        for (int i = 0; ; i++) {
+            int da = i < a.length() ? digit(a.charAt(i)) : 0;
+            // once b is dropped everything above a's remaining digits is free
+            int db = b == null ? BASE : digit(b.charAt(i));
+            if (da == db) {
+                sb.append(DIGITS.charAt(da));
+                continue;
+            }
+            int mid = (da + db) >>> 1;
+            if (mid > da) return sb.append(DIGITS.charAt(mid)).toString();
+            // adjacent digits: keep a's digit, after which anything greater than a's remainder is below b
+            sb.append(DIGITS.charAt(da));
+            b = null;
+        }
+    }
+
+    public static String before(String hi) {
+        return between(null, hi);
+    }
+
+    public static String after(String lo) {
+        return between(lo, null);
+    }
+
+    // n ascending keys of equal spacing and the shortest length that leaves room around each of them
+    public static String[] spread(int n) {
+        int width = 1;
+        long range = BASE;
+        // at least BASE values between neighbours so the next moves stay short
+        while (range < (n + 1L) * BASE) {
+            range *= BASE;
+            width++;
+        }
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) keys[i] = encode((i + 1) * range / (n + 1), width);
+        return keys;
+    }
+
+    public static boolean isValid(String key) {
+        if (key == null || key.isEmpty() || key.charAt(key.length() - 1) == '0') return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (DIGITS.indexOf(key.charAt(i)) < 0) return false;
+        }
+        return true;
+    }
+
+    // fixed width, then trailing zeros dropped; '0' is the smallest digit, so that keeps the order
+    private static String encode(long value, int width) {
+        char[] out = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            out[i] = DIGITS.charAt((int) (value % BASE));
+            value /= BASE;
+        }
+        int len = width;
+        while (len > 1 && out[len - 1] == '0') len--;
+        return new String(out, 0, len);
+    }
+
+    private static int digit(char ch) {
+        return ch <= '9' ? ch - '0' : ch - 'a' + 10;
+    }
+
+    private static void check(String key) {
+        if (!isValid(key)) throw new IllegalArgumentException("Invalid rank key: " + key);
+    }
+}
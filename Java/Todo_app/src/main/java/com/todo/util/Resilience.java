@@ -0,0 +1,119 @@
+package com.todo.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// retry, circuit breaking and hedging for DAO calls.
+// only idempotent reads go through read()/hedgedRead(); writes are never retried because a lost reply
+// does not tell us whether the statement was applied.
+public class Resilience {
+
+    private static final int maxAttempts = Integer.getInteger("TODO_READ_ATTEMPTS", 3);
+    private static final long backoffBaseMs = Long.getLong("TODO_RETRY_BASE_MS", 25);
+    private static final long backoffMaxMs = Long.getLong("TODO_RETRY_MAX_MS", 1000);
+    // 0 disables hedging; otherwise a second copy of a slow list query is started after this many ms
+    private static final long hedgeAfterMs = Long.getLong("TODO_HEDGE_AFTER_MS", 0);
+
+    private static final CircuitBreaker breaker = new CircuitBreaker(
+            Integer.getInteger("TODO_BREAKER_FAILURES", 5),
+            Long.getLong("TODO_BREAKER_OPEN_MS", 5000));
+
+    private static final ExecutorService hedgePool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "todo-hedged-read");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public static CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    // retries transient failures with full-jitter exponential backoff.
+    // inside a bound connection/transaction a failure poisons the whole unit, so there it is not retried
+    public static <T, E extends Exception> T read(Call<T, E> call) throws E {
+        int attempt = 0;
+        while (true) {
+            try {
+                T result = call.call();
+                // a read that worked on an already-open connection says the database is up, just like a new
+                // connection does; otherwise isolated failures spread over many queries add up to an open breaker
+                breaker.onSuccess();
+                return result;
+            } catch (Exception e) {
+                if (!(e instanceof SQLException)) throw e;
+                breaker.onFailure(e);
+                if (!SqlStates.isTransient(e) || ++attempt >= maxAttempts || DB.isBound()) throw e;
+                try {
+                    Thread.sleep(backoff(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // like read(), but if the first attempt is still running after hedgeAfterMs a second one is started
+    // on its own connection and whichever answers first wins
+    public static <T, E extends Exception> T hedgedRead(Call<T, E> call) throws E {
+        if (hedgeAfterMs <= 0 || DB.isBound()) return read(call);
+        return read(() -> hedge(call));
+    }
+
+    private static <T, E extends Exception> T hedge(Call<T, E> call) throws E {
+        CompletionService<T> cs = new ExecutorCompletionService<>(hedgePool);
+        List<Future<T>> attempts = new ArrayList<>(2);
+        Callable<T> task = call::call;
+        attempts.add(cs.submit(task));
+        try {
+            Future<T> first = cs.poll(hedgeAfterMs, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                attempts.add(cs.submit(task));
+                first = cs.take();
+            }
+            try {
+                return first.get();
+            } catch (ExecutionException e) {
+                if (attempts.size() < 2) throw Resilience.<E>rethrow(e);
+                try {
+                    return cs.take().get();
+                } catch (ExecutionException ignored) {
+                    throw Resilience.<E>rethrow(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the database.", e);
+        } finally {
+            for (Future<T> f : attempts) f.cancel(true);
+        }
+    }
+
+    private static long backoff(int attempt) {
+        long cap = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    // the attempt ran call.call(), so its failure is either unchecked or an E
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E rethrow(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException re) throw re;
+        if (cause instanceof Error err) throw err;
+        return (E) cause;
+    }
+}
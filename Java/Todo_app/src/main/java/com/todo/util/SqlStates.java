@@ -0,0 +1,32 @@
+package com.todo.util;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+// sorts SQLExceptions into transient (worth retrying / counts against the circuit breaker) and permanent
+public class SqlStates {
+
+    public static boolean isTransient(Throwable t) {
+        for (Throwable cur = t; cur != null; cur = cur.getCause()) {
+            if (cur instanceof SQLTransientException || cur instanceof SQLRecoverableException) return true;
+            if (cur instanceof SQLException e) {
+                for (SQLException s = e; s != null; s = s.getNextException()) {
+                    if (isTransientState(s.getSQLState())) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static boolean isTransientState(String state) {
+        if (state == null || state.length() < 2) return false;
+        return state.startsWith("08")          // connection exception (refused, broken, failover)
+                || state.startsWith("53")      // insufficient resources (too many connections, out of memory)
+                || state.equals("40001")       // serialization failure
+                || state.equals("40P01")       // deadlock detected
+                || state.equals("57P01")       // admin shutdown
+                || state.equals("57P02")       // crash shutdown
+                || state.equals("57P03");      // cannot connect now (starting up / recovering)
+    }
+}
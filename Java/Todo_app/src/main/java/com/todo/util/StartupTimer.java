@@ -0,0 +1,23 @@
+package com.todo.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// TODO_STARTUP_TIMING=true prints to stderr, once per milestone, how long after JVM start it was reached
+// (e.g. "first prompt", "first list"). off by default. the JMX classes needed for the start time are loaded on
+// the first mark; the time spent in here is subtracted from later milestones so it does not skew them
+public class StartupTimer {
+    private static final boolean enabled = Boolean.getBoolean("TODO_STARTUP_TIMING");
+    private static final Set<String> reached = ConcurrentHashMap.newKeySet();
+    private static long jvmStart;
+    private static long overheadMs;
+
+    public static synchronized void mark(String milestone) {
+        if (!enabled || !reached.add(milestone)) return;
+        long now = System.currentTimeMillis();
+        if (jvmStart == 0) jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.err.println("[startup] " + milestone + ": " + (now - jvmStart - overheadMs) + " ms");
+        overheadMs += System.currentTimeMillis() - now;
+    }
+}
@@ -0,0 +1,35 @@
+package com.todo.util;
+
+// classic token bucket: refills ratePerSecond tokens continuously, holds at most burst tokens
+public class TokenBucket {
+    private final double ratePerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    // a full bucket behaves exactly like a new one, so its owner can drop it
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= burst;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,240 @@
+package com.todo.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// one transaction on one connection for everything the current thread does until close(). the connection is
+// bound with DB.bind, so every DAO joins through DB.getConnection() without being passed anything:
+//
+//   try (UnitOfWork uow = UnitOfWork.begin()) {
+//       ...dao calls...
+//       uow.commit();
+//   }
+//
+// closing without commit() rolls back. a unit begun inside another one runs under a savepoint of the outer
+// transaction: commit() releases it, an uncommitted close rolls back to it. read-only nested units skip the
+// savepoint since they have nothing to undo. isolation and read-only are fixed by the outermost unit.
+// afterCommit() callbacks (TaskEvents) run once the outermost unit has committed and are dropped on rollback,
+// so in-memory listeners never see rolled-back changes
+public final class UnitOfWork implements AutoCloseable {
+
+    public enum Isolation {
+        READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+        REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+        SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+        final int level;
+
+        Isolation(int level) {
+            this.level = level;
+        }
+    }
+
+    public interface Work<T> {
+        T run() throws Exception;
+    }
+
+    public record Stats(long begun, long committed, long rolledBack, long savepoints) {
+    }
+
+    // a savepoint inside a unit; rolling back to it also drops the callbacks registered after it
+    public static final class Savepoint {
+        private final java.sql.Savepoint savepoint;
+        private final int callbacks;
+
+        private Savepoint(java.sql.Savepoint savepoint, int callbacks) {
+            this.savepoint = savepoint;
+            this.callbacks = callbacks;
+        }
+    }
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+    private static final LongAdder begun = new LongAdder();
+    private static final LongAdder committed = new LongAdder();
+    private static final LongAdder rolledBack = new LongAdder();
+    private static final LongAdder savepoints = new LongAdder();
+
+    private final UnitOfWork parent;
+    private final Connection connection;
+    private final boolean readOnly;
+    // outermost only: true when it bound a new connection, false when it took over an auto-commit one
+    private final boolean ownsConnection;
+    private final Isolation isolation;
+    // nested only; null for read-only nested units
+    private final java.sql.Savepoint savepoint;
+    // shared with the outermost unit
+    private final List<Runnable> afterCommit;
+    private final int callbacksAtStart;
+    private boolean committedHere;
+    private boolean closed;
+
+    private UnitOfWork(UnitOfWork parent, Connection connection, boolean readOnly, boolean ownsConnection,
+                       Isolation isolation, java.sql.Savepoint savepoint, List<Runnable> afterCommit) {
+        this.parent = parent;
+        this.connection = connection;
+        this.readOnly = readOnly;
+        this.ownsConnection = ownsConnection;
+        this.isolation = isolation;
+        this.savepoint = savepoint;
+        this.afterCommit = afterCommit;
+        this.callbacksAtStart = afterCommit.size();
+    }
+
+    public static UnitOfWork begin() throws SQLException {
+        return begin(Isolation.READ_COMMITTED, false);
+    }
+
+    public static UnitOfWork beginReadOnly() throws SQLException {
+        return begin(Isolation.READ_COMMITTED, true);
+    }
+
+    public static UnitOfWork begin(Isolation isolation, boolean readOnly) throws SQLException {
+        UnitOfWork outer = current.get();
+        UnitOfWork unit;
+        if (outer != null) {
+            if (outer.readOnly && !readOnly)
+                throw new IllegalStateException("Cannot write inside a read-only unit of work.");
+            if (isolation.level > outer.isolation.level)
+                throw new IllegalStateException("A nested unit of work cannot raise the isolation level.");
+            java.sql.Savepoint sp = readOnly ? null : outer.connection.setSavepoint();
+            if (sp != null) savepoints.increment();
+            unit = new UnitOfWork(outer, outer.connection, outer.readOnly || readOnly, false, outer.isolation, sp, outer.afterCommit);
+        } else {
+            boolean owns = !DB.isBound();
+            Connection c = owns ? DB.bind(false) : DB.getConnection();
+            if (!owns && !c.getAutoCommit())
+                throw new IllegalStateException("The connection bound to this thread already has a transaction open.");
+            try {
+                // the driver sets isolation per session; read committed is the server default, so it is only sent when different
+                if (isolation != Isolation.READ_COMMITTED) c.setTransactionIsolation(isolation.level);
+                // sent as BEGIN READ ONLY with the first statement, no extra round trip
+                if (readOnly) c.setReadOnly(true);
+                if (!owns) c.setAutoCommit(false);
+            } catch (SQLException | RuntimeException e) {
+                if (owns) DB.unbind();
+                throw e;
+            }
+            unit = new UnitOfWork(null, c, readOnly, owns, isolation, null, new ArrayList<>());
+        }
+        begun.increment();
+        current.set(unit);
+        return unit;
+    }
+
+    // runs work in a unit and commits it; any exception rolls back
+    public static <T> T call(Work<T> work) throws Exception {
+        return call(Isolation.READ_COMMITTED, false, work);
+    }
+
+    public static <T> T read(Work<T> work) throws Exception {
+        return call(Isolation.READ_COMMITTED, true, work);
+    }
+
+    public static <T> T call(Isolation isolation, boolean readOnly, Work<T> work) throws Exception {
+        try (UnitOfWork unit = begin(isolation, readOnly)) {
+            T result = work.run();
+            unit.commit();
+            return result;
+        }
+    }
+
+    public static boolean active() {
+        return current.get() != null;
+    }
+
+    // runs r after the enclosing unit commits (dropped if it rolls back), or right away outside one
+    public static void afterCommit(Runnable r) {
+        UnitOfWork unit = current.get();
+        if (unit == null) r.run();
+        else unit.afterCommit.add(r);
+    }
+
+    public static Stats stats() {
+        return new Stats(begun.sum(), committed.sum(), rolledBack.sum(), savepoints.sum());
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public Savepoint savepoint() throws SQLException {
+        checkOpen();
+        savepoints.increment();
+        return new Savepoint(connection.setSavepoint(), afterCommit.size());
+    }
+
+    public void rollbackTo(Savepoint sp) throws SQLException {
+        checkOpen();
+        connection.rollback(sp.savepoint);
+        truncateCallbacks(sp.callbacks);
+    }
+
+    public void release(Savepoint sp) throws SQLException {
+        checkOpen();
+        connection.releaseSavepoint(sp.savepoint);
+    }
+
+    public void commit() throws SQLException {
+        checkOpen();
+        if (parent != null) {
+            if (savepoint != null) connection.releaseSavepoint(savepoint);
+        } else {
+            connection.commit();
+            committed.increment();
+        }
+        committedHere = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) return;
+        closed = true;
+        current.set(parent);
+
+        if (parent != null) {
+            if (!committedHere) {
+                if (savepoint != null) connection.rollback(savepoint);
+                truncateCallbacks(callbacksAtStart);
+            }
+            return;
+        }
+
+        try {
+            if (!committedHere) {
+                rolledBack.increment();
+                connection.rollback();
+            }
+        } finally {
+            if (ownsConnection) {
+                DB.unbind();
+            } else {
+                // hand the connection back the way it was taken
+                if (readOnly) connection.setReadOnly(false);
+                if (isolation != Isolation.READ_COMMITTED) connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                connection.setAutoCommit(true);
+            }
+        }
+
+        // after the transaction: listeners that touch the database do not run inside it
+        if (committedHere) {
+            for (Runnable r : afterCommit) r.run();
+        }
+        afterCommit.clear();
+    }
+
+    private void checkOpen() {
+        if (closed || committedHere) throw new IllegalStateException("Unit of work already finished.");
+        if (current.get() != this) throw new IllegalStateException("A nested unit of work is still open.");
+    }
+
+    private void truncateCallbacks(int size) {
+        afterCommit.subList(size, afterCommit.size()).clear();
+    }
+}
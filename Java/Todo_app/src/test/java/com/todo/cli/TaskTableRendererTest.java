@@ -0,0 +1,109 @@
+package com.todo.cli;
+
+import com.todo.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskTableRendererTest {
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 3, 1, 9, 5, 7);
+
+    @Test
+    void renderAll_shouldAlignEveryColumnToItsWidestValue() throws Exception {
+        List<Task> tasks = List.of(
+                task(7, "Report", "rutu", CREATED.plusDays(2)),
+                task(12345, "Buy groceries for the week", "alexandra", null));
+
+        StringWriter out = new StringWriter();
+        new TaskTableRenderer(out, 20).renderAll("My Tasks", tasks);
+        String[] lines = out.toString().split("\n");
+
+        assertEquals("", lines[0]);
+        assertEquals("--- My Tasks ---", lines[1]);
+        assertEquals("ID    | User      | Task                       | Status      | Category | Created             "
+                + "| Updated             | Due", lines[2]);
+        assertEquals("------+-----------+----------------------------+-------------+----------+---------------------"
+                + "+---------------------+--------------------", lines[3]);
+        assertEquals("7     | rutu      | Report                     | in_progress | work     | 2026-03-01 09:05:07 "
+                + "| 2026-03-01 09:05:07 | 2026-03-03 09:05:07", lines[4]);
+        // an empty last column leaves no trailing padding
+        assertEquals("12345 | alexandra | Buy groceries for the week | in_progress | work     | 2026-03-01 09:05:07 "
+                + "| 2026-03-01 09:05:07 |", lines[5]);
+        assertEquals(6, lines.length);
+    }
+
+    @Test
+    void renderAll_shouldTruncateLongNamesAndReportEmptyLists() throws Exception {
+        String longName = "x".repeat(80);
+        StringWriter out = new StringWriter();
+        TaskTableRenderer renderer = new TaskTableRenderer(out, 20);
+        renderer.renderAll("Long", List.of(task(1, longName, "rutu", null)));
+
+        String row = out.toString().split("\n")[4];
+        assertTrue(row.contains(" | " + "x".repeat(57) + "... | "), row);
+        assertFalse(row.contains("x".repeat(58)));
+
+        StringWriter empty = new StringWriter();
+        new TaskTableRenderer(empty, 20).renderAll("Nothing", List.of());
+        assertEquals("\n--- Nothing ---\n(No tasks found)\n", empty.toString());
+    }
+
+    @Test
+    void renderPaged_shouldFollowNextPrevAndQuit() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) tasks.add(task(i, "Task " + i, "rutu", null));
+
+        // next, prev, an unknown key (same page), next, next; then the input ends
+        StringWriter out = new StringWriter();
+        new TaskTableRenderer(out, 2).renderPaged("Paged", tasks, new Scanner("n\np\nx\nn\nn\n"));
+        assertEquals(List.of("1/3 (rows 1-2", "2/3 (rows 3-4", "1/3 (rows 1-2", "1/3 (rows 1-2",
+                "2/3 (rows 3-4", "3/3 (rows 5-5"), pages(out.toString()));
+        // each visit writes only that page's rows
+        assertEquals(3, count(out.toString(), "Task 1"));
+        assertEquals(2, count(out.toString(), "Task 3"));
+        assertEquals(1, count(out.toString(), "Task 5"));
+
+        // enter on the last page leaves, and so does q
+        out = new StringWriter();
+        new TaskTableRenderer(out, 2).renderPaged("Paged", tasks, new Scanner("\n\n\nn\n"));
+        assertEquals(3, pages(out.toString()).size());
+        out = new StringWriter();
+        new TaskTableRenderer(out, 2).renderPaged("Paged", tasks, new Scanner("q\nn\n"));
+        assertEquals(List.of("1/3 (rows 1-2"), pages(out.toString()));
+    }
+
+    @Test
+    void renderPaged_shouldNotPromptForASinglePage() throws Exception {
+        List<Task> tasks = List.of(task(1, "Only", "rutu", null), task(2, "Two", "rutu", null));
+        StringWriter out = new StringWriter();
+        new TaskTableRenderer(out, 2).renderPaged("Short", tasks, new Scanner("q\n"));
+
+        assertTrue(pages(out.toString()).isEmpty());
+        assertEquals(6, out.toString().split("\n").length);
+    }
+
+    private static Task task(int id, String name, String username, LocalDateTime due) {
+        return new Task(id, name, "in_progress", 7, username, "work", CREATED, CREATED, 0, due);
+    }
+
+    private static List<String> pages(String output) {
+        List<String> pages = new ArrayList<>();
+        Matcher m = Pattern.compile("-- page (\\d+/\\d+ \\(rows \\d+-\\d+)").matcher(output);
+        while (m.find()) pages.add(m.group(1));
+        return pages;
+    }
+
+    private static int count(String output, String needle) {
+        int n = 0;
+        for (int i = output.indexOf(needle); i >= 0; i = output.indexOf(needle, i + 1)) n++;
+        return n;
+    }
+}
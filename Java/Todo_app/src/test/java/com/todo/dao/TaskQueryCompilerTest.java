@@ -0,0 +1,53 @@
+package com.todo.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskQueryCompilerTest {
+
+    @Test
+    void everyShape_shouldBindTheDocumentedParameters() {
+        for (TaskQuery.Sort sort : TaskQuery.Sort.values()) {
+            for (int flags = 0; flags < 32; flags++) {
+                String sql = TaskQueryCompiler.sql(TaskQueryCompiler.shape(flags, sort));
+                int arrays = Integer.bitCount(flags & ~TaskQueryCompiler.ARCHIVED);
+                // user, arrays, 4 date bounds, name pattern, limit
+                assertEquals(1L + arrays + 4 + 1 + 1, sql.chars().filter(ch -> ch == '?').count(), sql);
+                assertEquals((flags & TaskQueryCompiler.ARCHIVED) != 0, sql.contains("tasks_archive"));
+                assertTrue(sql.endsWith("LIMIT ?"));
+            }
+        }
+    }
+
+    @Test
+    void statementText_shouldNotDependOnValues() {
+        LocalDateTime day = LocalDateTime.of(2026, 3, 1, 9, 0);
+        TaskQuery few = TaskQuery.forUser(1).ids(new int[]{7}).statuses("in_progress").categories("work");
+        TaskQuery many = TaskQuery.forUser(2).ids(new int[]{7, 8, 9, 10, 11}).statuses("in_progress", "blocked")
+                .categories("work", "leisure")
+                .createdBetween(day, day.plusDays(7))
+                .updatedBetween(day.minusDays(30), null)
+                .namePrefix("Report 100%_")
+                .limit(20);
+        TaskQuery open = TaskQuery.forUser(3).ids(new int[]{1, 2}).statuses("completed").categories("leisure")
+                .createdBetween(null, day)
+                .namePrefix("a")
+                .limit(1);
+
+        String sql = TaskQueryCompiler.sql(few, new Integer[]{2}, new Integer[0], new Integer[]{1});
+        assertEquals(sql, TaskQueryCompiler.sql(many, new Integer[]{2, 3}, new Integer[0], new Integer[]{1, 2}));
+        assertEquals(sql, TaskQueryCompiler.sql(open, new Integer[]{4}, new Integer[0], new Integer[]{2}));
+
+        // a different set of filters is a different statement
+        assertNotEquals(sql, TaskQueryCompiler.sql(TaskQuery.forUser(1).statuses("in_progress").categories("work"),
+                new Integer[]{2}, new Integer[0], new Integer[]{1}));
+    }
+
+    @Test
+    void invalidLimit_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TaskQuery.forUser(1).limit(0));
+    }
+}
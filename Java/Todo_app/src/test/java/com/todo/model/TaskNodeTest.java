@@ -0,0 +1,56 @@
+package com.todo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskNodeTest {
+
+    @Test
+    void treeOrder_shouldListEachParentBeforeItsChildrenOldestFirst() {
+        // 1 -> (2 -> (4, 5), 3 -> 6), rows in the order the closure scan returns them
+        List<TaskNode> rows = List.of(node(6, 3, 2), node(3, 1, 1), node(5, 2, 2), node(1, 0, 0), node(4, 2, 2), node(2, 1, 1));
+
+        assertEquals(List.of(1, 2, 4, 5, 3, 6), ids(TaskNode.treeOrder(1, rows)));
+        assertEquals(List.of(), ids(TaskNode.treeOrder(9, rows)));
+    }
+
+    @Test
+    void treeOrder_shouldKeepNodesWhoseParentIsMissingUnderTheRoot() {
+        // 2 was archived: 4 keeps its closure row to 1 (depth 2) but has no parent in the result
+        List<TaskNode> rows = List.of(node(1, 0, 0), node(3, 1, 1), node(4, 2, 2), node(5, 4, 3));
+
+        assertEquals(List.of(1, 3, 4, 5), ids(TaskNode.treeOrder(1, rows)));
+    }
+
+    @Test
+    void treeOrder_shouldHandleDeepAndWideTrees() {
+        int n = 100_000;
+        List<TaskNode> chain = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) chain.add(node(i, i - 1, i - 1));
+        Collections.shuffle(chain, new Random(49));
+        List<TaskNode> deep = TaskNode.treeOrder(1, chain);
+        assertEquals(n, deep.size());
+        for (int i = 0; i < n; i++) assertEquals(i + 1, deep.get(i).getTask().getId());
+
+        List<TaskNode> flat = new ArrayList<>(n);
+        for (int i = n; i >= 2; i--) flat.add(node(i, 1, 1));
+        flat.add(node(1, 0, 0));
+        List<TaskNode> wide = TaskNode.treeOrder(1, flat);
+        assertEquals(n, wide.size());
+        for (int i = 1; i < n; i++) assertTrue(wide.get(i - 1).getTask().getId() < wide.get(i).getTask().getId());
+    }
+
+    private static TaskNode node(int id, int parentId, int depth) {
+        return new TaskNode(new Task(id, "t" + id, 1, 1, 7, "rutu", 0, 0, 0, Task.NONE), parentId, depth);
+    }
+
+    private static List<Integer> ids(List<TaskNode> nodes) {
+        return nodes.stream().map(n -> n.getTask().getId()).toList();
+    }
+}
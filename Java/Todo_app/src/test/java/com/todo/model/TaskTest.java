@@ -0,0 +1,45 @@
+package com.todo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskTest {
+
+    @Test
+    void timestamps_shouldRoundTripThroughMicros() {
+        LocalDateTime created = LocalDateTime.of(2026, 3, 29, 2, 30, 15, 123_456_000);
+        LocalDateTime beforeEpoch = LocalDateTime.of(1960, 1, 1, 0, 0, 0, 999_000);
+
+        Task t = new Task(1, "Write report", "in_progress", 7, "rutu", "work", created, beforeEpoch, 3, null);
+
+        assertEquals(created, t.getCreatedDate());
+        assertEquals(beforeEpoch, t.getUpdatedDate());
+        assertNull(t.getDueDate());
+        assertEquals(Task.NONE, t.getDueMicros());
+    }
+
+    @Test
+    void names_shouldBeSharedThroughTheRegistry() {
+        NameTable.STATUS.put(41, "task_test_status");
+
+        Task a = new Task(1, "a", 41, 0, 7, "rutu", 0, 0, 0, Task.NONE);
+        Task b = new Task(2, "b", "task_test_status", "rutu", null, null, null);
+
+        assertEquals("task_test_status", a.getStatusName());
+        assertEquals(41, b.getStatusId());
+        assertSame(a.getStatusName(), b.getStatusName());
+        assertNull(a.getCategoryName());
+    }
+
+    @Test
+    void unknownNames_shouldGetSyntheticIds() {
+        Task t = new Task(1, "a", "task_test_unknown", "rutu", "task_test_category", null, null);
+
+        assertTrue(t.getStatusId() < 0);
+        assertEquals("task_test_unknown", t.getStatusName());
+        assertEquals("task_test_category", t.getCategoryName());
+    }
+}
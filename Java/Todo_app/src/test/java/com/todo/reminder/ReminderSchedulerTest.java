@@ -0,0 +1,104 @@
+package com.todo.reminder;
+
+import com.todo.model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReminderSchedulerTest {
+    private static final long MINUTE = 60_000;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Task> db = new ArrayList<>();
+    private final List<Reminder> fired = new ArrayList<>();
+    private int loads;
+    private ReminderScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        now.set(toEpochMs(LocalDateTime.of(2026, 1, 1, 9, 0)));
+        db.clear();
+        fired.clear();
+        loads = 0;
+        scheduler = new ReminderScheduler((from, to) -> {
+            loads++;
+            List<Task> out = new ArrayList<>();
+            for (Task t : db) {
+                if (!t.getDueDate().isBefore(from) && t.getDueDate().isBefore(to)) out.add(t);
+            }
+            return out;
+        }, fired::add, now::get, 60 * MINUTE);
+    }
+
+    @Test
+    void onlyTheNearWindow_shouldBeLoaded() {
+        db.add(task(1, "soon", 10));
+        db.add(task(2, "tomorrow", 24 * 60));
+
+        scheduler.tick();
+        assertEquals(1, scheduler.pending());
+
+        advanceMinutes(11);
+        assertEquals(1, fired.size());
+        assertEquals("soon", fired.get(0).taskName());
+
+        // the far task enters the wheel once the window reaches it, and fires exactly once
+        for (int i = 0; i < 24 * 60; i++) advanceMinutes(1);
+        assertEquals(2, fired.size());
+        assertEquals(2, fired.get(1).taskId());
+        assertTrue(loads < 24 * 60 / 30 + 2, "window reloads: " + loads);
+    }
+
+    @Test
+    void completedTasks_shouldNotFire() {
+        db.add(task(1, "soon", 10));
+        scheduler.tick();
+
+        scheduler.taskStatusChanged(1, "completed");
+        advanceMinutes(30);
+
+        assertTrue(fired.isEmpty());
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    void dueDateChangesAndRenames_shouldReschedule() {
+        scheduler.tick();
+        scheduler.taskAdded(task(7, "draft", 5));
+        scheduler.taskDueDateChanged(task(7, "draft", 20));
+        scheduler.taskRenamed(7, "final");
+
+        advanceMinutes(10);
+        assertTrue(fired.isEmpty());
+
+        advanceMinutes(15);
+        assertEquals(1, fired.size());
+        assertEquals("final", fired.get(0).taskName());
+    }
+
+    private void advanceMinutes(int minutes) {
+        now.addAndGet(minutes * MINUTE);
+        scheduler.tick();
+    }
+
+    private Task task(int id, String name, int dueInMinutes) {
+        LocalDateTime created = toLocal(now.get());
+        return new Task(id, name, "ready_to_pick", 1, "alice", "Work", created, created, 0,
+                created.plusMinutes(dueInMinutes));
+    }
+
+    private static long toEpochMs(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long epochMs) {
+        return LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,66 @@
+package com.todo.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    void entries_shouldFireInTheTickTheyExpireIn() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 8, 0);
+        Random rnd = new Random(42);
+        List<Long> expirations = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            long exp = rnd.nextInt(200_000);
+            expirations.add(exp);
+            wheel.schedule(exp, exp);
+        }
+
+        Map<Long, Integer> firedAt = new HashMap<>();
+        for (long now = 0; now <= 200_000; now += 10) {
+            long tickStart = now;
+            wheel.advanceTo(now, exp -> {
+                // never late, at most one tick early
+                assertTrue(exp >= tickStart && exp < tickStart + 10 || exp < 10 && tickStart == 0,
+                        "expiration " + exp + " fired at " + tickStart);
+                firedAt.merge(exp, 1, Integer::sum);
+            });
+        }
+
+        assertEquals(0, wheel.size());
+        assertEquals(expirations.size(), firedAt.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void cancelledEntries_shouldNeverFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 64, 0);
+        TimingWheel.Entry<String> keep = wheel.schedule("keep", 5_000);
+        TimingWheel.Entry<String> drop = wheel.schedule("drop", 3_600_000);
+
+        assertTrue(wheel.cancel(drop));
+        assertFalse(wheel.cancel(drop));
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(10_000_000, fired::add);
+        assertEquals(List.of("keep"), fired);
+        assertFalse(keep.isPending());
+    }
+
+    @Test
+    void pastExpirations_shouldFireOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 64, 50_000);
+        wheel.schedule("late", 10_000);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(50_000, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+}
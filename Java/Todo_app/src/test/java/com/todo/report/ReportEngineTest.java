@@ -0,0 +1,153 @@
+package com.todo.report;
+
+import com.todo.dao.ReportDao;
+import com.todo.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportEngineTest {
+    private static final int COMPLETED = 3, IN_PROGRESS = 2, DELETED = 4;
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final ReportSpec SPEC = new ReportSpec(FROM, 7, LocalDateTime.of(2026, 1, 5, 0, 0), COMPLETED, IN_PROGRESS, DELETED);
+
+    // tasks in an array indexed by id; null slots are ids that do not exist (deleted rows, archived ones)
+    private static class FakeSource implements ReportEngine.Source {
+        final long[][] rows;
+        int scans;
+
+        FakeSource(long[][] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int[] idRange() {
+            int min = -1, max = -1;
+            for (int id = 0; id < rows.length; id++) {
+                if (rows[id] == null) continue;
+                if (min < 0) min = id;
+                max = id;
+            }
+            return min < 0 ? null : new int[]{min, max};
+        }
+
+        @Override
+        public synchronized long scan(int fromId, int lastId, ReportDao.RowHandler handler) throws SQLException {
+            scans++;
+            long n = 0;
+            for (int id = fromId; id <= lastId && id < rows.length; id++) {
+                long[] r = rows[id];
+                if (r == null) continue;
+                handler.accept((int) r[0], (int) r[1], (int) r[2], r[3], r[4]);
+                n++;
+            }
+            return n;
+        }
+    }
+
+    private static long at(int day, int hour) {
+        return Task.toMicros(FROM.plusDays(day).atTime(hour, 0));
+    }
+
+    @Test
+    void countsPerUserAndCategory() throws Exception {
+        long[][] rows = new long[10][];
+        // user 1: created day 0, completed day 2; in progress since day 1 (stale); deleted
+        rows[1] = new long[]{1, 10, COMPLETED, at(0, 9), at(2, 17)};
+        rows[2] = new long[]{1, 10, IN_PROGRESS, at(1, 9), at(1, 10)};
+        rows[3] = new long[]{1, 11, DELETED, at(1, 9), at(1, 9)};
+        // user 2: in progress, recently touched; created before the window
+        rows[5] = new long[]{2, 11, IN_PROGRESS, at(5, 8), at(6, 8)};
+        rows[8] = new long[]{2, 0, 1, at(-3, 8), at(-3, 8)};
+
+        ReportAccumulator r = new ReportEngine(new FakeSource(rows), 1, 1000).run(SPEC);
+
+        assertEquals(5L, r.rows());
+        GroupStats u1 = r.byUser().get(1);
+        assertEquals(2L, u1.tasks());
+        assertEquals(1L, u1.completed());
+        assertEquals(0.5, u1.completionRatio());
+        assertEquals(1L, u1.staleInProgress());
+        assertEquals(1, u1.createdOn(0));
+        assertEquals(1, u1.createdOn(1));
+        assertEquals(1, u1.completedOn(2));
+
+        GroupStats u2 = r.byUser().get(2);
+        assertEquals(2L, u2.tasks());
+        assertEquals(1L, u2.inProgress());
+        assertEquals(0L, u2.staleInProgress());
+        assertEquals(1, u2.createdOn(5));
+
+        assertEquals(1L, r.byCategory().get(0).tasks());
+        assertEquals(2L, r.byCategory().get(10).tasks());
+        assertEquals(1L, r.byCategory().get(11).tasks());
+    }
+
+    @Test
+    void parallelPartitions_shouldMatchOneSequentialPass() throws Exception {
+        Random rnd = new Random(46);
+        long[][] rows = new long[50_000][];
+        for (int id = 1; id < rows.length; id++) {
+            if (rnd.nextInt(10) == 0) continue; // gaps in the ids
+            long created = at(rnd.nextInt(10) - 2, rnd.nextInt(24));
+            rows[id] = new long[]{1 + rnd.nextInt(300), rnd.nextInt(8), 1 + rnd.nextInt(4), created,
+                    created + rnd.nextInt(5) * 86_400_000_000L};
+        }
+
+        ReportAccumulator sequential = new ReportEngine(new FakeSource(rows), 1, Integer.MAX_VALUE).run(SPEC);
+        FakeSource source = new FakeSource(rows);
+        ReportAccumulator parallel = new ReportEngine(source, 4, 1_000).run(SPEC);
+
+        assertTrue(source.scans >= 50);
+        assertEquals(source.scans, parallel.partitions());
+        assertEquals(sequential.rows(), parallel.rows());
+        assertGroupsEqual(sequential.byUser(), parallel.byUser());
+        assertGroupsEqual(sequential.byCategory(), parallel.byCategory());
+    }
+
+    @Test
+    void emptyTable_shouldGiveAnEmptyReport() throws Exception {
+        ReportAccumulator r = new ReportEngine(new FakeSource(new long[4][]), 4, 10).run(SPEC);
+        assertEquals(0L, r.rows());
+        assertTrue(r.byUser().isEmpty());
+    }
+
+    @Test
+    void aFailingPartition_shouldFailTheReportWithItsOwnException() {
+        ReportEngine.Source failing = new FakeSource(new long[100][]) {
+            @Override
+            public int[] idRange() {
+                return new int[]{1, 99};
+            }
+
+            @Override
+            public synchronized long scan(int fromId, int lastId, ReportDao.RowHandler handler) throws SQLException {
+                if (fromId > 50) throw new SQLException("connection lost");
+                return 0;
+            }
+        };
+        SQLException e = assertThrows(SQLException.class, () -> new ReportEngine(failing, 4, 10).run(SPEC));
+        assertEquals("connection lost", e.getMessage());
+    }
+
+    private static void assertGroupsEqual(Map<Integer, GroupStats> expected, Map<Integer, GroupStats> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (int key : expected.keySet()) {
+            GroupStats e = expected.get(key), a = actual.get(key);
+            assertEquals(e.tasks(), a.tasks());
+            assertEquals(e.completed(), a.completed());
+            assertEquals(e.inProgress(), a.inProgress());
+            assertEquals(e.staleInProgress(), a.staleInProgress());
+            for (int d = 0; d < SPEC.days(); d++) {
+                assertEquals(e.createdOn(d), a.createdOn(d));
+                assertEquals(e.completedOn(d), a.completedOn(d));
+            }
+        }
+    }
+}
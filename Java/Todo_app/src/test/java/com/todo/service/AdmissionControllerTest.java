@@ -0,0 +1,86 @@
+package com.todo.service;
+
+import com.todo.exception.OverloadException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest {
+
+    @Test
+    void rateLimit_shouldRejectOnceBurstIsSpent() throws Exception {
+        AdmissionController ac = new AdmissionController(4, 2, 16, 50, 0.001, 3);
+
+        for (int i = 0; i < 3; i++) ac.read(1, () -> null);
+        OverloadException e = assertThrows(OverloadException.class, () -> ac.read(1, () -> null));
+        assertEquals(OverloadException.Reason.RATE_LIMITED, e.getReason());
+
+        // other users have their own bucket
+        assertNull(ac.read(2, () -> null));
+        assertEquals(1, ac.stats().rateLimited());
+    }
+
+    @Test
+    void fullWriteBulkhead_shouldTimeOutWithoutBlockingReads() throws Exception {
+        AdmissionController ac = new AdmissionController(1, 1, 4, 50, 1000, 1000);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slow = pool.submit(() -> ac.write(7, () -> {
+                inside.countDown();
+                release.await();
+                return null;
+            }));
+            inside.await();
+
+            OverloadException e = assertThrows(OverloadException.class, () -> ac.write(7, () -> null));
+            assertEquals(OverloadException.Reason.WAIT_TIMEOUT, e.getReason());
+            assertEquals("read", ac.read(7, () -> "read"));
+
+            release.countDown();
+            slow.get();
+            assertEquals(1, ac.stats().waitTimeouts());
+            assertEquals(0, ac.stats().queueDepth());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void nestedCalls_shouldNotTakeASecondSlot() throws Exception {
+        AdmissionController ac = new AdmissionController(1, 1, 0, 10, 1000, 1000);
+        assertEquals("inner", ac.write(3, () -> ac.write(3, () -> "inner")));
+    }
+
+    @Test
+    void evictIdle_shouldDropOnlyLanesWithNothingInFlightAndAFullBucket() throws Exception {
+        AdmissionController ac = new AdmissionController(4, 2, 16, 50, 1000, 10);
+        for (int user = 1; user <= 50; user++) ac.read(user, () -> null);
+        assertEquals(50, ac.laneCount());
+
+        // one token refills in 1 ms; user 99 is still inside its call while the sweep runs
+        int during = ac.read(99, () -> {
+            Thread.sleep(20);
+            ac.evictIdle();
+            return ac.laneCount();
+        });
+        assertEquals(1, during);
+        Thread.sleep(20);
+        ac.evictIdle();
+        assertEquals(0, ac.laneCount());
+
+        // a drained bucket is kept, so the rate limit survives the sweep
+        AdmissionController slow = new AdmissionController(4, 2, 16, 50, 0.001, 1);
+        slow.read(5, () -> null);
+        slow.evictIdle();
+        assertEquals(1, slow.laneCount());
+        assertThrows(OverloadException.class, () -> slow.read(5, () -> null));
+    }
+}
@@ -0,0 +1,131 @@
+package com.todo.service;
+
+import com.todo.dao.TagDao;
+import com.todo.model.TagFilter;
+import com.todo.model.Task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TagIndexTest {
+
+    // user 7 owns tasks 1..6: 1,2,3 "work"; 3,4 "home"; 2,4 "urgent"
+    private static class FakeLoader implements TagIndex.Loader {
+        final AtomicInteger loads = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(0);
+        CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public void tasks(int userId, IntConsumer consumer) throws Exception {
+            loads.incrementAndGet();
+            entered.countDown();
+            release.await();
+            for (int id = 1; id <= 6; id++) consumer.accept(id);
+        }
+
+        @Override
+        public void tags(int userId, TagDao.TagHandler handler) {
+            handler.accept("home", 3);
+            handler.accept("home", 4);
+            handler.accept("urgent", 2);
+            handler.accept("urgent", 4);
+            handler.accept("work", 1);
+            handler.accept("work", 2);
+            handler.accept("work", 3);
+        }
+    }
+
+    private static int[] match(TagIndex index, String expression) throws Exception {
+        return index.match(7, TagFilter.parse(expression)).toArray();
+    }
+
+    @Test
+    void andOrNot_shouldCombineTagBitmaps() throws Exception {
+        TagIndex index = new TagIndex(new FakeLoader(), 10, Long.MAX_VALUE, System::nanoTime);
+
+        assertArrayEquals(new int[]{2}, match(index, "work urgent"));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, match(index, "work|home"));
+        assertArrayEquals(new int[]{1, 3}, match(index, "work -urgent"));
+        assertArrayEquals(new int[]{1, 5, 6}, match(index, "-home -urgent"));
+        assertArrayEquals(new int[0], match(index, "work nosuchtag"));
+    }
+
+    @Test
+    void events_shouldKeepTheIndexCurrentAndClaimsForceAReload() throws Exception {
+        FakeLoader loader = new FakeLoader();
+        TagIndex index = new TagIndex(loader, 10, Long.MAX_VALUE, System::nanoTime);
+        match(index, "work");
+
+        index.taskAdded(new Task(9, "new", 1, 1, 7, "rutu", 0, 0, 0, Task.NONE));
+        index.taskTagged(9, 7, List.of("urgent"));
+        index.taskUntagged(2, 7, List.of("urgent", "work"));
+        // not loaded: ignored, read from the database on first use
+        index.taskTagged(5, 8, List.of("urgent"));
+
+        assertArrayEquals(new int[]{4, 9}, match(index, "urgent"));
+        assertArrayEquals(new int[]{1, 3}, match(index, "work"));
+        assertEquals(1, loader.loads.get());
+
+        index.taskClaimed(new Task(5, "claimed", 1, 1, 7, "rutu", 0, 0, 0, Task.NONE));
+        match(index, "work");
+        assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    void changesDuringLoad_shouldBeReplayedOverTheLoadedState() throws Exception {
+        FakeLoader loader = new FakeLoader();
+        loader.entered = new CountDownLatch(1);
+        loader.release = new CountDownLatch(1);
+        TagIndex index = new TagIndex(loader, 10, Long.MAX_VALUE, System::nanoTime);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<int[]> first = pool.submit(() -> match(index, "home"));
+            loader.entered.await();
+            // committed after the loader started reading
+            index.taskTagged(6, 7, List.of("home"));
+            index.taskUntagged(3, 7, List.of("home"));
+            loader.release.countDown();
+
+            assertArrayEquals(new int[]{4, 6}, first.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void staleIndexes_shouldBeReloaded() throws Exception {
+        FakeLoader loader = new FakeLoader();
+        AtomicLong now = new AtomicLong();
+        TagIndex index = new TagIndex(loader, 10, 1_000, now::get);
+
+        match(index, "work");
+        now.addAndGet(999);
+        match(index, "work");
+        assertEquals(1, loader.loads.get());
+        now.addAndGet(1);
+        match(index, "work");
+        assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    void tagFilter_shouldNormalizeAndRejectBadTags() {
+        TagFilter f = TagFilter.parse("  Work  home|Errands -Later ");
+        assertEquals(2, f.groups().size());
+        assertTrue(f.groups().get(1).contains("errands"));
+        assertTrue(f.excluded().contains("later"));
+
+        assertThrows(IllegalArgumentException.class, () -> TagFilter.parse("   "));
+        assertThrows(IllegalArgumentException.class, () -> TagFilter.parse("bad,tag"));
+    }
+}
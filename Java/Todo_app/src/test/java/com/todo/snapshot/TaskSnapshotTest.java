@@ -0,0 +1,98 @@
+package com.todo.snapshot;
+
+import com.todo.model.NameTable;
+import com.todo.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskSnapshotTest {
+
+    @Test
+    void snapshot_shouldRoundTripEveryColumn() throws Exception {
+        NameTable.STATUS.put(61, "snap_status");
+        NameTable.CATEGORY.put(62, "snap_category");
+        LocalDateTime created = LocalDateTime.of(2026, 2, 3, 4, 5, 6, 789_000);
+
+        Path dir = Files.createTempDirectory("snap");
+        Path file = dir.resolve("tasks.snap");
+        int rows = 50_000;
+        try (TaskSnapshotWriter w = new TaskSnapshotWriter(file)) {
+            for (int i = 0; i < rows; i++) {
+                long due = i % 3 == 0 ? Task.NONE : Task.toMicros(created.plusDays(i));
+                w.add(new Task(i + 1, i % 2 == 0 ? "Daily standup" : "Tâche n°" + i, 61, 62, 7,
+                        i % 5 == 0 ? null : "rutu", Task.toMicros(created), Task.toMicros(created.plusSeconds(i)), i, due));
+            }
+            w.commit();
+        }
+
+        try (TaskSnapshot s = TaskSnapshot.open(file)) {
+            assertEquals(rows, s.size());
+            assertEquals(rows, s.ids().remaining());
+            assertEquals(rows, s.ids().get(rows - 1));
+
+            Task t = s.task(3);
+            assertEquals(4, t.getId());
+            assertEquals("Tâche n°3", t.getTask_name());
+            assertEquals("snap_status", t.getStatusName());
+            assertEquals("snap_category", t.getCategoryName());
+            assertEquals("rutu", t.getUsername());
+            assertEquals(created, t.getCreatedDate());
+            assertEquals(created.plusSeconds(3), t.getUpdatedDate());
+            assertNull(t.getDueDate());
+            assertEquals(created.plusDays(4), s.task(4).getDueDate());
+            assertEquals(3, t.getVersion());
+
+            assertNull(s.username(5));
+            // repeated names are stored once and decoded once
+            assertSame(s.taskName(0), s.taskName(2));
+        }
+
+        List<String> left;
+        try (var files = Files.list(dir)) {
+            left = files.map(p -> p.getFileName().toString()).toList();
+        }
+        assertEquals(List.of("tasks.snap"), left);
+    }
+
+    @Test
+    void closeWithoutCommit_shouldKeepThePreviousSnapshot() throws Exception {
+        Path dir = Files.createTempDirectory("snap");
+        Path file = dir.resolve("tasks.snap");
+        try (TaskSnapshotWriter w = new TaskSnapshotWriter(file)) {
+            w.add(new Task(1, "Kept", 0, 0, 7, "rutu", 0, 0, 0, Task.NONE));
+            w.commit();
+        }
+
+        // the scan fails half way: the writer is closed without commit()
+        assertThrows(IllegalStateException.class, () -> {
+            try (TaskSnapshotWriter w = new TaskSnapshotWriter(file)) {
+                w.add(new Task(2, "Lost", 0, 0, 7, "rutu", 0, 0, 0, Task.NONE));
+                throw new IllegalStateException("connection reset");
+            }
+        });
+
+        try (TaskSnapshot s = TaskSnapshot.open(file)) {
+            assertEquals(1, s.size());
+            assertEquals("Kept", s.taskName(0));
+        }
+        List<String> left;
+        try (var files = Files.list(dir)) {
+            left = files.map(p -> p.getFileName().toString()).toList();
+        }
+        assertEquals(List.of("tasks.snap"), left);
+    }
+
+    @Test
+    void garbage_shouldBeRejected() throws Exception {
+        Path file = Files.createTempFile("snap", ".bin");
+        Files.write(file, new byte[SnapshotFormat.HEADER_BYTES]);
+
+        assertThrows(java.io.IOException.class, () -> TaskSnapshot.open(file));
+    }
+}
@@ -0,0 +1,131 @@
+package com.todo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlobStoreTest {
+
+    private static long countFiles(Path root) throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void put_shouldStoreIdenticalContentOnce() throws Exception {
+        Path root = Files.createTempDirectory("blobs");
+        BlobStore store = new BlobStore(root);
+
+        byte[] bytes = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(bytes);
+        Path file = Files.createTempFile("upload", ".bin");
+        Files.write(file, bytes);
+
+        BlobStore.Blob fromFile = store.put(file);
+        BlobStore.Blob fromStream = store.put(Channels.newChannel(new ByteArrayInputStream(bytes)));
+
+        assertEquals(fromFile, fromStream);
+        assertEquals((long) bytes.length, fromFile.size());
+        assertEquals(1L, countFiles(root));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals((long) bytes.length, store.copyTo(fromFile.hash(), Channels.newChannel(out)));
+        assertArrayEquals(bytes, out.toByteArray());
+    }
+
+    @Test
+    void put_shouldHashLikeSha256() throws Exception {
+        BlobStore store = new BlobStore(Files.createTempDirectory("blobs"));
+        BlobStore.Blob blob = store.put(Channels.newChannel(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", blob.hash());
+        assertEquals("abc", store.readString(blob.hash()));
+
+        BlobStore.Blob empty = store.put(Channels.newChannel(new ByteArrayInputStream(new byte[0])));
+        assertEquals(0L, empty.size());
+    }
+
+    @Test
+    void put_shouldRejectOversizedContentAndLeaveNothingBehind() throws Exception {
+        Path root = Files.createTempDirectory("blobs");
+        BlobStore store = new BlobStore(root, 1024);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.put(Channels.newChannel(new ByteArrayInputStream(new byte[4096]))));
+        Path file = Files.createTempFile("upload", ".bin");
+        Files.write(file, new byte[2048]);
+        assertThrows(IllegalArgumentException.class, () -> store.put(file));
+
+        assertEquals(0L, countFiles(root));
+    }
+
+    @Test
+    void sweep_shouldDeleteOnlyOldUnreferencedBlobs() throws Exception {
+        Path root = Files.createTempDirectory("blobs");
+        BlobStore store = new BlobStore(root);
+        String kept = store.put(Channels.newChannel(new ByteArrayInputStream(new byte[]{1}))).hash();
+        String orphan = store.put(Channels.newChannel(new ByteArrayInputStream(new byte[]{2}))).hash();
+        String fresh = store.put(Channels.newChannel(new ByteArrayInputStream(new byte[]{3}))).hash();
+
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 3_600_000);
+        Files.setLastModifiedTime(store.pathOf(kept), old);
+        Files.setLastModifiedTime(store.pathOf(orphan), old);
+
+        assertEquals(1, store.sweep(kept::equals, System.currentTimeMillis() - 60_000));
+        assertTrue(Files.exists(store.pathOf(kept)));
+        assertFalse(Files.exists(store.pathOf(orphan)));
+        // unreferenced but recent: an upload whose row may not be inserted yet
+        assertTrue(Files.exists(store.pathOf(fresh)));
+    }
+
+    @Test
+    void sweep_shouldPutBackABlobThatWasRefreshedWhileItWasBeingRemoved() throws Exception {
+        Path root = Files.createTempDirectory("blobs");
+        BlobStore store = new BlobStore(root);
+        byte[] bytes = {4};
+        String hash = store.put(Channels.newChannel(new ByteArrayInputStream(bytes))).hash();
+        long cutoff = System.currentTimeMillis() - 60_000;
+
+        // sweep saw an old orphan, but put() refreshed it before the rename
+        assertFalse(store.discard(store.pathOf(hash), cutoff));
+        assertTrue(Files.exists(store.pathOf(hash)));
+
+        // once it is gone, the next put() stores it again instead of refreshing a missing file
+        Files.setLastModifiedTime(store.pathOf(hash), FileTime.fromMillis(cutoff - 1));
+        assertTrue(store.discard(store.pathOf(hash), cutoff));
+        assertFalse(Files.exists(store.pathOf(hash)));
+        store.put(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        assertEquals("\u0004", store.readString(hash));
+
+        // a file an interrupted sweep left in trash/ goes on the next run
+        Path left = Files.createDirectories(root.resolve("trash")).resolve(hash);
+        Files.write(left, bytes);
+        Files.setLastModifiedTime(left, FileTime.fromMillis(cutoff - 1));
+        assertEquals(1, store.sweep(hash::equals, cutoff));
+        assertEquals(1L, countFiles(root));
+
+        // unless the blob is live and missing from its place
+        Files.move(store.pathOf(hash), left);
+        assertEquals(0, store.sweep(hash::equals, cutoff));
+        assertTrue(Files.exists(store.pathOf(hash)));
+        assertEquals(1L, countFiles(root));
+    }
+
+    @Test
+    void hashes_shouldBeValidatedBeforeTouchingTheDisk() {
+        BlobStore store = new BlobStore(Path.of("unused"));
+        assertThrows(IllegalArgumentException.class, () -> store.pathOf("../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.pathOf(null));
+    }
+}
@@ -0,0 +1,32 @@
+package com.todo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void addedKeys_shouldAlwaysBeFound() {
+        BloomFilter f = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) f.put("user_" + i);
+        for (int i = 0; i < 10_000; i++) assertTrue(f.mightContain("user_" + i));
+    }
+
+    @Test
+    void falsePositiveRate_shouldStayNearTheTarget() {
+        BloomFilter f = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) f.put("member-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (f.mightContain("stranger-" + i)) falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void invalidRate_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1.0));
+    }
+}
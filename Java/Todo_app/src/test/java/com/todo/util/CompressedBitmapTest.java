@@ -0,0 +1,75 @@
+package com.todo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedBitmapTest {
+
+    // mixes sparse chunks (array containers) and dense ones (bitmap containers)
+    private static BitSet randomSet(Random rnd, CompressedBitmap into) {
+        BitSet set = new BitSet();
+        for (int chunk = 0; chunk < 6; chunk++) {
+            int count = rnd.nextBoolean() ? 100 : 20_000;
+            for (int i = 0; i < count; i++) {
+                int v = chunk * 65536 + rnd.nextInt(65536);
+                set.set(v);
+                into.add(v);
+            }
+        }
+        return set;
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+    }
+
+    @Test
+    void setOperations_shouldMatchBitSet() {
+        Random rnd = new Random(42);
+        for (int round = 0; round < 5; round++) {
+            CompressedBitmap a = new CompressedBitmap(), b = new CompressedBitmap();
+            BitSet sa = randomSet(rnd, a), sb = randomSet(rnd, b);
+
+            BitSet and = (BitSet) sa.clone();
+            and.and(sb);
+            BitSet or = (BitSet) sa.clone();
+            or.or(sb);
+            BitSet andNot = (BitSet) sa.clone();
+            andNot.andNot(sb);
+
+            assertSame(and, CompressedBitmap.and(a, b));
+            assertSame(or, CompressedBitmap.or(a, b));
+            assertSame(andNot, CompressedBitmap.andNot(a, b));
+            // inputs are left alone
+            assertSame(sa, a);
+            assertSame(sb, b);
+        }
+    }
+
+    @Test
+    void removals_shouldShrinkDenseChunksBackToArrays() {
+        CompressedBitmap b = new CompressedBitmap();
+        for (int i = 0; i < 10_000; i++) b.add(i * 2);
+        long dense = b.sizeInBytes();
+        for (int i = 0; i < 9_000; i++) b.remove(i * 2);
+
+        assertEquals(1_000, b.cardinality());
+        assertFalse(b.contains(0));
+        assertTrue(b.contains(19_998));
+        assertTrue(b.sizeInBytes() < dense);
+
+        for (int i = 9_000; i < 10_000; i++) b.remove(i * 2);
+        assertTrue(b.isEmpty());
+    }
+
+    @Test
+    void negativeValues_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CompressedBitmap.of(-1));
+        assertFalse(CompressedBitmap.of(1, 2).contains(-1));
+    }
+}
@@ -0,0 +1,96 @@
+package com.todo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixIndexTest {
+
+    private static List<String> names(List<PrefixIndex.Match> matches) {
+        return matches.stream().map(PrefixIndex.Match::name).toList();
+    }
+
+    @Test
+    void top_shouldReturnPrefixMatchesMostRecentFirst() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1, "Write report", 10);
+        index.put(2, "write tests", 30);
+        index.put(3, "Wash car", 20);
+        index.put(4, "Writing club", 5);
+
+        assertEquals(List.of("write tests", "Write report", "Writing club"), names(index.top("wri", 10)));
+        assertEquals(List.of("write tests", "Write report"), names(index.top("WRITE", 10)));
+        assertEquals(List.of("write tests"), names(index.top("w", 1)));
+        assertTrue(index.top("x", 5).isEmpty());
+
+        index.touch(4, 40);
+        index.put(3, "Write car review", 1);
+        index.remove(1);
+        assertEquals(List.of("Writing club", "write tests", "Write car review"), names(index.top("wri", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void putAll_shouldReplaceKnownIdsOnANonEmptyIndex() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1, "Alpha", 1);
+        index.put(2, "Beta", 2);
+        index.put(3, "Gamma", 3);
+
+        // 2 is renamed twice in one batch, 3 is renamed once, 4 is new
+        index.putAll(List.of(
+                new PrefixIndex.Match(2, "Zeta", 5),
+                new PrefixIndex.Match(4, "Delta", 4),
+                new PrefixIndex.Match(3, "Alphabet", 6),
+                new PrefixIndex.Match(2, "Beta again", 7)));
+
+        assertEquals(4, index.size());
+        assertEquals(List.of("Beta again", "Alphabet", "Delta", "Alpha"), names(index.top("", 10)));
+        assertTrue(index.top("zeta", 5).isEmpty());
+        assertTrue(index.top("gamma", 5).isEmpty());
+
+        // the arrays stay sorted for the single-entry paths
+        assertTrue(index.remove(3));
+        index.put(1, "Beta prime", 8);
+        assertEquals(List.of("Beta prime", "Beta again"), names(index.top("beta", 10)));
+        assertEquals(List.of("Beta prime", "Beta again", "Delta"), names(index.top("", 10)));
+    }
+
+    @Test
+    void top_shouldMatchAFullSortOnRandomData() {
+        Random rnd = new Random(7);
+        PrefixIndex index = new PrefixIndex();
+        List<PrefixIndex.Match> all = new ArrayList<>();
+        for (int id = 0; id < 5_000; id++) {
+            String name = "t" + Integer.toString(rnd.nextInt(500), 36) + "-" + id;
+            all.add(new PrefixIndex.Match(id, name, rnd.nextInt(1_000)));
+        }
+        index.putAll(all);
+        // single updates on top of the bulk load
+        for (int id = 0; id < 5_000; id += 7) {
+            index.remove(id);
+            all.set(id, null);
+        }
+        for (int id = 5_000; id < 5_500; id++) {
+            PrefixIndex.Match m = new PrefixIndex.Match(id, "t" + Integer.toString(rnd.nextInt(500), 36) + "-" + id, rnd.nextInt(1_000));
+            index.put(m.id(), m.name(), m.recency());
+            all.add(m);
+        }
+        all.removeIf(m -> m == null);
+
+        for (String prefix : List.of("t", "t1", "ta", "t9z")) {
+            List<PrefixIndex.Match> expected = all.stream()
+                    .filter(m -> m.name().startsWith(prefix))
+                    .sorted(Comparator.comparingLong(PrefixIndex.Match::recency).reversed().thenComparing(PrefixIndex.Match::name))
+                    .limit(8)
+                    .toList();
+            assertEquals(expected.stream().map(PrefixIndex.Match::recency).toList(),
+                    index.top(prefix, 8).stream().map(PrefixIndex.Match::recency).toList(), prefix);
+        }
+    }
+}
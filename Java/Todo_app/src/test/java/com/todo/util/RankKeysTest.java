@@ -0,0 +1,67 @@
+package com.todo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankKeysTest {
+
+    @Test
+    void between_shouldFallStrictlyBetweenItsBounds() {
+        String[][] cases = {
+                {null, null}, {null, "1"}, {"z", null}, {"a", "b"}, {"a", "a1"}, {"a1", "a2"},
+                {"az", "b"}, {"zzz", null}, {"0001", "0002"}, {"i", "i00001"}, {"y", "z"},
+        };
+        for (String[] c : cases) {
+            String k = RankKeys.between(c[0], c[1]);
+            assertTrue(RankKeys.isValid(k), k);
+            if (c[0] != null) assertTrue(c[0].compareTo(k) < 0, c[0] + " < " + k);
+            if (c[1] != null) assertTrue(k.compareTo(c[1]) < 0, k + " < " + c[1]);
+        }
+    }
+
+    @Test
+    void between_shouldRejectKeysOutOfOrderOrEndingInZero() {
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("b", "a"));
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("a", "a"));
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("a0", "b"));
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("A", null));
+    }
+
+    @Test
+    void randomMoves_shouldKeepTheListInTheOrderOfItsKeys() {
+        Random rnd = new Random(47);
+        List<String> keys = new ArrayList<>(List.of(RankKeys.spread(50)));
+        for (int i = 0; i < 5_000; i++) {
+            keys.remove(rnd.nextInt(keys.size()));
+            int at = rnd.nextInt(keys.size() + 1);
+            String key = RankKeys.between(at == 0 ? null : keys.get(at - 1), at == keys.size() ? null : keys.get(at));
+            keys.add(at, key);
+        }
+        for (int i = 1; i < keys.size(); i++) assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0);
+    }
+
+    @Test
+    void movesIntoTheSameGap_shouldGrowKeysSlowly() {
+        String lo = "a", hi = "b";
+        for (int i = 0; i < 100; i++) hi = RankKeys.between(lo, hi);
+        // every move halves the gap; 36 digits hold about five halvings
+        assertTrue(hi.length() <= 22, hi);
+    }
+
+    @Test
+    void spread_shouldGiveShortAscendingKeys() {
+        String[] keys = RankKeys.spread(1000);
+        assertEquals(1000, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(RankKeys.isValid(keys[i]), keys[i]);
+            assertTrue(keys[i].length() <= 3, keys[i]);
+            if (i > 0) assertTrue(keys[i - 1].compareTo(keys[i]) < 0, keys[i - 1] + " < " + keys[i]);
+        }
+        assertEquals(0, RankKeys.spread(0).length);
+    }
+}
@@ -0,0 +1,115 @@
+package com.todo.util;
+
+import com.todo.dao.CategoryDao;
+import com.todo.exception.DatabaseUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs the DAOs against a fault-injecting connection factory instead of a real database
+public class ResilienceTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+
+    @BeforeEach
+    void resetBreaker() {
+        Resilience.breaker().reset();
+    }
+
+    @AfterEach
+    void restoreDriver() {
+        DB.setConnectionFactory(null);
+        Resilience.breaker().reset();
+    }
+
+    @Test
+    void transientConnectFailures_shouldBeRetried() throws Exception {
+        DB.setConnectionFactory((url, user, pwd) -> {
+            if (opened.incrementAndGet() <= 2) throw new SQLException("connection refused", "08001");
+            return fakeConnection();
+        });
+
+        assertTrue(new CategoryDao().existsById(1));
+        assertEquals(3, opened.get());
+        assertEquals(CircuitBreaker.State.CLOSED, Resilience.breaker().getState());
+    }
+
+    @Test
+    void permanentFailures_shouldNotBeRetried() {
+        DB.setConnectionFactory((url, user, pwd) -> {
+            opened.incrementAndGet();
+            throw new SQLException("password authentication failed", "28P01");
+        });
+
+        assertThrows(SQLException.class, () -> new CategoryDao().existsById(1));
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void databaseDown_shouldOpenBreakerAndFailFast() {
+        DB.setConnectionFactory((url, user, pwd) -> {
+            opened.incrementAndGet();
+            throw new SQLException("terminating connection due to administrator command", "57P01");
+        });
+
+        CategoryDao dao = new CategoryDao();
+        for (int i = 0; i < 10 && Resilience.breaker().getState() != CircuitBreaker.State.OPEN; i++) {
+            try {
+                dao.existsById(1);
+            } catch (Exception ignored) {
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, Resilience.breaker().getState());
+
+        int before = opened.get();
+        assertThrows(DatabaseUnavailableException.class, () -> dao.existsById(1));
+        assertEquals(before, opened.get());
+    }
+
+    @Test
+    void successfulReads_shouldResetTheFailureCount() throws Exception {
+        // every read hits one transient error on a connection that is already open, then succeeds on retry
+        for (int i = 0; i < 10; i++) {
+            AtomicInteger attempts = new AtomicInteger();
+            assertEquals(1, Resilience.read(() -> {
+                if (attempts.incrementAndGet() == 1) throw new SQLException("could not serialize access", "40001");
+                return 1;
+            }).intValue());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, Resilience.breaker().getState());
+    }
+
+    // Connection -> PreparedStatement -> ResultSet with a single row
+    private static Connection fakeConnection() {
+        ResultSet rs = proxy(ResultSet.class, new int[]{1}, (state, name) -> switch (name) {
+            case "next" -> state[0]-- > 0;
+            default -> null;
+        });
+        PreparedStatement ps = proxy(PreparedStatement.class, null, (state, name) -> switch (name) {
+            case "executeQuery" -> rs;
+            default -> null;
+        });
+        return proxy(Connection.class, null, (state, name) -> switch (name) {
+            case "prepareStatement" -> ps;
+            default -> null;
+        });
+    }
+
+    private interface Answer {
+        Object answer(int[] state, String method);
+    }
+
+    private static <T> T proxy(Class<T> type, int[] state, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(ResilienceTest.class.getClassLoader(), new Class<?>[]{type},
+                (p, m, args) -> answer.answer(state, m.getName())));
+    }
+}
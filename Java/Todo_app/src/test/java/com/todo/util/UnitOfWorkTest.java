@@ -0,0 +1,177 @@
+package com.todo.util;
+
+import com.todo.dao.CategoryDao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// records what a unit of work does to its connection, against a fake driver
+public class UnitOfWorkTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private int opened;
+
+    @BeforeEach
+    void fakeDriver() {
+        Resilience.breaker().reset();
+        DB.setConnectionFactory((url, user, pwd) -> {
+            opened++;
+            return recordingConnection();
+        });
+    }
+
+    @AfterEach
+    void restoreDriver() {
+        DB.setConnectionFactory(null);
+    }
+
+    @Test
+    void daoCalls_shouldShareOneConnectionAndOneCommit() throws Exception {
+        CategoryDao dao = new CategoryDao();
+        UnitOfWork.call(() -> dao.existsById(1) && dao.existsById(2) && dao.existsById(3));
+
+        assertEquals(1, opened);
+        assertEquals(List.of("setAutoCommit(false)", "query", "query", "query", "commit", "close"), calls);
+    }
+
+    @Test
+    void failures_shouldRollBackAndDropCallbacks() {
+        List<String> fired = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.call(() -> {
+            UnitOfWork.afterCommit(() -> fired.add("event"));
+            throw new IllegalStateException("boom");
+        }));
+
+        assertTrue(fired.isEmpty());
+        assertEquals(List.of("setAutoCommit(false)", "rollback", "close"), calls);
+        assertFalse(DB.isBound());
+    }
+
+    @Test
+    void nestedUnits_shouldUseSavepointsAndFireCallbacksAfterTheOuterCommit() throws Exception {
+        List<String> fired = new ArrayList<>();
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            UnitOfWork.afterCommit(() -> fired.add("outer"));
+
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                UnitOfWork.afterCommit(() -> fired.add("rolled back"));
+            }
+            UnitOfWork.call(() -> {
+                UnitOfWork.afterCommit(() -> fired.add("inner"));
+                return null;
+            });
+            // read-only nested units join without a savepoint
+            UnitOfWork.read(() -> null);
+
+            assertTrue(fired.isEmpty());
+            outer.commit();
+        }
+
+        assertEquals(List.of("outer", "inner"), fired);
+        assertEquals(List.of("setAutoCommit(false)", "setSavepoint", "rollback(savepoint)",
+                "setSavepoint", "releaseSavepoint", "commit", "close"), calls);
+        assertEquals(1, opened);
+    }
+
+    @Test
+    void explicitSavepoints_shouldUndoWorkAndCallbacksSinceThem() throws Exception {
+        List<String> fired = new ArrayList<>();
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            UnitOfWork.afterCommit(() -> fired.add("kept"));
+            UnitOfWork.Savepoint sp = unit.savepoint();
+            UnitOfWork.afterCommit(() -> fired.add("undone"));
+            unit.rollbackTo(sp);
+            unit.commit();
+        }
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void readOnlyAndIsolation_shouldBeSetOnTheOutermostUnitOnly() throws Exception {
+        try (UnitOfWork unit = UnitOfWork.begin(UnitOfWork.Isolation.SERIALIZABLE, true)) {
+            assertThrows(IllegalStateException.class, UnitOfWork::begin);
+            unit.commit();
+        }
+        assertEquals(List.of("setAutoCommit(false)", "setTransactionIsolation", "setReadOnly(true)", "commit", "close"), calls);
+    }
+
+    @Test
+    void anAutoCommitBoundConnection_shouldBeTakenOverAndHandedBack() throws Exception {
+        DB.bind(true);
+        try {
+            calls.clear();
+            UnitOfWork.read(() -> null);
+            assertTrue(DB.isBound());
+        } finally {
+            DB.unbind();
+        }
+        assertEquals(List.of("setReadOnly(true)", "setAutoCommit(false)", "commit",
+                "setReadOnly(false)", "setAutoCommit(true)", "close"), calls);
+    }
+
+    @Test
+    void outsideAUnit_callbacksShouldRunRightAway() {
+        List<String> fired = new ArrayList<>();
+        UnitOfWork.afterCommit(() -> fired.add("now"));
+        assertEquals(List.of("now"), fired);
+    }
+
+    private Connection recordingConnection() {
+        boolean[] autoCommit = {true};
+        return proxy(Connection.class, (name, args) -> switch (name) {
+            case "setAutoCommit" -> {
+                autoCommit[0] = (Boolean) args[0];
+                calls.add("setAutoCommit(" + args[0] + ")");
+                yield null;
+            }
+            case "getAutoCommit" -> autoCommit[0];
+            case "setReadOnly" -> {
+                calls.add("setReadOnly(" + args[0] + ")");
+                yield null;
+            }
+            case "setSavepoint" -> {
+                calls.add("setSavepoint");
+                yield proxy(Savepoint.class, (n, a) -> null);
+            }
+            case "rollback" -> {
+                calls.add(args == null ? "rollback" : "rollback(savepoint)");
+                yield null;
+            }
+            case "prepareStatement" -> statement();
+            case "isClosed" -> false;
+            default -> {
+                calls.add(name);
+                yield null;
+            }
+        });
+    }
+
+    private PreparedStatement statement() {
+        int[] rows = {1};
+        ResultSet rs = proxy(ResultSet.class, (name, args) -> name.equals("next") ? rows[0]-- > 0 : null);
+        return proxy(PreparedStatement.class, (name, args) -> {
+            if (!name.equals("executeQuery")) return null;
+            calls.add("query");
+            return rs;
+        });
+    }
+
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(UnitOfWorkTest.class.getClassLoader(), new Class<?>[]{type},
+                (p, m, args) -> answer.answer(m.getName(), args)));
+    }
+}
@@ -17,6 +17,22 @@ CREATE TABLE category (
     display_name VARCHAR(100)
 );
 
+CREATE TABLE task_templates (
+  id SERIAL PRIMARY KEY,
+  user_id INT NOT NULL REFERENCES users(id),
+  category_id INT NOT NULL REFERENCES category(id),
+  task_name VARCHAR(200) NOT NULL,
+  frequency VARCHAR(10) NOT NULL CHECK (frequency IN ('daily', 'weekly', 'monthly')),
+  weekday_mask INT NOT NULL DEFAULT 0,
+  day_of_month SMALLINT CHECK (day_of_month BETWEEN 1 AND 31),
+  due_time TIME,
+  starts_on DATE NOT NULL DEFAULT CURRENT_DATE,
+  ends_on DATE,
+  active BOOLEAN NOT NULL DEFAULT TRUE,
+  materialized_through DATE,
+  created_date TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
 CREATE TABLE tasks (
   id SERIAL PRIMARY KEY,
   task_name VARCHAR(200) NOT NULL,
@@ -24,9 +40,156 @@ CREATE TABLE tasks (
   user_id INT NOT NULL REFERENCES users(id),
   category_id INT NOT NULL REFERENCES category(id),
   created_date TIMESTAMP NOT NULL DEFAULT NOW(),
-  updated_date TIMESTAMP NOT NULL DEFAULT NOW()
+  updated_date TIMESTAMP NOT NULL DEFAULT NOW(),
+  version INT NOT NULL DEFAULT 0,
+  due_date TIMESTAMP,
+  template_id INT REFERENCES task_templates(id),
+  occurrence_date DATE,
+  rank_key TEXT COLLATE "C",
+  change_stamp BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_tasks_queue ON tasks(category_id, status_id, created_date, id);
+CREATE INDEX idx_tasks_due_date ON tasks(due_date) WHERE due_date IS NOT NULL;
+CREATE UNIQUE INDEX idx_tasks_template_occurrence ON tasks(template_id, occurrence_date) WHERE template_id IS NOT NULL;
+CREATE INDEX idx_tasks_user_updated ON tasks(user_id, updated_date DESC);
+CREATE INDEX idx_tasks_user_name ON tasks(user_id, task_name text_pattern_ops);
+CREATE INDEX idx_tasks_user_rank ON tasks(user_id, rank_key, updated_date DESC, id DESC);
+CREATE INDEX idx_tasks_user_change ON tasks(user_id, change_stamp);
+
+CREATE TABLE task_shares (
+  task_id INT NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+  user_id INT NOT NULL REFERENCES users(id),
+  permission VARCHAR(10) NOT NULL CHECK (permission IN ('viewer', 'editor')),
+  shared_date TIMESTAMP NOT NULL DEFAULT NOW(),
+  task_updated_date TIMESTAMP NOT NULL,
+  PRIMARY KEY (task_id, user_id)
+);
+
+CREATE INDEX idx_task_shares_user ON task_shares(user_id, task_updated_date DESC, task_id DESC);
+
+CREATE OR REPLACE FUNCTION sync_task_shares_updated_date()
+RETURNS TRIGGER AS $$
+BEGIN
+  UPDATE task_shares SET task_updated_date = NEW.updated_date WHERE task_id = NEW.id;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tasks_shares_updated_date
+  AFTER UPDATE ON tasks
+  FOR EACH ROW
+  WHEN (OLD.updated_date IS DISTINCT FROM NEW.updated_date)
+  EXECUTE FUNCTION sync_task_shares_updated_date();
+
+CREATE TABLE task_tags (
+  task_id INT NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+  tag VARCHAR(50) NOT NULL,
+  PRIMARY KEY (task_id, tag)
+);
+
+CREATE TABLE task_closure (
+  ancestor_id INT NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+  descendant_id INT NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+  depth INT NOT NULL CHECK (depth > 0),
+  PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX idx_task_closure_descendant ON task_closure(descendant_id, depth);
+
+CREATE TABLE task_attachments (
+  id SERIAL PRIMARY KEY,
+  task_id INT NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+  user_id INT NOT NULL REFERENCES users(id),
+  kind VARCHAR(10) NOT NULL CHECK (kind IN ('note', 'file')),
+  file_name VARCHAR(255),
+  content_hash CHAR(64) NOT NULL,
+  size_bytes BIGINT NOT NULL,
+  created_date TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+CREATE INDEX idx_task_attachments_task ON task_attachments(task_id, created_date);
+
+CREATE TABLE tasks_archive (
+  id INT NOT NULL,
+  task_name VARCHAR(200) NOT NULL,
+  status_id INT NOT NULL,
+  user_id INT NOT NULL,
+  category_id INT NOT NULL,
+  created_date TIMESTAMP NOT NULL,
+  updated_date TIMESTAMP NOT NULL,
+  version INT NOT NULL,
+  due_date TIMESTAMP,
+  template_id INT,
+  occurrence_date DATE,
+  archived_date TIMESTAMP NOT NULL DEFAULT NOW()
+) PARTITION BY RANGE (updated_date);
+
+CREATE INDEX idx_tasks_archive_user ON tasks_archive(user_id, updated_date);
+
+CREATE TABLE task_status_history (
+  id BIGSERIAL PRIMARY KEY,
+  task_id INT NOT NULL,
+  user_id INT NOT NULL,
+  category_id INT NOT NULL,
+  from_status_id SMALLINT,
+  to_status_id SMALLINT NOT NULL,
+  changed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_history_task ON task_status_history(task_id, changed_at);
+CREATE INDEX idx_history_user_status ON task_status_history(user_id, to_status_id, changed_at);
+CREATE INDEX idx_history_category_status ON task_status_history(category_id, to_status_id, changed_at);
+
+CREATE OR REPLACE FUNCTION record_task_status_change()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO task_status_history (task_id, user_id, category_id, from_status_id, to_status_id, changed_at)
+    VALUES (NEW.id, NEW.user_id, NEW.category_id, NULL, NEW.status_id, NEW.created_date);
+  ELSIF NEW.status_id IS DISTINCT FROM OLD.status_id THEN
+    INSERT INTO task_status_history (task_id, user_id, category_id, from_status_id, to_status_id, changed_at)
+    VALUES (NEW.id, NEW.user_id, NEW.category_id, OLD.status_id, NEW.status_id, NOW());
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tasks_status_history
+  AFTER INSERT OR UPDATE OF status_id ON tasks
+  FOR EACH ROW
+  EXECUTE FUNCTION record_task_status_change();
+
+CREATE TABLE task_removals (
+  user_id INT NOT NULL,
+  task_id INT NOT NULL,
+  change_stamp BIGINT NOT NULL
+);
+
+CREATE INDEX idx_task_removals_user ON task_removals(user_id, change_stamp);
+
+CREATE OR REPLACE FUNCTION record_task_change_stamp()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    INSERT INTO task_removals (user_id, task_id, change_stamp)
+    VALUES (OLD.user_id, OLD.id, pg_current_xact_id()::text::bigint);
+    RETURN OLD;
+  END IF;
+  IF TG_OP = 'UPDATE' AND OLD.user_id <> NEW.user_id THEN
+    INSERT INTO task_removals (user_id, task_id, change_stamp)
+    VALUES (OLD.user_id, OLD.id, pg_current_xact_id()::text::bigint);
+  END IF;
+  NEW.change_stamp := pg_current_xact_id()::text::bigint;
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tasks_change_stamp
+  BEFORE INSERT OR UPDATE OR DELETE ON tasks
+  FOR EACH ROW
+  EXECUTE FUNCTION record_task_change_stamp();
+
 INSERT INTO status(status_name, display_name) VALUES
 ('ready_to_pick', 'Ready to Pick'),
 ('in_progress', 'In Progress'),